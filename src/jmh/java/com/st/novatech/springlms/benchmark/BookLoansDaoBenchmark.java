@@ -0,0 +1,59 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * Benchmarks of the loans DAO.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookLoansDaoBenchmark {
+	/**
+	 * Look up one of a random borrower's loans.
+	 *
+	 * @param library the seeded application
+	 * @return the loan
+	 */
+	@Benchmark
+	public Loan get(final LibraryState library) {
+		final Borrower borrower = library.randomBorrower();
+		final int index = ThreadLocalRandom.current()
+				.nextInt(LibraryState.LOANS_PER_BORROWER);
+		return library.loansDao.get(library.loanedBook(borrower, index), borrower,
+				library.branch(index + 1));
+	}
+
+	/**
+	 * Create a loan of a random book from a random branch to a random borrower,
+	 * in a transaction that is then rolled back. (Now and then the borrower
+	 * already has that book from that branch, and the loan is updated instead.)
+	 *
+	 * @param library the seeded application
+	 * @return the loan
+	 */
+	@Benchmark
+	public Loan create(final LibraryState library) {
+		return library.rolledBack(() -> library.loansDao.create(library.randomBook(),
+				library.randomBorrower(), library.randomBranch(), LocalDateTime.now(),
+				LocalDate.now().plusWeeks(1)));
+	}
+}
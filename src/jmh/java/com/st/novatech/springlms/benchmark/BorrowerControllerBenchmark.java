@@ -0,0 +1,84 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Saturation benchmarks of the borrower endpoints: many more client threads
+ * than pooled connections call the application over HTTP at once, so the
+ * latency percentiles show how requests queue for a connection as the pool
+ * size ({@link WebLibraryState#poolSize}) varies. The pool's own acquire-time
+ * figures are printed after each iteration.
+ *
+ * <p>Run with something like "-p rows=100000", as the largest libraries take
+ * a long time to seed.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(64)
+@Fork(1)
+public class BorrowerControllerBenchmark {
+	/**
+	 * List a random borrower's loans.
+	 *
+	 * @param library the running application
+	 * @return the HTTP status of the response
+	 */
+	@Benchmark
+	public int getLoans(final WebLibraryState library) {
+		return library.call(HttpMethod.GET, "/borrower/{cardNo}/loans",
+				library.randomBorrower().getCardNo());
+	}
+
+	/**
+	 * Find which branches have a random book.
+	 *
+	 * @param library the running application
+	 * @return the HTTP status of the response
+	 */
+	@Benchmark
+	public int getAvailability(final WebLibraryState library) {
+		return library.call(HttpMethod.GET, "/book/{bookId}/availability",
+				library.randomBook().getId());
+	}
+
+	/**
+	 * Check out a random book from a random branch to a random borrower, and
+	 * then return it, leaving the database as it was.
+	 *
+	 * @param library the running application
+	 * @return the HTTP status of the return, or of the checkout if it failed
+	 *         (as when the borrower already had that book from that branch)
+	 */
+	@Benchmark
+	public int borrowAndReturn(final WebLibraryState library) {
+		final Borrower borrower = library.randomBorrower();
+		final Branch branch = library.randomBranch();
+		final Book book = library.randomBook();
+		final String path = "/borrower/{cardNo}/branch/{branchId}/book/{bookId}";
+		final int status = library.call(HttpMethod.POST, path, borrower.getCardNo(),
+				branch.getId(), book.getId());
+		if (status / 100 != 2) {
+			return status;
+		}
+		return library.call(HttpMethod.DELETE, path, borrower.getCardNo(),
+				branch.getId(), book.getId());
+	}
+}
@@ -0,0 +1,106 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * Benchmarks of the borrower service's checkout, return, and loan-listing
+ * paths.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BorrowerServiceBenchmark {
+	/**
+	 * Check out a random book from a random branch to a random borrower, in a
+	 * transaction that is then rolled back.
+	 *
+	 * @param library the seeded application
+	 * @return the loan, or null in the rare case that the borrower already had
+	 *         that book from that branch
+	 */
+	@Benchmark
+	public Loan borrowBook(final LibraryState library) {
+		return library.rolledBack(() -> {
+			try {
+				return library.borrowerService.borrowBook(library.randomBorrower(),
+						library.randomBook(), library.randomBranch(),
+						LocalDateTime.now(), LocalDate.now().plusWeeks(1));
+			} catch (final TransactionException except) {
+				throw new IllegalStateException(except);
+			}
+		});
+	}
+
+	/**
+	 * Return one of a random borrower's loans, in a transaction that is then
+	 * rolled back.
+	 *
+	 * @param library the seeded application
+	 * @return true, as none of the seeded loans is overdue
+	 */
+	@Benchmark
+	public Boolean returnBook(final LibraryState library) {
+		final Borrower borrower = library.randomBorrower();
+		final int index = ThreadLocalRandom.current()
+				.nextInt(LibraryState.LOANS_PER_BORROWER);
+		return library.rolledBack(() -> {
+			try {
+				return library.borrowerService.returnBook(borrower,
+						library.loanedBook(borrower, index), library.branch(index + 1),
+						LocalDate.now());
+			} catch (final TransactionException except) {
+				throw new IllegalStateException(except);
+			}
+		});
+	}
+
+	/**
+	 * Find which branches have a random book. This is measured by sampling, so
+	 * the report gives percentiles, as the catalog calls it once per search
+	 * result and so cares about the tail.
+	 *
+	 * @param library the seeded application
+	 * @return the copies records of the branches that have the book
+	 * @throws TransactionException on error caught by the service
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	public List<BranchCopies> getAvailableCopies(final LibraryState library)
+			throws TransactionException {
+		return library.borrowerService.getAvailableCopies(library.randomBook());
+	}
+
+	/**
+	 * List a random borrower's loans.
+	 *
+	 * @param library the seeded application
+	 * @return the borrower's loans
+	 * @throws TransactionException on error caught by the service
+	 */
+	@Benchmark
+	public List<Loan> getAllBorrowedBooks(final LibraryState library)
+			throws TransactionException {
+		return library.borrowerService.getAllBorrowedBooks(library.randomBorrower());
+	}
+}
@@ -0,0 +1,119 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.st.novatech.springlms.SpringlmsApplication;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Author;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Publisher;
+import com.st.novatech.springlms.service.AdministratorService;
+
+/**
+ * Benchmark comparing how many books per second can be added to the catalog
+ * one at a time, as before there was a bulk path, and in bulk.
+ *
+ * @author Jonathan Lovelace
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogImportBenchmark {
+	/**
+	 * How many books each invocation adds.
+	 */
+	private static final int BOOKS = 1000;
+
+	/**
+	 * The running application.
+	 */
+	private ConfigurableApplicationContext context;
+	/**
+	 * The service under test.
+	 */
+	private AdministratorService service;
+	/**
+	 * The author of every book added.
+	 */
+	private Author author;
+	/**
+	 * The publisher of every book added.
+	 */
+	private Publisher publisher;
+
+	/**
+	 * Start the application, against an empty database.
+	 *
+	 * @throws TransactionException on error caught by the service
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws TransactionException {
+		context = new SpringApplicationBuilder(SpringlmsApplication.class)
+				.web(WebApplicationType.NONE).run("--logging.level.root=WARN");
+		service = context.getBean(AdministratorService.class);
+		author = service.createAuthor("Benchmark Author");
+		publisher = service.createPublisher("Benchmark Publisher");
+	}
+
+	/**
+	 * Shut the application down, discarding the database.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Add {@link #BOOKS} books one at a time, each in its own transaction.
+	 *
+	 * @return the last book added
+	 * @throws TransactionException on error caught by the service
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BOOKS)
+	public Book oneAtATime() throws TransactionException {
+		Book book = null;
+		for (int i = 0; i < BOOKS; i++) {
+			book = service.createBook("Title " + i, author, publisher);
+		}
+		return book;
+	}
+
+	/**
+	 * Add {@link #BOOKS} books in a single bulk call.
+	 *
+	 * @return the books added
+	 * @throws TransactionException on error caught by the service
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BOOKS)
+	public List<Book> bulk() throws TransactionException {
+		final List<Book> books = new ArrayList<>(BOOKS);
+		for (int i = 0; i < BOOKS; i++) {
+			books.add(new Book(0, "Title " + i, author, publisher));
+		}
+		return service.createBooks(books);
+	}
+}
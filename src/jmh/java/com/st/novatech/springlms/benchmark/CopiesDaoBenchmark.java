@@ -0,0 +1,64 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.st.novatech.springlms.model.BranchCopies;
+
+/**
+ * Benchmarks of the copies DAO.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CopiesDaoBenchmark {
+	/**
+	 * Look up the number of copies of a random book at a random branch.
+	 *
+	 * @param library the seeded application
+	 * @return the number of copies
+	 */
+	@Benchmark
+	public int getCopies(final LibraryState library) {
+		return library.copiesDao.getCopies(library.randomBranch(), library.randomBook());
+	}
+
+	/**
+	 * Change the number of copies of a random book at a random branch, in a
+	 * transaction that is then rolled back.
+	 *
+	 * @param library the seeded application
+	 * @return a dummy value, so the work is not optimized away
+	 */
+	@Benchmark
+	public boolean setCopies(final LibraryState library) {
+		return library.rolledBack(() -> {
+			library.copiesDao.setCopies(library.randomBranch(), library.randomBook(),
+					LibraryState.COPIES + 1);
+			return true;
+		});
+	}
+
+	/**
+	 * Get every copies record for a random branch.
+	 *
+	 * @param library the seeded application
+	 * @return the copies records
+	 */
+	@Benchmark
+	public List<BranchCopies> getAllBranchCopies(final LibraryState library) {
+		return library.copiesDao.getAllBranchCopies(library.randomBranch());
+	}
+}
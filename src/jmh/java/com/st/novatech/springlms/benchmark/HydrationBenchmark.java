@@ -0,0 +1,85 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.st.novatech.springlms.SpringlmsApplication;
+import com.st.novatech.springlms.model.BranchCopies;
+
+/**
+ * A benchmark of entity hydration throughput: how many pages of copies records,
+ * each with its branch and book, can be loaded per second, with the
+ * null-to-empty-string handling done only by EmptyStringConverter on the
+ * String columns, and with the interceptor it replaced also installed.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HydrationBenchmark {
+	/**
+	 * How many copies records to load at once.
+	 */
+	private static final int PAGE_SIZE = 10_000;
+
+	/**
+	 * The seeded application, with or without the interceptor.
+	 */
+	@State(Scope.Benchmark)
+	public static class HydrationState extends LibraryState {
+		/**
+		 * Whether to install the interceptor that scans every loaded entity.
+		 */
+		@Param({ "false", "true" })
+		public boolean interceptor;
+
+		/**
+		 * Start the application, without a web server, installing the
+		 * interceptor if requested.
+		 *
+		 * @return the running application
+		 */
+		@Override
+		protected ConfigurableApplicationContext start() {
+			final SpringApplicationBuilder builder = new SpringApplicationBuilder(
+					SpringlmsApplication.class).web(WebApplicationType.NONE);
+			if (interceptor) {
+				return builder.run("--logging.level.root=WARN",
+						"--spring.jpa.properties.hibernate.ejb.interceptor="
+								+ ScanningInterceptor.class.getName());
+			} else {
+				return builder.run("--logging.level.root=WARN");
+			}
+		}
+	}
+
+	/**
+	 * Load the first page of copies records, in a read-only transaction.
+	 *
+	 * @param library the seeded application
+	 * @return the copies records
+	 */
+	@Benchmark
+	public List<BranchCopies> hydrate(final HydrationState library) {
+		return library.inTransaction(true, () -> library.copiesDao.findPageAfter(0, 0,
+				PageRequest.of(0, PAGE_SIZE)));
+	}
+}
@@ -0,0 +1,264 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.st.novatech.springlms.SpringlmsApplication;
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.dao.BookLoansDao;
+import com.st.novatech.springlms.dao.BorrowerDao;
+import com.st.novatech.springlms.dao.CopiesDao;
+import com.st.novatech.springlms.dao.LibraryBranchDao;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.service.AvailabilityIndex;
+import com.st.novatech.springlms.service.BorrowerService;
+import com.st.novatech.springlms.service.SearchIndex;
+import com.st.novatech.springlms.service.SuggestIndex;
+
+/**
+ * The application, running against an embedded H2 database (created from
+ * schema.sql) seeded with a library of the requested size, shared by all the
+ * threads of a benchmark.
+ *
+ * <p>The copies table has {@link #rows} rows: every one of {@link #BRANCHES}
+ * branches holds {@link #COPIES} copies of each of {@code rows / BRANCHES}
+ * books. There is one borrower for every thousand rows, each with
+ * {@link #LOANS_PER_BORROWER} loans, not yet due, of which the {@code i}th is
+ * of the book given by {@link #loanedBook(Borrower, int)} from the branch with
+ * ID {@code i + 1}.
+ *
+ * <p>The largest sizes need a large heap for the in-memory database; pass
+ * something like "-jvmArgsAppend -Xmx8g" to JMH.
+ *
+ * @author Jonathan Lovelace
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+	/**
+	 * How many branches there are.
+	 */
+	public static final int BRANCHES = 100;
+	/**
+	 * How many copies of each book each branch starts with.
+	 */
+	public static final int COPIES = 5;
+	/**
+	 * How many loans each borrower starts with.
+	 */
+	public static final int LOANS_PER_BORROWER = 10;
+
+	/**
+	 * How many rows the copies table has. Every other table is sized in
+	 * proportion to this.
+	 */
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	public int rows;
+
+	/**
+	 * The running application.
+	 */
+	private ConfigurableApplicationContext context;
+	/**
+	 * Transaction template for running an operation in a transaction that is
+	 * then rolled back.
+	 */
+	private TransactionTemplate transactionTemplate;
+	/**
+	 * Transaction template for running an operation in a read-only transaction.
+	 */
+	private TransactionTemplate readOnlyTemplate;
+
+	/**
+	 * The copies DAO.
+	 */
+	public CopiesDao copiesDao;
+	/**
+	 * The loans DAO.
+	 */
+	public BookLoansDao loansDao;
+	/**
+	 * The borrower service.
+	 */
+	public BorrowerService borrowerService;
+	/**
+	 * The JSON mapper the controllers use.
+	 */
+	public ObjectMapper mapper;
+
+	/**
+	 * Every branch, in order of ID.
+	 */
+	private List<Branch> branches;
+	/**
+	 * Every book, in order of ID.
+	 */
+	private List<Book> books;
+	/**
+	 * Every borrower, in order of card number.
+	 */
+	private List<Borrower> borrowers;
+
+	/**
+	 * Start the application and seed the database.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = start();
+		final JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		final int bookCount = Math.max(rows / BRANCHES, 1);
+		final int borrowerCount = Math.max(rows / 1000, 1);
+		// SYSTEM_RANGE() is H2's row generator, so the database fills the tables
+		// itself rather than our sending it millions of INSERTs.
+		jdbc.update("INSERT INTO tbl_library_branch (branchId, branchName, branchAddress) "
+				+ "SELECT X, CONCAT('Branch ', X), '' FROM SYSTEM_RANGE(1, " + BRANCHES + ")");
+		jdbc.update("INSERT INTO tbl_book (bookId, title) "
+				+ "SELECT X, CONCAT('Title ', X) FROM SYSTEM_RANGE(1, " + bookCount + ")");
+		jdbc.update("INSERT INTO tbl_book_copies (bookId, branchId, noOfCopies) "
+				+ "SELECT b.X, r.X, " + COPIES + " FROM SYSTEM_RANGE(1, " + bookCount
+				+ ") b, SYSTEM_RANGE(1, " + BRANCHES + ") r");
+		jdbc.update("INSERT INTO tbl_borrower (cardNo, name, address, phone) "
+				+ "SELECT X, CONCAT('Patron ', X), '', '' FROM SYSTEM_RANGE(1, "
+				+ borrowerCount + ")");
+		jdbc.update("INSERT INTO tbl_book_loans (bookId, branchId, cardNo, dateOut, dueDate) "
+				+ "SELECT MOD((c.X - 1) * " + LOANS_PER_BORROWER + " + i.X - 1, "
+				+ bookCount + ") + 1, i.X, c.X, ?, ? FROM SYSTEM_RANGE(1, "
+				+ borrowerCount + ") c, SYSTEM_RANGE(1, " + LOANS_PER_BORROWER + ") i",
+				LocalDateTime.now(), LocalDate.now().plusYears(1));
+		// The in-memory indexes were loaded, empty, as the application started.
+		context.getBean(AvailabilityIndex.class).reconcile();
+		context.getBean(SearchIndex.class).rebuild();
+		context.getBean(SuggestIndex.class).rebuild();
+		transactionTemplate = new TransactionTemplate(
+				context.getBean(PlatformTransactionManager.class));
+		readOnlyTemplate = new TransactionTemplate(
+				transactionTemplate.getTransactionManager());
+		readOnlyTemplate.setReadOnly(true);
+		copiesDao = context.getBean(CopiesDao.class);
+		loansDao = context.getBean(BookLoansDao.class);
+		borrowerService = context.getBean(BorrowerService.class);
+		mapper = context.getBean(ObjectMapper.class);
+		branches = context.getBean(LibraryBranchDao.class).findAll(Sort.by("id"));
+		books = context.getBean(BookDao.class).findAll(Sort.by("id"));
+		borrowers = context.getBean(BorrowerDao.class).findAll(Sort.by("cardNo"));
+	}
+
+	/**
+	 * Start the application, without a web server.
+	 *
+	 * @return the running application
+	 */
+	protected ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(SpringlmsApplication.class)
+				.web(WebApplicationType.NONE).run("--logging.level.root=WARN");
+	}
+
+	/**
+	 * Shut the application down, discarding the database.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Run an operation in a transaction, flush what it did to the database, and
+	 * then roll it back, so that a benchmark that modifies the database measures
+	 * the same work on every invocation.
+	 *
+	 * @param <T>       the type the operation returns
+	 * @param operation the operation to run
+	 * @return what it returned
+	 */
+	public <T> T rolledBack(final Supplier<T> operation) {
+		return transactionTemplate.execute(status -> {
+			final T retval = operation.get();
+			loansDao.flush();
+			status.setRollbackOnly();
+			return retval;
+		});
+	}
+
+	/**
+	 * Run an operation in a transaction that is then committed.
+	 *
+	 * @param <T>       the type the operation returns
+	 * @param readOnly  whether the transaction is read-only, so Hibernate loads
+	 *                  entities read-only and does not flush the session
+	 * @param operation the operation to run
+	 * @return what it returned
+	 */
+	public <T> T inTransaction(final boolean readOnly, final Supplier<T> operation) {
+		return (readOnly ? readOnlyTemplate : transactionTemplate)
+				.execute(status -> operation.get());
+	}
+
+	/**
+	 * Pick a branch at random.
+	 *
+	 * @return a branch
+	 */
+	public Branch randomBranch() {
+		return branches.get(ThreadLocalRandom.current().nextInt(branches.size()));
+	}
+
+	/**
+	 * Pick a book at random.
+	 *
+	 * @return a book
+	 */
+	public Book randomBook() {
+		return books.get(ThreadLocalRandom.current().nextInt(books.size()));
+	}
+
+	/**
+	 * Pick a borrower at random.
+	 *
+	 * @return a borrower
+	 */
+	public Borrower randomBorrower() {
+		return borrowers.get(ThreadLocalRandom.current().nextInt(borrowers.size()));
+	}
+
+	/**
+	 * Get the book of one of a borrower's seeded loans.
+	 *
+	 * @param borrower the borrower
+	 * @param index    which of its loans, from 0 to {@link #LOANS_PER_BORROWER}
+	 *                 - 1; the loan is from the branch with ID one more than this
+	 * @return the book that borrower has out in that loan
+	 */
+	public Book loanedBook(final Borrower borrower, final int index) {
+		return books.get(((borrower.getCardNo() - 1) * LOANS_PER_BORROWER + index)
+				% books.size());
+	}
+
+	/**
+	 * Get the branch with the given ID.
+	 *
+	 * @param branchId the ID of a branch, from 1 to {@link #BRANCHES}
+	 * @return that branch
+	 */
+	public Branch branch(final int branchId) {
+		return branches.get(branchId - 1);
+	}
+}
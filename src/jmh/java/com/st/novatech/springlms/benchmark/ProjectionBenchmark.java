@@ -0,0 +1,91 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.st.novatech.springlms.exception.TransactionException;
+
+/**
+ * Benchmarks comparing the two ways of serving a branch's copies records and
+ * a borrower's loans: loading the entities and serializing them, as the list
+ * endpoints used to, and building flat views with a projection query and
+ * serializing those. Each benchmark includes the serialization to JSON, as the
+ * endpoints do. Run with "-prof gc" to compare the bytes allocated per
+ * operation ("gc.alloc.rate.norm") as well as the time taken.
+ *
+ * @author Jonathan Lovelace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProjectionBenchmark {
+	/**
+	 * Load a random branch's copies records as entities and serialize them.
+	 *
+	 * @param library the seeded application
+	 * @return the JSON
+	 * @throws TransactionException    on error caught by the service
+	 * @throws JsonProcessingException on error serializing the records
+	 */
+	@Benchmark
+	public byte[] branchCopiesEntities(final LibraryState library)
+			throws TransactionException, JsonProcessingException {
+		return library.mapper.writeValueAsBytes(
+				library.borrowerService.getAllBranchCopies(library.randomBranch()));
+	}
+
+	/**
+	 * Build views of a random branch's copies records and serialize them.
+	 *
+	 * @param library the seeded application
+	 * @return the JSON
+	 * @throws TransactionException    on error caught by the service
+	 * @throws JsonProcessingException on error serializing the views
+	 */
+	@Benchmark
+	public byte[] branchCopiesViews(final LibraryState library)
+			throws TransactionException, JsonProcessingException {
+		return library.mapper.writeValueAsBytes(
+				library.borrowerService.getBranchCopiesViews(library.randomBranch()));
+	}
+
+	/**
+	 * Load a random borrower's loans as entities and serialize them.
+	 *
+	 * @param library the seeded application
+	 * @return the JSON
+	 * @throws TransactionException    on error caught by the service
+	 * @throws JsonProcessingException on error serializing the loans
+	 */
+	@Benchmark
+	public byte[] loanEntities(final LibraryState library)
+			throws TransactionException, JsonProcessingException {
+		return library.mapper.writeValueAsBytes(
+				library.borrowerService.getAllBorrowedBooks(library.randomBorrower()));
+	}
+
+	/**
+	 * Build views of a random borrower's loans and serialize them.
+	 *
+	 * @param library the seeded application
+	 * @return the JSON
+	 * @throws TransactionException    on error caught by the service
+	 * @throws JsonProcessingException on error serializing the views
+	 */
+	@Benchmark
+	public byte[] loanViews(final LibraryState library)
+			throws TransactionException, JsonProcessingException {
+		return library.mapper.writeValueAsBytes(
+				library.borrowerService.getLoanViews(library.randomBorrower()));
+	}
+}
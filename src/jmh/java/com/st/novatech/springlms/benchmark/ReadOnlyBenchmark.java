@@ -0,0 +1,77 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import com.st.novatech.springlms.model.BranchCopies;
+
+/**
+ * Benchmarks of reading a large list of entities (a page of copies records,
+ * each with its branch and book) in a read-write transaction, as the services'
+ * read methods used to, and in a read-only one, in which Hibernate keeps no
+ * dirty-checking snapshots and does not flush the session at commit. Run with
+ * "-prof gc" to compare the bytes allocated per operation
+ * ("gc.alloc.rate.norm") as well as the time taken.
+ *
+ * @author Jonathan Lovelace
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadOnlyBenchmark {
+	/**
+	 * How many copies records to read at once.
+	 */
+	@Param({ "1000", "10000" })
+	public int pageSize;
+
+	/**
+	 * Read the first page of copies records.
+	 *
+	 * @param library  the seeded application
+	 * @param readOnly whether to read in a read-only transaction
+	 * @return the copies records
+	 */
+	private List<BranchCopies> readPage(final LibraryState library,
+			final boolean readOnly) {
+		return library.inTransaction(readOnly,
+				() -> library.copiesDao.findPageAfter(0, 0, PageRequest.of(0, pageSize)));
+	}
+
+	/**
+	 * Read a page of copies records in a read-write transaction.
+	 *
+	 * @param library the seeded application
+	 * @return the copies records
+	 */
+	@Benchmark
+	public List<BranchCopies> readWrite(final LibraryState library) {
+		return readPage(library, false);
+	}
+
+	/**
+	 * Read a page of copies records in a read-only transaction.
+	 *
+	 * @param library the seeded application
+	 * @return the copies records
+	 */
+	@Benchmark
+	public List<BranchCopies> readOnly(final LibraryState library) {
+		return readPage(library, true);
+	}
+}
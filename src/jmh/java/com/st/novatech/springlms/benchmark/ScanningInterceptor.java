@@ -1,4 +1,4 @@
-package com.st.novatech.springlms.dao;
+package com.st.novatech.springlms.benchmark;
 
 import java.io.Serializable;
 
@@ -7,13 +7,16 @@ import org.hibernate.type.StringType;
 import org.hibernate.type.Type;
 
 /**
- * An "interceptor" to turn all null strings coming from the database into
- * non-null empty strings.
+ * The interceptor the application used before EmptyStringConverter, which
+ * scans every property of every entity loaded, saved, or flushed for null
+ * strings. Kept here only so {@link HydrationBenchmark} can measure what it
+ * cost. As the converter has already made the String properties non-null, and
+ * their types are no longer plain {@link StringType}s, this finds nothing to
+ * change, but it still visits every property of every entity.
  *
- * @author StackOverflow user Oliv https://stackoverflow.com/a/26988529
  * @author Jonathan Lovelace
  */
-public class EmptyStringInterceptor extends EmptyInterceptor {
+public class ScanningInterceptor extends EmptyInterceptor {
 	/**
 	 * Version ID for serialization.
 	 */
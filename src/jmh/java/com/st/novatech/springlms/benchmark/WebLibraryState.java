@@ -0,0 +1,130 @@
+package com.st.novatech.springlms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.st.novatech.springlms.SpringlmsApplication;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * The seeded application of {@link LibraryState}, serving HTTP on a random
+ * port, with a connection pool of the requested size, and a client to call it
+ * with. After each iteration, this logs how long requests have waited for a
+ * database connection, so a benchmark run shows where the pool saturates.
+ *
+ * @author Jonathan Lovelace
+ */
+@State(Scope.Benchmark)
+public class WebLibraryState extends LibraryState {
+	/**
+	 * Logger for the pool report. The application is run with the root logger at
+	 * WARN, so this logger's level is raised to INFO explicitly.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(WebLibraryState.class.getName());
+
+	/**
+	 * The maximum (and minimum) number of connections in the pool.
+	 */
+	@Param({ "4", "10", "32" })
+	public int poolSize;
+
+	/**
+	 * The client used to call the application. Error statuses are returned to
+	 * the caller rather than thrown.
+	 */
+	private RestTemplate client;
+	/**
+	 * The base URL of the running application.
+	 */
+	private String baseUrl;
+	/**
+	 * The registry holding the pool's metrics.
+	 */
+	private MeterRegistry registry;
+
+	/**
+	 * Start the application, with a web server on a random port.
+	 *
+	 * @return the running application
+	 */
+	@Override
+	protected ConfigurableApplicationContext start() {
+		// The JDK's HTTP client otherwise keeps only five connections alive per
+		// host, so most benchmark threads would open a new one for each request.
+		System.setProperty("http.maxConnections", "256");
+		final ConfigurableApplicationContext context = new SpringApplicationBuilder(
+				SpringlmsApplication.class).web(WebApplicationType.SERVLET).run(
+						"--logging.level.root=WARN",
+						"--logging.level." + WebLibraryState.class.getName() + "=INFO",
+						"--server.port=0",
+						"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+						"--spring.datasource.hikari.minimum-idle=" + poolSize);
+		baseUrl = "http://localhost:"
+				+ context.getEnvironment().getProperty("local.server.port");
+		registry = context.getBean(MeterRegistry.class);
+		client = new RestTemplate();
+		client.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(final ClientHttpResponse response) {
+				return false;
+			}
+		});
+		return context;
+	}
+
+	/**
+	 * Make a request to the application, discarding the response body.
+	 *
+	 * @param method    the HTTP method
+	 * @param path      the path, with {@code {placeholders}}
+	 * @param variables the values of the placeholders
+	 * @return the HTTP status code of the response
+	 */
+	public int call(final HttpMethod method, final String path,
+			final Object... variables) {
+		return client.exchange(baseUrl + path, method, null, byte[].class, variables)
+				.getStatusCodeValue();
+	}
+
+	/**
+	 * Log how many connections have been acquired from the pool so far, how
+	 * long that took, and how many attempts timed out.
+	 */
+	@TearDown(Level.Iteration)
+	public void reportPool() {
+		final Timer acquire = registry.find("hikaricp.connections.acquire").timer();
+		final Counter timeouts = registry.find("hikaricp.connections.timeout").counter();
+		if (acquire == null) {
+			return;
+		}
+		final StringBuilder report = new StringBuilder();
+		report.append(String.format("Pool of %d: %d acquired, mean %.3f ms, max %.3f ms",
+				poolSize, acquire.count(), acquire.mean(TimeUnit.MILLISECONDS),
+				acquire.max(TimeUnit.MILLISECONDS)));
+		for (final ValueAtPercentile percentile : acquire.takeSnapshot().percentileValues()) {
+			report.append(String.format(", p%.0f %.3f ms", percentile.percentile() * 100,
+					percentile.value(TimeUnit.MILLISECONDS)));
+		}
+		report.append(String.format(", %.0f timed out",
+				timeouts == null ? 0.0 : timeouts.count()));
+		LOGGER.info(report::toString);
+	}
+}
@@ -1,14 +1,29 @@
 package com.st.novatech.springlms;
 
+import java.time.Clock;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main driver class for the application for running from the command line.
+ *
+ * <p>Caching advice is applied outside the transactional advice, so that a
+ * cache hit does not start a transaction and a cache entry is only evicted once
+ * the change that made it stale has been committed.
+ *
+ * <p>Scheduling is enabled for periodic maintenance, such as reconciling the
+ * availability index with the database, and sending overdue notices.
  */
 @PropertySource("classpath:database-config.properties")
 @SpringBootApplication
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 public class SpringlmsApplication {
 
 	/**
@@ -19,4 +34,15 @@ public class SpringlmsApplication {
 		SpringApplication.run(SpringlmsApplication.class, args);
 	}
 
+	/**
+	 * The clock the services get "the current date" from. Tests may supply a
+	 * fixed clock in its place.
+	 *
+	 * @return the system clock, in the default time zone
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
+
 }
@@ -2,7 +2,9 @@ package com.st.novatech.springlms.controller;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -22,8 +25,13 @@ import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Borrower;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesView;
 import com.st.novatech.springlms.model.Loan;
+import com.st.novatech.springlms.model.LoanView;
 import com.st.novatech.springlms.service.BorrowerService;
+import com.st.novatech.springlms.service.CheckoutResult;
+import com.st.novatech.springlms.service.LoanKey;
+import com.st.novatech.springlms.service.ReturnResult;
 
 /**
  * Class to handle REST web requests accessible to borrowers.
@@ -32,6 +40,15 @@ import com.st.novatech.springlms.service.BorrowerService;
 @RestController
 public class BorrowerController {
 
+	/**
+	 * The most books that may be borrowed in a single request.
+	 */
+	private static final int MAX_BATCH = 100;
+	/**
+	 * The most books that may be returned in a single request.
+	 */
+	private static final int MAX_RETURN_BATCH = 1000;
+
 	/**
 	 * Borrower service.
 	 */
@@ -68,19 +85,18 @@ public class BorrowerController {
 			} else if (foundBranch == null) {
 				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find the requested branch");
 			} else {
-				final Loan foundLoan = borrowerService.getLoan(cardNo, branchId, bookId);
-				if (foundLoan == null) {
-					final Loan newLoan = borrowerService.borrowBook(foundBorrower,
-							foundBook, foundBranch, LocalDateTime.now(),
-							LocalDate.now().plusWeeks(1));
-					if (newLoan == null) {
+				// borrowBook() itself refuses a duplicate loan, so we only look for
+				// an existing loan to explain a refusal, not on every checkout.
+				final Loan newLoan = borrowerService.borrowBook(foundBorrower,
+						foundBook, foundBranch, LocalDateTime.now(),
+						LocalDate.now().plusWeeks(1));
+				if (newLoan != null) {
+					return new ResponseEntity<>(newLoan, HttpStatus.CREATED);
+				} else if (borrowerService.getLoan(cardNo, branchId, bookId) == null) {
 					// TODO: Make NoCopiesException get translated to CONFLICT; make it take Book and Branch params
-						throw new ResponseStatusException(HttpStatus.CONFLICT,
-								"There are no copies for " + foundBook.getTitle()
-										+ " at " + foundBranch.getName());
-					} else {
-						return new ResponseEntity<>(newLoan, HttpStatus.CREATED);
-					}
+					throw new ResponseStatusException(HttpStatus.CONFLICT,
+							"There are no copies for " + foundBook.getTitle()
+									+ " at " + foundBranch.getName());
 				} else {
 					// TODO: Make AlreadyBorrowedException get translated to CONFLICT; make it take Book and Branch params
 					throw new ResponseStatusException(HttpStatus.CONFLICT,
@@ -96,6 +112,50 @@ public class BorrowerController {
 		}
 	}
 
+	/**
+	 * Allows a borrower to borrow several books from a branch at once, as at a
+	 * self-service kiosk. The borrower and branch are looked up only once, and
+	 * the books are all checked out in a single transaction; each is checked
+	 * out if it can be, whether or not the others can.
+	 *
+	 * @param cardNo   id for borrower
+	 * @param branchId id for branch
+	 * @param bookIds  ids of the books to borrow
+	 * @return 200(OK) with the outcome for each distinct book id,
+	 *         400(BAD_REQUEST) if no ids or more than {@link #MAX_BATCH} were
+	 *         given, 404(NOT_FOUND) if the borrower or branch does not exist, or
+	 *         500(INTERNAL_SERVER_ERROR) if something goes wrong, in which case
+	 *         none of the books were borrowed
+	 */
+	@PostMapping(path = "/borrower/{cardNo}/branch/{branchId}/books")
+	public ResponseEntity<List<CheckoutResult>> borrowBooks(
+			@PathVariable("cardNo") final int cardNo,
+			@PathVariable("branchId") final int branchId,
+			@RequestBody final List<Integer> bookIds) {
+		if (bookIds.isEmpty() || bookIds.size() > MAX_BATCH) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Between 1 and " + MAX_BATCH + " book IDs must be given");
+		}
+		try {
+			final Borrower foundBorrower = borrowerService.getBorrower(cardNo);
+			final Branch foundBranch = borrowerService.getBranch(branchId);
+			if (foundBorrower == null) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find the requested borrower");
+			} else if (foundBranch == null) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find the requested branch");
+			} else {
+				return new ResponseEntity<>(borrowerService.borrowBooks(foundBorrower,
+						foundBranch, bookIds, LocalDateTime.now(),
+						LocalDate.now().plusWeeks(1)), HttpStatus.OK);
+			}
+		} catch (final TransactionException exception) {
+			LOGGER.log(Level.SEVERE, "Something has gone wrong with the server", exception);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+					"Something went wrong with our server."
+							+ " Please contact your administrator for more information.");
+		}
+	}
+
 	/**
 	 * To retrieve a list of book copies of a particular branch, the client must
 	 * supply a branch id, which the server will use to get the associated branch
@@ -104,23 +164,23 @@ public class BorrowerController {
 	 *
 	 * @param branchId used to get a list of book copies associated with the given
 	 *                 branchId (branch)
-	 * @return a list of book copies associated with the given branch Id if the
-	 *         branch associated to the branch id exists
+	 * @return flat views of the book copies associated with the given branch Id
+	 *         if the branch associated to the branch id exists
 	 * @throws TransactionException A retrieval exception will be thrown if the
 	 *                              branch associated to the branch id given does
 	 *                              not exist or if the search for the book copies
 	 *                              list failed.
 	 */
 	@GetMapping(path = "/branch/{branchId}/copies")
-	public ResponseEntity<List<BranchCopies>> getAllBranchCopies(
+	public ResponseEntity<List<CopiesView>> getAllBranchCopies(
 			@PathVariable("branchId") final int branchId) {
 		try {
 			final Branch foundBranch = borrowerService.getBranch(branchId);
 			if (foundBranch == null) {
 				throw new RetrieveException("Could not find the requested branch");
 			}
-			final List<BranchCopies> listOfAllBranchCopies = borrowerService
-					.getAllBranchCopies(foundBranch);
+			final List<CopiesView> listOfAllBranchCopies = borrowerService
+					.getBranchCopiesViews(foundBranch);
 			return new ResponseEntity<>(listOfAllBranchCopies, HttpStatus.OK);
 		} catch (final TransactionException exception) {
 			// TODO: If it's one that's translated to a HTTP status, let it through (unless there's a suppressed exception, as for rollback failing)!
@@ -130,6 +190,32 @@ public class BorrowerController {
 		}
 	}
 
+	/**
+	 * Find which branches have a book right now, for the catalog to show next to
+	 * each search result.
+	 *
+	 * @param bookId the ID of the book
+	 * @return the copies records of the branches that have any copies of the
+	 *         book, the branch with the most copies first, with a 200(OK) code,
+	 *         or 404(NOT_FOUND) if there is no such book
+	 */
+	@GetMapping(path = "/book/{bookId}/availability")
+	public ResponseEntity<List<BranchCopies>> getAvailability(
+			@PathVariable("bookId") final int bookId) {
+		try {
+			final Book book = borrowerService.getBook(bookId);
+			if (book == null) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find the requested book");
+			}
+			return new ResponseEntity<>(borrowerService.getAvailableCopies(book),
+					HttpStatus.OK);
+		} catch (final TransactionException exception) {
+			LOGGER.log(Level.SEVERE, "Error occurred while finding branches with a book", exception);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Something went wrong with our server."
+					+ " Please contact your administrator for more information.");
+		}
+	}
+
 	/**
 	 * For client who would like to return a book.
 	 *
@@ -186,6 +272,45 @@ public class BorrowerController {
 		}
 	}
 
+	/**
+	 * Return many books at once, as when a book drop is emptied. Each item of the
+	 * request body gives the "cardNo", "branchId", and "bookId" of a loan. All
+	 * the loans are looked up in one query and processed in a single
+	 * transaction; each is returned if it can be, whether or not the others can.
+	 *
+	 * @param body the loans being returned
+	 * @return 200(OK) with the outcome for each distinct loan, 400(BAD_REQUEST)
+	 *         if no loans, more than {@link #MAX_RETURN_BATCH}, or one missing an
+	 *         ID were given, or 500(INTERNAL_SERVER_ERROR) if something goes
+	 *         wrong, in which case none of the books were returned
+	 */
+	@PostMapping(path = "/loans/returned")
+	public ResponseEntity<List<ReturnResult>> returnBooks(
+			@RequestBody final List<Map<String, Integer>> body) {
+		if (body.isEmpty() || body.size() > MAX_RETURN_BATCH) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Between 1 and " + MAX_RETURN_BATCH + " loans must be given");
+		}
+		final List<LoanKey> loans = new ArrayList<>(body.size());
+		for (final Map<String, Integer> item : body) {
+			if (item.get("cardNo") == null || item.get("branchId") == null
+					|| item.get("bookId") == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+						"Each loan must have a cardNo, branchId, and bookId");
+			}
+			loans.add(new LoanKey(item.get("cardNo"), item.get("branchId"),
+					item.get("bookId")));
+		}
+		try {
+			return new ResponseEntity<>(borrowerService.returnBooks(loans), HttpStatus.OK);
+		} catch (final TransactionException exception) {
+			LOGGER.log(Level.SEVERE, "Something has gone wrong with the server", exception);
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+					"Something went wrong with our server."
+							+ " Please contact your administrator for more information.");
+		}
+	}
+
 	/**
 	 * Get all branches from which the borrower has an outstanding book loan.
 	 *
@@ -217,7 +342,8 @@ public class BorrowerController {
 	}
 
 	/**
-	 * Get all book loans the borrower has borrowed from any library branch.
+	 * Get flat views of all book loans the borrower has borrowed from any library
+	 * branch, earliest due first.
 	 *
 	 * @param cardNo id for a particular borrower
 	 * @return 200(OK) if the borrower exists in the database and if everything goes
@@ -227,15 +353,15 @@ public class BorrowerController {
 	 *                              borrower
 	 */
 	@GetMapping(path = "/borrower/{cardNo}/loans")
-	public ResponseEntity<List<Loan>> getAllBorrowedBooks(
+	public ResponseEntity<List<LoanView>> getAllBorrowedBooks(
 			@PathVariable("cardNo") final int cardNo) {
 		try {
 			final Borrower foundBorrower = borrowerService.getBorrower(cardNo);
 			if (foundBorrower == null) {
 				throw new RetrieveException("Requested borrower not found");
 			}
-			final List<Loan> listOfLoansForBorrower = borrowerService
-					.getAllBorrowedBooks(foundBorrower);
+			final List<LoanView> listOfLoansForBorrower = borrowerService
+					.getLoanViews(foundBorrower);
 			return new ResponseEntity<>(listOfLoansForBorrower, HttpStatus.OK);
 		} catch (final TransactionException exception) {
 			// TODO: If it's one that's translated to a HTTP status, let it through (unless there's a suppressed exception, as for rollback failing)!
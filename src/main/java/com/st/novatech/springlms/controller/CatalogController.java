@@ -1,9 +1,16 @@
 package com.st.novatech.springlms.controller;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,6 +21,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.st.novatech.springlms.exception.RetrieveException;
 import com.st.novatech.springlms.exception.TransactionException;
@@ -21,6 +29,11 @@ import com.st.novatech.springlms.model.Author;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Publisher;
 import com.st.novatech.springlms.service.AdministratorService;
+import com.st.novatech.springlms.service.CatalogImportService;
+import com.st.novatech.springlms.service.ImportFormat;
+import com.st.novatech.springlms.service.ImportKind;
+import com.st.novatech.springlms.service.ImportSummary;
+import com.st.novatech.springlms.service.Suggestion;
 
 /**
  * Controller for cataloging administrators.
@@ -32,20 +45,50 @@ import com.st.novatech.springlms.service.AdministratorService;
  */
 @RestController
 public final class CatalogController {
+	/**
+	 * The most books a search returns.
+	 */
+	private static final int MAX_SEARCH_RESULTS = 100;
+	/**
+	 * The most suggestions a typeahead request returns.
+	 */
+	private static final int MAX_SUGGESTIONS = 50;
 	/**
 	 * Service class used to handle requests.
 	 */
 	@Autowired
 	private AdministratorService service;
+	/**
+	 * Service class used to handle catalog imports.
+	 */
+	@Autowired
+	private CatalogImportService importService;
+	/**
+	 * The directory from which catalog files may be imported.
+	 */
+	@Value("${library.import.directory:import}")
+	private String importDirectory;
 
 	/**
-	 * Get all authors from the database. Spring turns the list into JSON (or XML?).
-	 * @return the list of all authors in the database.
+	 * Get a page of authors from the database, in order of ID. Spring turns
+	 * the list into JSON (or XML?).
+	 *
+	 * @param after only authors with a greater ID than this are returned; pass
+	 *              the last ID of the previous page to get the next page
+	 * @param page  the zero-based page number, if paging by offset instead
+	 * @param size  the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of authors, with a link to the next page if any
 	 * @throws TransactionException on internal error.
 	 */
 	@GetMapping({"/authors", "/authors/"})
-	public List<Author> getAuthors() throws TransactionException {
-		return service.getAllAuthors();
+	public ResponseEntity<List<Author>> getAuthors(
+			@RequestParam(name = "after", defaultValue = "0") final int after,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(service.getAuthorsPage(after, pageable), pageable,
+				page != null, item -> Collections.singletonMap("after", item.getId()));
 	}
 
 	/**
@@ -60,13 +103,67 @@ public final class CatalogController {
 	}
 
 	/**
-	 * Get all publishers from the database. Spring turns the list into JSON (or XML?).
-	 * @return the list of all publishers in the database
+	 * Search the catalog by title, author, and publisher. Every word of the
+	 * query must match; a word ending in {@code *} matches any word it begins.
+	 *
+	 * @param query the words to search for
+	 * @param limit the most books to return, capped at {@value #MAX_SEARCH_RESULTS}
+	 * @return the matching books, best match first
+	 * @throws TransactionException on internal error
+	 */
+	@GetMapping({"/books/search", "/books/search/"})
+	public List<Book> searchBooks(@RequestParam("q") final String query,
+			@RequestParam(name = "limit", defaultValue = "20") final int limit)
+			throws TransactionException {
+		return service.searchBooks(query,
+				Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+	}
+
+	/**
+	 * Suggest titles and author names completing what the user has typed.
+	 *
+	 * @param prefix what the user has typed
+	 * @param limit  the most suggestions to return, capped at
+	 *               {@value #MAX_SUGGESTIONS}
+	 * @return the suggestions, those shared by the most books or authors first
+	 */
+	@GetMapping({"/suggest", "/suggest/"})
+	public List<Suggestion> suggest(@RequestParam("prefix") final String prefix,
+			@RequestParam(name = "limit", defaultValue = "10") final int limit) {
+		return service.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+	}
+
+	/**
+	 * Report the size of the in-memory index behind typeahead suggestions.
+	 *
+	 * @return the number of distinct titles and author names, the number of
+	 *         trie nodes, and the estimated memory used in bytes
+	 */
+	@GetMapping({"/suggest/stats", "/suggest/stats/"})
+	public Map<String, Long> getSuggestStats() {
+		return service.getSuggestFootprint();
+	}
+
+	/**
+	 * Get a page of publishers from the database, in order of ID. Spring
+	 * turns the list into JSON (or XML?).
+	 *
+	 * @param after only publishers with a greater ID than this are returned;
+	 *              pass the last ID of the previous page to get the next page
+	 * @param page  the zero-based page number, if paging by offset instead
+	 * @param size  the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of publishers, with a link to the next page if any
 	 * @throws TransactionException on internal error
 	 */
 	@GetMapping({"/publishers","/publishers/"})
-	public List<Publisher> getPublishers() throws TransactionException {
-		return service.getAllPublishers();
+	public ResponseEntity<List<Publisher>> getPublishers(
+			@RequestParam(name = "after", defaultValue = "0") final int after,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(service.getPublishersPage(after, pageable), pageable,
+				page != null, item -> Collections.singletonMap("after", item.getId()));
 	}
 
 	/**
@@ -288,6 +385,67 @@ public final class CatalogController {
 				HttpStatus.CREATED);
 	}
 
+	/**
+	 * Create many books at once, as when loading a publisher's catalog. Each
+	 * book is treated as in {@link #createBook(Book)}, except that an author or
+	 * publisher that is not in the database is created only once for each
+	 * distinct name, and all the books are written in a few batches rather than
+	 * one at a time.
+	 *
+	 * @param body the books to create, each of which must have a title
+	 * @return the created books, in the same order, or 400, naming the first
+	 *         book without one, if any lacks a title or is null
+	 * @throws TransactionException on internal error
+	 */
+	@PostMapping({"/books/bulk", "/books/bulk/"})
+	public ResponseEntity<List<Book>> createBooks(@RequestBody final List<Book> body)
+			throws TransactionException {
+		for (int i = 0; i < body.size(); i++) {
+			if (body.get(i) == null || body.get(i).getTitle() == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+						"Book " + i + " has no title");
+			}
+		}
+		return new ResponseEntity<>(service.createBooks(body), HttpStatus.CREATED);
+	}
+
+	/**
+	 * Import a file of authors, publishers, books, or copy counts from the
+	 * import directory. If an earlier import of the same file was interrupted,
+	 * this resumes it after the last records it committed.
+	 *
+	 * @param file   the name of the file, which must be in the import directory
+	 * @param kind   what kind of records the file holds
+	 * @param format what format the file is in
+	 * @return a summary of the import, or 404 if there is no such file, or 400
+	 *         if the name is not of a file in the import directory or a line of
+	 *         the file is not a valid record, in which case the reason gives its
+	 *         line number
+	 * @throws TransactionException on internal error
+	 * @throws IOException          on error reading the file
+	 */
+	@PostMapping({"/catalog/import", "/catalog/import/"})
+	public ResponseEntity<ImportSummary> importCatalog(
+			@RequestParam("file") final String file,
+			@RequestParam("kind") final ImportKind kind,
+			@RequestParam(name = "format", defaultValue = "CSV") final ImportFormat format)
+			throws TransactionException, IOException {
+		final Path directory = Paths.get(importDirectory).toAbsolutePath().normalize();
+		final Path source = directory.resolve(file).normalize();
+		if (!directory.equals(source.getParent())) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		} else if (!Files.isRegularFile(source)) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+		try {
+			return new ResponseEntity<>(importService.importFile(source, kind, format),
+					HttpStatus.OK);
+		} catch (final IllegalArgumentException except) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, except.getMessage(),
+					except);
+		}
+	}
+
 	/**
 	 * Delete the author with the given ID.
 	 * @param authorId the ID of the author to delete.
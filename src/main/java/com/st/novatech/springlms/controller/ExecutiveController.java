@@ -1,11 +1,14 @@
 package com.st.novatech.springlms.controller;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.ResponseEntity;
@@ -18,7 +21,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.st.novatech.springlms.exception.RetrieveException;
 import com.st.novatech.springlms.exception.TransactionException;
 import com.st.novatech.springlms.model.Book;
@@ -43,6 +48,16 @@ public final class ExecutiveController {
 	 */
 	@Autowired
 	private AdministratorService service;
+	/**
+	 * Object mapper used to serialize exports.
+	 */
+	@Autowired
+	private ObjectMapper mapper;
+	/**
+	 * The clock to get "the current date" from.
+	 */
+	@Autowired
+	private Clock clock;
 	/**
 	 * Get all branches from the database. Spring turns the list into JSON (or XML?).
 	 * @return the list of all branches in the database.
@@ -54,13 +69,26 @@ public final class ExecutiveController {
 		return service.getAllBranches();
 	}
 	/**
-	 * Get all borrowers from the database. Spring turns the list into JSON (or XML?).
-	 * @return the list of all borrowers in the database
+	 * Get a page of borrowers from the database, in order of card number.
+	 * Spring turns the list into JSON (or XML?).
+	 *
+	 * @param after only borrowers with a greater card number than this are
+	 *              returned; pass the last card number of the previous page to
+	 *              get the next page
+	 * @param page  the zero-based page number, if paging by offset instead
+	 * @param size  the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of borrowers, with a link to the next page if any
 	 * @throws TransactionException on internal error
 	 */
 	@GetMapping({"/borrowers", "/borrowers/"})
-	public List<Borrower> getBorrowers() throws TransactionException {
-		return service.getAllBorrowers();
+	public ResponseEntity<List<Borrower>> getBorrowers(
+			@RequestParam(name = "after", defaultValue = "0") final int after,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(service.getBorrowersPage(after, pageable), pageable,
+				page != null, item -> Collections.singletonMap("after", item.getCardNo()));
 	}
 	/**
 	 * Get a branch by its ID number.
@@ -250,4 +278,35 @@ public final class ExecutiveController {
 			}
 		}
 	}
+	/**
+	 * Export every outstanding loan as newline-delimited JSON. Loans are written
+	 * as they are read from the database, so memory use does not grow with the
+	 * number of loans.
+	 * @return the response, whose body writes the loans
+	 */
+	@GetMapping(path = {"/loans/export", "/loans/export/"}, produces = Ndjson.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> exportLoans() {
+		return Ndjson.stream(mapper, service::exportLoans);
+	}
+
+	/**
+	 * Get a page of the loans that are overdue today, earliest due first. Spring
+	 * turns the list into JSON (or XML?).
+	 *
+	 * @param page the zero-based page number
+	 * @param size the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of overdue loans, with a link to the next page
+	 *         if any
+	 * @throws TransactionException on internal error
+	 */
+	@GetMapping({"/loans/overdue", "/loans/overdue/"})
+	public ResponseEntity<List<Loan>> getOverdueLoans(
+			@RequestParam(name = "page", defaultValue = "0") final int page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(
+				service.getOverdueLoansPage(LocalDate.now(clock), pageable), pageable,
+				true, loan -> Collections.emptyMap());
+	}
 }
@@ -1,20 +1,28 @@
 package com.st.novatech.springlms.controller;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.st.novatech.springlms.exception.RetrieveException;
 import com.st.novatech.springlms.exception.TransactionException;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesView;
 import com.st.novatech.springlms.service.LibrarianService;
 
 /**
@@ -29,25 +37,52 @@ public final class LibrarianController {
 	 */
 	@Autowired
 	private LibrarianService service;
+	/**
+	 * Object mapper used to serialize exports.
+	 */
+	@Autowired
+	private ObjectMapper mapper;
 
 	/**
-	 * Get all library branches.
-	 * @return the list of all library branches
+	 * Get a page of library branches, in order of ID.
+	 *
+	 * @param after only branches with a greater ID than this are returned; pass
+	 *              the last ID of the previous page to get the next page
+	 * @param page  the zero-based page number, if paging by offset instead
+	 * @param size  the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of branches, with a link to the next page if any
 	 * @throws TransactionException on error caught by the service layer.
 	 */
 	@GetMapping({ "/branches", "/branches/" })
-	public List<Branch> getBranches() throws TransactionException {
-		return service.getAllBranches();
+	public ResponseEntity<List<Branch>> getBranches(
+			@RequestParam(name = "after", defaultValue = "0") final int after,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(service.getBranchesPage(after, pageable), pageable,
+				page != null, item -> Collections.singletonMap("after", item.getId()));
 	}
 
 	/**
-	 * Get all books in the database.
-	 * @return the list of all books
+	 * Get a page of the books in the database, in order of ID.
+	 *
+	 * @param after only books with a greater ID than this are returned; pass
+	 *              the last ID of the previous page to get the next page
+	 * @param page  the zero-based page number, if paging by offset instead
+	 * @param size  the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return the requested page of books, with a link to the next page if any
 	 * @throws TransactionException on error caught by the service layer
 	 */
 	@GetMapping({ "/books", "/books/" })
-	public List<Book> getBooks() throws TransactionException {
-		return service.getAllBooks();
+	public ResponseEntity<List<Book>> getBooks(
+			@RequestParam(name = "after", defaultValue = "0") final int after,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
+			throws TransactionException {
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(service.getBooksPage(after, pageable), pageable,
+				page != null, item -> Collections.singletonMap("after", item.getId()));
 	}
 
 	/**
@@ -127,12 +162,10 @@ public final class LibrarianController {
 			@PathVariable("bookId") final int bookId,
 			@RequestParam("noOfCopies") final int copies)
 			throws TransactionException {
-		service.setBranchCopies(service.getbranch(branchId), service.getBook(bookId),
-				copies);
-		final int foundNumberOfCopies = service.getCopies(service.getBook(bookId),
-				service.getbranch(branchId));
-		return new BranchCopies(service.getBook(bookId), service.getbranch(branchId),
-				foundNumberOfCopies);
+		final Branch branch = findBranch(branchId);
+		final Book book = findBook(bookId);
+		service.setBranchCopies(branch, book, copies);
+		return new BranchCopies(book, branch, service.getCopies(book, branch));
 	}
 
 	/**
@@ -148,19 +181,87 @@ public final class LibrarianController {
 			"/branch/{branchId}/book/{bookId}" })
 	public BranchCopies getBranchCopies(@PathVariable("branchId") final int branchId,
 			@PathVariable("bookId") final int bookId) throws TransactionException {
-		return new BranchCopies(service.getBook(bookId),
-				service.getbranch(branchId), service.getCopies(
-						service.getBook(bookId), service.getbranch(branchId)));
+		final Branch branch = findBranch(branchId);
+		final Book book = findBook(bookId);
+		return new BranchCopies(book, branch, service.getCopies(book, branch));
+	}
+
+	/**
+	 * Get a branch by its ID number, for an endpoint that requires it to exist.
+	 *
+	 * @param branchId the ID number of the branch
+	 * @return the branch
+	 * @throws TransactionException on error caught by the service layer, or if
+	 *                              there is no such branch
+	 */
+	private Branch findBranch(final int branchId) throws TransactionException {
+		final Branch branch = service.getbranch(branchId);
+		if (branch == null) {
+			throw new RetrieveException("Branch not found");
+		} else {
+			return branch;
+		}
 	}
 
 	/**
-	 * Get the list of copies records for all books at all branches.
-	 * @return the list of all copies records
+	 * Get a book by its ID number, for an endpoint that requires it to exist.
+	 *
+	 * @param bookId the ID number of the book
+	 * @return the book
+	 * @throws TransactionException on error caught by the service layer, or if
+	 *                              there is no such book
+	 */
+	private Book findBook(final int bookId) throws TransactionException {
+		final Book book = service.getBook(bookId);
+		if (book == null) {
+			throw new RetrieveException("Book not found");
+		} else {
+			return book;
+		}
+	}
+
+	/**
+	 * Get a page of the copies records for all books at all branches, in order of
+	 * branch ID and then book ID.
+	 *
+	 * @param afterBranch with afterBook, the IDs of the last record of the
+	 *                    previous page, to get the next page
+	 * @param afterBook   with afterBranch, the IDs of the last record of the
+	 *                    previous page, to get the next page
+	 * @param page        the zero-based page number, if paging by offset instead
+	 * @param size        the page size, capped at {@value Paging#MAX_SIZE}
+	 * @return flat views of the requested page of copies records, with a link to
+	 *         the next page if any
 	 * @throws TransactionException on error caught by the service layer
 	 */
 	@GetMapping({ "/branches/books/copies", "/branches/books/copies/" })
-	public List<BranchCopies> getAllCopies()
+	public ResponseEntity<List<CopiesView>> getAllCopies(
+			@RequestParam(name = "afterBranch", defaultValue = "0") final int afterBranch,
+			@RequestParam(name = "afterBook", defaultValue = "0") final int afterBook,
+			@RequestParam(name = "page", required = false) final Integer page,
+			@RequestParam(name = "size", defaultValue = Paging.DEFAULT_SIZE) final int size)
 			throws TransactionException {
-		return service.getAllCopies();
+		final Pageable pageable = Paging.request(page, size);
+		return Paging.respond(
+				service.getCopiesViewPage(afterBranch, afterBook, pageable), pageable,
+				page != null, item -> {
+					final Map<String, Integer> next = new LinkedHashMap<>();
+					next.put("afterBranch", item.getBranchId());
+					next.put("afterBook", item.getBookId());
+					return next;
+				});
+	}
+
+	/**
+	 * Export every copies record, in order of branch ID and then book ID, as
+	 * newline-delimited JSON. Records are written as they are read from the
+	 * database, so memory use does not grow with the size of the table.
+	 *
+	 * @return the response, whose body writes the records
+	 */
+	@GetMapping(path = { "/branches/books/copies/export",
+			"/branches/books/copies/export/" }, produces = Ndjson.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> exportCopies() {
+		return Ndjson.stream(mapper, service::exportCopies);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.st.novatech.springlms.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.st.novatech.springlms.exception.TransactionException;
+
+/**
+ * Helper for the export endpoints, which write a whole table as
+ * newline-delimited JSON (one object per line) as it is read from the
+ * database, rather than building a list of every row and then serializing it.
+ *
+ * @author Jonathan Lovelace
+ */
+final class Ndjson {
+	/**
+	 * The media type of newline-delimited JSON.
+	 */
+	static final String MEDIA_TYPE = "application/x-ndjson";
+
+	/**
+	 * A source of the items to export, such as a service export method.
+	 *
+	 * @param <T> the type of item
+	 */
+	@FunctionalInterface
+	interface Source<T> {
+		/**
+		 * Pass each item to the given action, one at a time.
+		 *
+		 * @param action what to do with each item
+		 * @throws TransactionException on error caught by the service layer
+		 */
+		void forEach(Consumer<T> action) throws TransactionException;
+	}
+
+	/**
+	 * Do not instantiate.
+	 */
+	private Ndjson() {
+	}
+
+	/**
+	 * Build a response body that writes each item from the given source as a
+	 * line of JSON.
+	 *
+	 * @param <T>    the type of item
+	 * @param mapper the object mapper to serialize items with, so they match the
+	 *               other endpoints
+	 * @param source where the items come from
+	 * @return the response, whose body writes the items
+	 */
+	static <T> ResponseEntity<StreamingResponseBody> stream(final ObjectMapper mapper,
+			final Source<T> source) {
+		// Flushing after each item would send each line in its own chunk; leave it
+		// to the generator's and the container's buffers.
+		final ObjectWriter writer = mapper.writer()
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		final StreamingResponseBody body = out -> {
+			try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+				generator.setRootValueSeparator(null);
+				source.forEach(item -> {
+					try {
+						writer.writeValue(generator, item);
+						generator.writeRaw('\n');
+					} catch (final IOException except) {
+						throw new UncheckedIOException(except);
+					}
+				});
+			} catch (final UncheckedIOException except) {
+				throw except.getCause();
+			} catch (final TransactionException except) {
+				// By now the response has been committed, so all we can do is cut it
+				// short.
+				throw new IOException("Export failed", except);
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE))
+				.body(body);
+	}
+}
@@ -0,0 +1,85 @@
+package com.st.novatech.springlms.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Helpers for the collection endpoints, which return results a page at a time
+ * rather than the whole table.
+ *
+ * <p>Clients page either by cursor ("after"), passing the ID of the last item
+ * they have seen, or by offset ("page"). Either way, each full page carries a
+ * {@code Link} header with {@code rel="next"} pointing to the following page.
+ *
+ * @author Jonathan Lovelace
+ */
+final class Paging {
+	/**
+	 * The page size used when the client does not specify one.
+	 */
+	static final String DEFAULT_SIZE = "100";
+	/**
+	 * The largest page size a client may request; larger requests are capped.
+	 */
+	static final int MAX_SIZE = 1000;
+
+	/**
+	 * Do not instantiate.
+	 */
+	private Paging() {
+	}
+
+	/**
+	 * Turn the client's paging parameters into a page request, capping the page
+	 * size.
+	 *
+	 * @param page the zero-based page number, or null if paging by cursor
+	 * @param size the requested page size
+	 * @return the page request to pass to the service layer
+	 */
+	static Pageable request(final Integer page, final int size) {
+		return PageRequest.of(page == null ? 0 : Math.max(page, 0),
+				Math.max(1, Math.min(size, MAX_SIZE)));
+	}
+
+	/**
+	 * Wrap a page of results in a response, adding a link to the next page if
+	 * this one was full.
+	 *
+	 * @param <T>      the type of item in the page
+	 * @param items    the page of results
+	 * @param pageable the page request that produced them
+	 * @param byOffset whether the client is paging by offset rather than cursor
+	 * @param cursor   how to get the cursor query parameters that follow a given
+	 *                 item
+	 * @return the response to send to the client
+	 */
+	static <T> ResponseEntity<List<T>> respond(final List<T> items,
+			final Pageable pageable, final boolean byOffset,
+			final Function<T, Map<String, Integer>> cursor) {
+		final HttpHeaders headers = new HttpHeaders();
+		if (items.size() >= pageable.getPageSize()) {
+			final UriComponentsBuilder next = ServletUriComponentsBuilder
+					.fromCurrentRequest()
+					.replaceQueryParam("size", pageable.getPageSize());
+			if (byOffset) {
+				next.replaceQueryParam("page", pageable.getPageNumber() + 1);
+			} else {
+				cursor.apply(items.get(items.size() - 1))
+						.forEach(next::replaceQueryParam);
+			}
+			headers.add(HttpHeaders.LINK,
+					"<" + next.build().toUriString() + ">; rel=\"next\"");
+		}
+		return new ResponseEntity<>(items, headers, HttpStatus.OK);
+	}
+}
@@ -0,0 +1,108 @@
+package com.st.novatech.springlms.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.st.novatech.springlms.dao.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * An actuator endpoint ({@code /actuator/pool}) summarizing the state of each
+ * database connection pool: how many connections are in use, idle, and waited
+ * for, and how long callers have waited to get one. The same figures are
+ * available, one metric at a time, under {@code /actuator/metrics}.
+ *
+ * @author Jonathan Lovelace
+ */
+@Component
+@Endpoint(id = "pool")
+public class PoolEndpoint {
+	/**
+	 * The data sources; those that are Hikari pools are reported, as are the
+	 * replicas behind a routing data source.
+	 */
+	@Autowired
+	private List<DataSource> dataSources;
+	/**
+	 * The registry holding the pools' metrics.
+	 */
+	@Autowired
+	private MeterRegistry registry;
+
+	/**
+	 * Report on each connection pool.
+	 *
+	 * @return for each pool, by name, its maximum size; the number of connections
+	 *         active, idle, and in total, and of threads waiting for one; and
+	 *         how many connections have been acquired, the mean and longest time
+	 *         taken to acquire one, in milliseconds, and how many attempts timed
+	 *         out; and, for a read replica, how far behind the primary it was at
+	 *         last check, in milliseconds (-1 if not known)
+	 */
+	@ReadOperation
+	public Map<String, Map<String, Number>> pools() {
+		final Map<String, Map<String, Number>> retval = new LinkedHashMap<>();
+		for (final DataSource dataSource : dataSources) {
+			if (dataSource instanceof HikariDataSource) {
+				final HikariDataSource hikari = (HikariDataSource) dataSource;
+				retval.put(hikari.getPoolName(), report(hikari));
+			} else if (dataSource instanceof ReplicaRoutingDataSource) {
+				final ReplicaRoutingDataSource routing =
+						(ReplicaRoutingDataSource) dataSource;
+				final List<HikariDataSource> replicas = routing.getReplicas();
+				for (int i = 0; i < replicas.size(); i++) {
+					final Map<String, Number> report = report(replicas.get(i));
+					report.put("lagMillis", routing.getLag(i));
+					retval.put(replicas.get(i).getPoolName(), report);
+				}
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * Report on one connection pool.
+	 *
+	 * @param hikari the pool
+	 * @return its statistics, by name
+	 */
+	private Map<String, Number> report(final HikariDataSource hikari) {
+		final Map<String, Number> retval = new LinkedHashMap<>();
+		retval.put("maximumPoolSize", hikari.getMaximumPoolSize());
+		// Null until the pool has handed out its first connection.
+		final HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+		if (pool != null) {
+			retval.put("active", pool.getActiveConnections());
+			retval.put("idle", pool.getIdleConnections());
+			retval.put("total", pool.getTotalConnections());
+			retval.put("pending", pool.getThreadsAwaitingConnection());
+		}
+		final Timer acquire = registry.find("hikaricp.connections.acquire")
+				.tag("pool", hikari.getPoolName()).timer();
+		if (acquire != null) {
+			retval.put("acquired", acquire.count());
+			retval.put("acquireMeanMillis", acquire.mean(TimeUnit.MILLISECONDS));
+			retval.put("acquireMaxMillis", acquire.max(TimeUnit.MILLISECONDS));
+		}
+		final Counter timeouts = registry.find("hikaricp.connections.timeout")
+				.tag("pool", hikari.getPoolName()).counter();
+		if (timeouts != null) {
+			retval.put("timeouts", timeouts.count());
+		}
+		return retval;
+	}
+}
@@ -1,7 +1,10 @@
 package com.st.novatech.springlms.dao;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,7 +17,7 @@ import com.st.novatech.springlms.model.Author;
  * @author Jonathan Lovelace
  */
 @Repository
-public interface AuthorDao extends JpaRepository<Author, Integer> {
+public interface AuthorDao extends JpaRepository<Author, Integer>, AuthorDaoCustom {
 	/**
 	 * Create an author object and add it to the database.
 	 *
@@ -25,4 +28,23 @@ public interface AuthorDao extends JpaRepository<Author, Integer> {
 	default Author create(final String authorName) {
 		return save(new Author(0, authorName));
 	}
+
+	/**
+	 * Get a page of authors whose ID is greater than the given value, in order of
+	 * ID. Passing the last ID of one page as {@code after} gives the next page
+	 * without the database having to skip over the earlier rows.
+	 *
+	 * @param after    only authors with a greater ID than this are returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of authors
+	 */
+	List<Author> findByIdGreaterThanOrderByIdAsc(int after, Pageable pageable);
+
+	/**
+	 * Get the authors with any of the given names, in a single query.
+	 *
+	 * @param names the names in question; must not be empty
+	 * @return the authors with those names
+	 */
+	List<Author> findByNameIn(Collection<String> names);
 }
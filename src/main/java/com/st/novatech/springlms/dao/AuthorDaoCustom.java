@@ -0,0 +1,23 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import com.st.novatech.springlms.model.Author;
+
+/**
+ * Operations on the authors table that Spring Data cannot derive from an
+ * annotation, implemented by hand in {@link AuthorDaoCustomImpl} and mixed into
+ * {@link AuthorDao}.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface AuthorDaoCustom {
+	/**
+	 * Add many authors to the database at once, using JDBC batches.
+	 *
+	 * @param names the names of the authors to add
+	 * @return the added authors, with the IDs the database gave them, in the same
+	 *         order
+	 */
+	List<Author> insertAll(List<String> names);
+}
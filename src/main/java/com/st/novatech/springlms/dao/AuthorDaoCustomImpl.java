@@ -0,0 +1,28 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.st.novatech.springlms.model.Author;
+
+/**
+ * Hand-written implementation of {@link AuthorDaoCustom}.
+ *
+ * @author Jonathan Lovelace
+ */
+public class AuthorDaoCustomImpl implements AuthorDaoCustom {
+	/**
+	 * The entity manager used to run the queries.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Author> insertAll(final List<String> names) {
+		return JdbcBatch.insertAll(entityManager,
+				"INSERT INTO tbl_author (authorName) VALUES (?)", names,
+				(statement, name) -> statement.setString(1, name), Author::new);
+	}
+}
@@ -1,8 +1,12 @@
 package com.st.novatech.springlms.dao;
 
 import java.sql.SQLException;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.st.novatech.springlms.model.Author;
@@ -16,7 +20,7 @@ import com.st.novatech.springlms.model.Publisher;
  * @author Jonathan Lovelace
  */
 @Repository
-public interface BookDao extends JpaRepository<Book, Integer> {
+public interface BookDao extends JpaRepository<Book, Integer>, BookDaoCustom {
 	/**
 	 * Create a book and add it to the database.
 	 *
@@ -28,4 +32,31 @@ public interface BookDao extends JpaRepository<Book, Integer> {
 	default Book create(final String title, final Author author, final Publisher publisher) {
 		return save(new Book(0, title, author, publisher));
 	}
+
+	/**
+	 * Get a page of books whose ID is greater than the given value, in order of
+	 * ID. Passing the last ID of one page as {@code after} gives the next page
+	 * without the database having to skip over the earlier rows.
+	 *
+	 * The books' authors and publishers are fetched in the same query.
+	 *
+	 * @param after    only books with a greater ID than this are returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of books
+	 */
+	@Query("SELECT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE b.id > :after ORDER BY b.id")
+	List<Book> findByIdGreaterThanOrderByIdAsc(@Param("after") int after,
+			Pageable pageable);
+
+	/**
+	 * Get every book, along with its author and publisher, in a single query. The
+	 * inherited method would load each book's author and publisher with a query
+	 * of its own.
+	 *
+	 * @return all books
+	 */
+	@Override
+	@Query("SELECT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher")
+	List<Book> findAll();
 }
@@ -0,0 +1,25 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import com.st.novatech.springlms.model.Book;
+
+/**
+ * Operations on the books table that Spring Data cannot derive from an
+ * annotation, implemented by hand in {@link BookDaoCustomImpl} and mixed into
+ * {@link BookDao}.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface BookDaoCustom {
+	/**
+	 * Add many books to the database at once, using JDBC batches. Their IDs are
+	 * ignored; their authors and publishers, if any, must already be in the
+	 * database.
+	 *
+	 * @param books the books to add
+	 * @return the added books, with the IDs the database gave them, in the same
+	 *         order
+	 */
+	List<Book> insertAll(List<Book> books);
+}
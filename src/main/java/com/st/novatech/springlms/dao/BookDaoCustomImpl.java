@@ -0,0 +1,42 @@
+package com.st.novatech.springlms.dao;
+
+import java.sql.Types;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.st.novatech.springlms.model.Book;
+
+/**
+ * Hand-written implementation of {@link BookDaoCustom}.
+ *
+ * @author Jonathan Lovelace
+ */
+public class BookDaoCustomImpl implements BookDaoCustom {
+	/**
+	 * The entity manager used to run the queries.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Book> insertAll(final List<Book> books) {
+		return JdbcBatch.insertAll(entityManager,
+				"INSERT INTO tbl_book (title, authId, pubId) VALUES (?, ?, ?)", books,
+				(statement, book) -> {
+					statement.setString(1, book.getTitle());
+					if (book.getAuthor() == null) {
+						statement.setNull(2, Types.INTEGER);
+					} else {
+						statement.setInt(2, book.getAuthor().getId());
+					}
+					if (book.getPublisher() == null) {
+						statement.setNull(3, Types.INTEGER);
+					} else {
+						statement.setInt(3, book.getPublisher().getId());
+					}
+				}, (id, book) -> new Book(id, book.getTitle(), book.getAuthor(),
+						book.getPublisher()));
+	}
+}
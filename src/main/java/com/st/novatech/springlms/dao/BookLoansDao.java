@@ -1,9 +1,20 @@
 package com.st.novatech.springlms.dao;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.st.novatech.springlms.model.Book;
@@ -11,6 +22,7 @@ import com.st.novatech.springlms.model.Borrower;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.Loan;
 import com.st.novatech.springlms.model.LoanIdentity;
+import com.st.novatech.springlms.model.LoanView;
 
 /**
  * A Data Access Object interface to access the table of outstanding loans.
@@ -19,7 +31,8 @@ import com.st.novatech.springlms.model.LoanIdentity;
  * @author Jonathan Lovelace
  */
 @Repository
-public interface BookLoansDao extends JpaRepository<Loan, LoanIdentity> {
+public interface BookLoansDao
+		extends JpaRepository<Loan, LoanIdentity>, BookLoansDaoCustom {
 	/**
 	 * Check out a book from a particular branch for a particular borrower, with the
 	 * given date out and due date.
@@ -46,4 +59,161 @@ public interface BookLoansDao extends JpaRepository<Loan, LoanIdentity> {
 	default Loan get(final Book book, final Borrower borrower, final Branch branch) {
 		return findById(new LoanIdentity(book, borrower, branch)).orElse(null);
 	}
+
+	/**
+	 * Get the loan in which the borrower with the given card number checked out
+	 * the book with the given ID from the branch with the given ID. Unlike
+	 * {@link #get(Book, Borrower, Branch)}, this does not require the caller to
+	 * have loaded the book, borrower, and branch first; the loan and everything it
+	 * refers to are fetched in a single query.
+	 *
+	 * @param cardNo   the card number of the borrower in question
+	 * @param branchId the ID of the branch in question
+	 * @param bookId   the ID of the book in question
+	 * @return the loan, or null if there is no such loan
+	 */
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower JOIN FETCH l.id.branch "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE l.id.borrower.cardNo = :cardNo AND l.id.branch.id = :branchId "
+			+ "AND l.id.book.id = :bookId")
+	Loan get(@Param("cardNo") int cardNo, @Param("branchId") int branchId,
+			@Param("bookId") int bookId);
+
+	/**
+	 * Get all loans the given borrower currently has out, from any branch, along
+	 * with the borrower, branch, book, and the book's author and publisher, in a
+	 * single query. This uses the index on the borrower column, so its cost grows
+	 * with the number of that borrower's loans rather than with the size of the
+	 * table.
+	 *
+	 * @param borrower the borrower in question; must not be null
+	 * @return all outstanding loans to that borrower
+	 */
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower JOIN FETCH l.id.branch "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE l.id.borrower = :borrower")
+	List<Loan> findByIdBorrower(@Param("borrower") Borrower borrower);
+
+	/**
+	 * Get flat, read-only views of the loans the borrower with the given card
+	 * number currently has out, earliest due first. Unlike
+	 * {@link #findByIdBorrower(Borrower)}, this builds the views straight from
+	 * the result set, without loading any entities.
+	 *
+	 * @param cardNo the card number of the borrower in question
+	 * @return views of that borrower's outstanding loans
+	 */
+	@Query("SELECT new com.st.novatech.springlms.model.LoanView(bo.cardNo, br.id, "
+			+ "br.name, b.id, b.title, l.dateOut, l.dueDate) FROM Loan l "
+			+ "JOIN l.id.borrower bo JOIN l.id.branch br JOIN l.id.book b "
+			+ "WHERE bo.cardNo = :cardNo ORDER BY l.dueDate, br.id, b.id")
+	List<LoanView> findViewsByBorrower(@Param("cardNo") int cardNo);
+
+	/**
+	 * Get every outstanding loan, along with the borrower, branch, book, and the
+	 * book's author and publisher, in a single query. The inherited method would
+	 * load each distinct borrower, branch, and book (and the book's author and
+	 * publisher) with a query of its own.
+	 *
+	 * @return all outstanding loans
+	 */
+	@Override
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower JOIN FETCH l.id.branch "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher")
+	List<Loan> findAll();
+
+	/**
+	 * Get each branch from which the given borrower currently has at least one
+	 * book checked out. Each branch is included only once, no matter how many
+	 * loans the borrower has from it.
+	 *
+	 * @param borrower the borrower in question; must not be null
+	 * @return the distinct branches with an outstanding loan to that borrower
+	 */
+	@Query("SELECT DISTINCT l.id.branch FROM Loan l WHERE l.id.borrower = :borrower")
+	List<Branch> findBranchesByBorrower(@Param("borrower") Borrower borrower);
+
+	/**
+	 * Of the given books, get the IDs of those the given borrower currently has
+	 * checked out from the given branch.
+	 *
+	 * @param borrower the borrower in question; must not be null
+	 * @param branch   the branch in question; must not be null
+	 * @param bookIds  the IDs of the books in question; must not be empty
+	 * @return the IDs of those books the borrower has out from that branch
+	 */
+	@Query("SELECT l.id.book.id FROM Loan l WHERE l.id.borrower = :borrower "
+			+ "AND l.id.branch = :branch AND l.id.book.id IN :bookIds")
+	List<Integer> findBookIdsOnLoan(@Param("borrower") Borrower borrower,
+			@Param("branch") Branch branch,
+			@Param("bookIds") Collection<Integer> bookIds);
+
+	/**
+	 * Get, in a single query, every loan to any of the given borrowers from any of
+	 * the given branches of any of the given books, along with the borrower,
+	 * branch, book, and the book's author and publisher. This may include loans
+	 * with combinations of IDs the caller did not ask for, which it should
+	 * ignore; but it is one indexed query, however many loans are wanted.
+	 *
+	 * @param cardNos   the card numbers of the borrowers; must not be empty
+	 * @param branchIds the IDs of the branches; must not be empty
+	 * @param bookIds   the IDs of the books; must not be empty
+	 * @return the matching loans
+	 */
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower bo JOIN FETCH l.id.branch br "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE bo.cardNo IN :cardNos AND br.id IN :branchIds AND b.id IN :bookIds")
+	List<Loan> findAllByIds(@Param("cardNos") Collection<Integer> cardNos,
+			@Param("branchIds") Collection<Integer> branchIds,
+			@Param("bookIds") Collection<Integer> bookIds);
+
+	/**
+	 * Stream every outstanding loan, along with the borrower, branch, book, and
+	 * the book's author and publisher, without loading them all into memory at
+	 * once. The rows are fetched from the database in batches, so the caller must
+	 * hold a transaction open, and close the stream, until it is done; it should
+	 * also clear the persistence context now and then, as otherwise every entity
+	 * read stays in it until the transaction ends.
+	 *
+	 * @return a stream of all outstanding loans
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower JOIN FETCH l.id.branch "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher")
+	Stream<Loan> streamAll();
+
+	/**
+	 * Get a page of the loans due before the given date, along with the
+	 * borrower, branch, book, and the book's author and publisher, earliest due
+	 * first. This uses the index on the due date and the loan's key, which is in
+	 * the same order as the results, so its cost grows with the size of the page
+	 * rather than of the table. (The ties are broken by the loans table's own
+	 * key columns, not the joined tables', so the database can use the index.)
+	 *
+	 * @param date     loans due before this date are returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of overdue loans
+	 */
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower bo JOIN FETCH l.id.branch br "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE l.dueDate < :date ORDER BY l.dueDate, l.id.borrower.cardNo, "
+			+ "l.id.branch.id, l.id.book.id")
+	List<Loan> findByDueDateBefore(@Param("date") LocalDate date, Pageable pageable);
+
+	/**
+	 * Stream the loans due before the given date, along with the borrower,
+	 * branch, book, and the book's author and publisher, earliest due first,
+	 * without loading them all into memory at once. As with {@link #streamAll()},
+	 * the caller must hold a transaction open, and close the stream, until it is
+	 * done, and should clear the persistence context now and then.
+	 *
+	 * @param date loans due before this date are returned
+	 * @return a stream of the overdue loans
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT l FROM Loan l JOIN FETCH l.id.borrower bo JOIN FETCH l.id.branch br "
+			+ "JOIN FETCH l.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE l.dueDate < :date ORDER BY l.dueDate, l.id.borrower.cardNo, "
+			+ "l.id.branch.id, l.id.book.id")
+	Stream<Loan> streamByDueDateBefore(@Param("date") LocalDate date);
 }
@@ -0,0 +1,35 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * Operations on the loans table that Spring Data cannot derive from an
+ * annotation, implemented by hand in {@link BookLoansDaoCustomImpl} and mixed
+ * into {@link BookLoansDao}.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface BookLoansDaoCustom {
+	/**
+	 * Insert the given loans, none of which may already exist, as a single JDBC
+	 * batch. Unlike saving each one, this does not first look each up to see
+	 * whether it is new. The loans are not added to the persistence context.
+	 *
+	 * @param loans the loans to insert
+	 */
+	void insertAll(List<Loan> loans);
+
+	/**
+	 * Delete the given loans as a single JDBC batch. Afterwards, the persistence
+	 * context is cleared, so any entities the caller loaded are detached.
+	 *
+	 * @param loans the loans to delete
+	 * @return for each loan, in the same order, the number of rows deleted: 1 if
+	 *         this removed it, 0 if it was already gone (another transaction
+	 *         returned it first), or {@link java.sql.Statement#SUCCESS_NO_INFO}
+	 *         if the driver does not report counts for batched statements
+	 */
+	int[] deleteBatch(List<Loan> loans);
+}
@@ -0,0 +1,80 @@
+package com.st.novatech.springlms.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * Hand-written implementation of {@link BookLoansDaoCustom}.
+ *
+ * @author Jonathan Lovelace
+ */
+public class BookLoansDaoCustomImpl implements BookLoansDaoCustom {
+	/**
+	 * The entity manager used to run the queries.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>A loan's ID is assigned rather than generated, so saving one makes
+	 * Hibernate select it first to decide between INSERT and UPDATE. Here we
+	 * know they are all new, so we go straight to JDBC.
+	 */
+	@Override
+	public void insertAll(final List<Loan> loans) {
+		if (loans.isEmpty()) {
+			return;
+		}
+		entityManager.flush();
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO tbl_book_loans (bookId, branchId, cardNo, dateOut, dueDate) "
+							+ "VALUES (?, ?, ?, ?, ?)")) {
+				for (final Loan loan : loans) {
+					statement.setInt(1, loan.getBook().getId());
+					statement.setInt(2, loan.getBranch().getId());
+					statement.setInt(3, loan.getBorrower().getCardNo());
+					statement.setTimestamp(4, loan.getDateOut() == null ? null
+							: Timestamp.valueOf(loan.getDateOut()));
+					statement.setTimestamp(5, loan.getDueDate() == null ? null
+							: Timestamp.valueOf(loan.getDueDate().atStartOfDay()));
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		});
+	}
+
+	@Override
+	public int[] deleteBatch(final List<Loan> loans) {
+		if (loans.isEmpty()) {
+			return new int[0];
+		}
+		entityManager.flush();
+		final int[] deleted = entityManager.unwrap(Session.class)
+				.doReturningWork(connection -> {
+					try (PreparedStatement statement = connection.prepareStatement(
+							"DELETE FROM tbl_book_loans WHERE bookId = ? AND branchId = ? AND cardNo = ?")) {
+						for (final Loan loan : loans) {
+							statement.setInt(1, loan.getBook().getId());
+							statement.setInt(2, loan.getBranch().getId());
+							statement.setInt(3, loan.getBorrower().getCardNo());
+							statement.addBatch();
+						}
+						return statement.executeBatch();
+					}
+				});
+		entityManager.clear();
+		return deleted;
+	}
+}
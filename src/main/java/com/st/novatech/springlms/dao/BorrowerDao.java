@@ -1,7 +1,9 @@
 package com.st.novatech.springlms.dao;
 
 import java.sql.SQLException;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -27,4 +29,17 @@ public interface BorrowerDao extends JpaRepository<Borrower, Integer> {
 	default Borrower create(final String borrowerName, final String borrowerAddress, final String borrowerPhone) {
 		return save(new Borrower(0, borrowerName, borrowerAddress, borrowerPhone));
 	}
+
+	/**
+	 * Get a page of borrowers whose card number is greater than the given value,
+	 * in order of card number. Passing the last card number of one page as
+	 * {@code after} gives the next page without the database having to skip over
+	 * the earlier rows.
+	 *
+	 * @param after    only borrowers with a greater card number than this are
+	 *                 returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of borrowers
+	 */
+	List<Borrower> findByCardNoGreaterThanOrderByCardNoAsc(int after, Pageable pageable);
 }
@@ -1,18 +1,29 @@
 package com.st.novatech.springlms.dao;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
 import com.st.novatech.springlms.model.CopiesIdentity;
+import com.st.novatech.springlms.model.CopiesView;
 
 /**
  * A Data Access Object interface to access the number of copies of books in
@@ -22,7 +33,8 @@ import com.st.novatech.springlms.model.CopiesIdentity;
  * @author Jonathan Lovelace
  */
 @Repository
-public interface CopiesDao extends JpaRepository<BranchCopies, CopiesIdentity> {
+public interface CopiesDao
+		extends JpaRepository<BranchCopies, CopiesIdentity>, CopiesDaoCustom {
 	/**
 	 * Get the number of copies of a book held by a particular branch.
 	 *
@@ -70,6 +82,63 @@ public interface CopiesDao extends JpaRepository<BranchCopies, CopiesIdentity> {
 		}
 	}
 
+	/**
+	 * Atomically take one copy of a book out of a branch's stock, if the branch
+	 * has any. This is a single conditional UPDATE, so concurrent checkouts of the
+	 * same title can neither lose an update nor drive the count negative. As with
+	 * {@link #setCopies(Branch, Book, int)}, a row left with no copies is removed.
+	 *
+	 * @param branch the branch in question
+	 * @param book   the book in question
+	 * @return the number of rows updated: 1 if a copy was taken, 0 if the branch
+	 *         had no copies of that book
+	 */
+	default int checkOutCopy(final Branch branch, final Book book) {
+		final int updated = decrementCopies(branch, book);
+		if (updated > 0) {
+			deleteIfEmpty(branch, book);
+		}
+		return updated;
+	}
+
+	/**
+	 * Atomically put one copy of a book back into a branch's stock, creating the
+	 * row if the branch held no copies of it.
+	 *
+	 * @param branch the branch in question
+	 * @param book   the book in question
+	 * @return the number of rows inserted or updated
+	 */
+	default int returnCopy(final Branch branch, final Book book) {
+		return incrementCopies(branch.getId(), book.getId());
+	}
+
+	/**
+	 * Decrement the number of copies of a book held by a branch, unless it is
+	 * already zero. Callers should generally use
+	 * {@link #checkOutCopy(Branch, Book)} instead.
+	 *
+	 * @param branch the branch in question
+	 * @param book   the book in question
+	 * @return the number of rows updated
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE BranchCopies c SET c.copies = c.copies - 1 "
+			+ "WHERE c.id.branch = :branch AND c.id.book = :book AND c.copies > 0")
+	int decrementCopies(@Param("branch") Branch branch, @Param("book") Book book);
+
+	/**
+	 * Remove the copies row for a book at a branch if it records no copies.
+	 *
+	 * @param branch the branch in question
+	 * @param book   the book in question
+	 * @return the number of rows removed
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("DELETE FROM BranchCopies c "
+			+ "WHERE c.id.branch = :branch AND c.id.book = :book AND c.copies <= 0")
+	int deleteIfEmpty(@Param("branch") Branch branch, @Param("book") Book book);
+
 	/**
 	 * Retrieve a list of all copies held by the given branch.
 	 *
@@ -81,11 +150,37 @@ public interface CopiesDao extends JpaRepository<BranchCopies, CopiesIdentity> {
 		if (branch == null) {
 			return Collections.emptyList();
 		}
-		return findAll().parallelStream()
-				.filter(copies -> branch.equals(copies.getBranch()))
-				.collect(Collectors.toList());
+		return findByIdBranch(branch);
 	}
 
+	/**
+	 * Retrieve all copies records for the given branch, along with the branch,
+	 * the books, and their authors and publishers, in a single query. This can
+	 * use the database's index on the branch column rather than scanning the
+	 * whole table.
+	 *
+	 * @param branch the branch in question; must not be null
+	 * @return the copies records for that branch
+	 */
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch "
+			+ "JOIN FETCH c.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE c.id.branch = :branch")
+	List<BranchCopies> findByIdBranch(@Param("branch") Branch branch);
+
+	/**
+	 * Get flat, read-only views of the copies records for the given branch, in
+	 * order of book ID. Unlike {@link #findByIdBranch(Branch)}, this builds the
+	 * views straight from the result set, without loading any entities.
+	 *
+	 * @param branchId the ID of the branch in question
+	 * @return views of the copies records for that branch
+	 */
+	@Query("SELECT new com.st.novatech.springlms.model.CopiesView(br.id, br.name, "
+			+ "b.id, b.title, a.name, p.name, c.copies) FROM BranchCopies c "
+			+ "JOIN c.id.branch br JOIN c.id.book b LEFT JOIN b.author a "
+			+ "LEFT JOIN b.publisher p WHERE br.id = :branchId ORDER BY b.id")
+	List<CopiesView> findViewsByBranch(@Param("branchId") int branchId);
+
 	/**
 	 * Retrieve a list of all copies of the given book held by any branch.
 	 *
@@ -97,10 +192,50 @@ public interface CopiesDao extends JpaRepository<BranchCopies, CopiesIdentity> {
 		if (book == null) {
 			return Collections.emptyList();
 		}
-		return findAll().stream().filter(record -> book.equals(record.getBook()))
-				.collect(Collectors.toList());
+		return findByIdBook(book);
 	}
 
+	/**
+	 * Retrieve all copies records for the given book, along with the branches,
+	 * the book, and its author and publisher, in a single query. This can use
+	 * the database's index on the book column rather than scanning the whole
+	 * table.
+	 *
+	 * @param book the book in question; must not be null
+	 * @return the copies records for that book
+	 */
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch "
+			+ "JOIN FETCH c.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE c.id.book = :book")
+	List<BranchCopies> findByIdBook(@Param("book") Book book);
+
+	/**
+	 * Get the copies records, along with their branches, of the branches that
+	 * have any copies of the given book, most copies first. Like
+	 * {@link #findByIdBook(Book)}, this can use the index on the book column.
+	 *
+	 * @param book the book in question; must not be null
+	 * @return the copies records of the branches that have that book
+	 */
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch "
+			+ "WHERE c.id.book = :book AND c.copies > 0 ORDER BY c.copies DESC")
+	List<BranchCopies> findAvailableByBook(@Param("book") Book book);
+
+	/**
+	 * Of the given books, get the copies records, along with the books and their
+	 * authors and publishers, of those the given branch has any copies of, in a
+	 * single query.
+	 *
+	 * @param branch  the branch in question; must not be null
+	 * @param bookIds the IDs of the books in question; must not be empty
+	 * @return the copies records of those books the branch has copies of
+	 */
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.book b "
+			+ "LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE c.id.branch = :branch AND b.id IN :bookIds AND c.copies > 0")
+	List<BranchCopies> findAvailable(@Param("branch") Branch branch,
+			@Param("bookIds") Collection<Integer> bookIds);
+
 	/**
 	 * Retrieve a list of all copies of all books held by all branches.
 	 *
@@ -110,4 +245,84 @@ public interface CopiesDao extends JpaRepository<BranchCopies, CopiesIdentity> {
 	default List<BranchCopies> getAllCopies() {
 		return findAll();
 	}
+
+	/**
+	 * Get every copies record, along with the branch, book, and the book's author
+	 * and publisher, in a single query. The inherited method would load each
+	 * distinct branch and book (and the book's author and publisher) with a
+	 * query of its own.
+	 *
+	 * @return all copies records
+	 */
+	@Override
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch "
+			+ "JOIN FETCH c.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher")
+	List<BranchCopies> findAll();
+
+	/**
+	 * Get a page of copies records, in order of branch ID and then book ID,
+	 * starting after the given branch and book. Passing the IDs from the last
+	 * record of one page gives the next page without the database having to skip
+	 * over the earlier rows. The branches, books, and the books' authors and
+	 * publishers are fetched in the same query.
+	 *
+	 * @param afterBranch the branch ID of the last record already seen, or 0
+	 * @param afterBook   the book ID of the last record already seen, or 0
+	 * @param pageable    the size, and optionally the offset, of the page
+	 * @return the requested page of copies records
+	 */
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch br "
+			+ "JOIN FETCH c.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "WHERE br.id > :afterBranch OR (br.id = :afterBranch AND b.id > :afterBook) "
+			+ "ORDER BY br.id, b.id")
+	List<BranchCopies> findPageAfter(@Param("afterBranch") int afterBranch,
+			@Param("afterBook") int afterBook, Pageable pageable);
+
+	/**
+	 * Get a page of flat, read-only views of copies records, paged as by
+	 * {@link #findPageAfter(int, int, Pageable)}, but built straight from the
+	 * result set without loading any entities.
+	 *
+	 * @param afterBranch the branch ID of the last record already seen, or 0
+	 * @param afterBook   the book ID of the last record already seen, or 0
+	 * @param pageable    the size, and optionally the offset, of the page
+	 * @return the requested page of views
+	 */
+	@Query("SELECT new com.st.novatech.springlms.model.CopiesView(br.id, br.name, "
+			+ "b.id, b.title, a.name, p.name, c.copies) FROM BranchCopies c "
+			+ "JOIN c.id.branch br JOIN c.id.book b LEFT JOIN b.author a "
+			+ "LEFT JOIN b.publisher p "
+			+ "WHERE br.id > :afterBranch OR (br.id = :afterBranch AND b.id > :afterBook) "
+			+ "ORDER BY br.id, b.id")
+	List<CopiesView> findViewPageAfter(@Param("afterBranch") int afterBranch,
+			@Param("afterBook") int afterBook, Pageable pageable);
+
+	/**
+	 * Stream every copies record, in order of branch and then book, along with
+	 * the branch, book, and the book's author and publisher, without loading them
+	 * all into memory at once. The rows are fetched from the database in batches,
+	 * so the caller must hold a transaction open, and close the stream, until it
+	 * is done; it should also clear the persistence context now and then, as
+	 * otherwise every entity read stays in it until the transaction ends.
+	 *
+	 * @return a stream of all copies records
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT c FROM BranchCopies c JOIN FETCH c.id.branch "
+			+ "JOIN FETCH c.id.book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.publisher "
+			+ "ORDER BY c.id.branch.id, c.id.book.id")
+	Stream<BranchCopies> streamAll();
+
+	/**
+	 * Stream the branch ID, book ID, and number of copies of every copies record
+	 * with any copies, without loading the branches or books. As with
+	 * {@link #streamAll()}, the caller must hold a transaction open, and close the
+	 * stream, until it is done.
+	 *
+	 * @return a stream of {branch ID, book ID, copies} triples
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT c.id.branch.id, c.id.book.id, c.copies FROM BranchCopies c "
+			+ "WHERE c.copies > 0")
+	Stream<Object[]> streamCounts();
 }
@@ -0,0 +1,68 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+import java.util.Map;
+
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.model.CopiesIdentity;
+
+/**
+ * Operations on the copies table that Spring Data cannot derive from an
+ * annotation, implemented by hand in {@link CopiesDaoCustomImpl} and mixed into
+ * {@link CopiesDao}.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface CopiesDaoCustom {
+	/**
+	 * Increment the number of copies of a book held by a branch, inserting a row
+	 * with one copy if there was none. Callers should generally use
+	 * {@link CopiesDao#returnCopy(Branch, Book)} instead.
+	 *
+	 * @param branchId the ID of the branch in question
+	 * @param bookId   the ID of the book in question
+	 * @return the number of rows inserted or updated
+	 */
+	int incrementCopies(int branchId, int bookId);
+
+	/**
+	 * Atomically take one copy of each of the given books out of a branch's
+	 * stock, for those of which it has any, and then remove any copies rows
+	 * this leaves empty. Each decrement is the same conditional UPDATE as in
+	 * {@link CopiesDao#checkOutCopy(Branch, Book)}, but they are sent to the
+	 * database as a single JDBC batch.
+	 *
+	 * @param branchId the ID of the branch in question
+	 * @param bookIds  the IDs of the books in question, which should be distinct
+	 * @return for each book, in the same order, the number of rows updated: 1 if
+	 *         a copy was taken, 0 if the branch had none, or
+	 *         {@link java.sql.Statement#SUCCESS_NO_INFO} if the driver does not
+	 *         report counts for batched statements, in which case the caller
+	 *         cannot tell and should roll back
+	 */
+	int[] checkOutCopies(int branchId, List<Integer> bookIds);
+
+	/**
+	 * Put copies of books back into branches' stock, creating the copies rows
+	 * where a branch held none. Each (branch, book) pair is a single "upsert",
+	 * as in {@link #incrementCopies(int, int)}, and they are sent to the
+	 * database as a single JDBC batch.
+	 *
+	 * @param returned how many copies of each book to add to each branch
+	 */
+	void restockCopies(Map<CopiesIdentity, Integer> returned);
+
+	/**
+	 * Set the number of copies of many books held by branches, as
+	 * {@link CopiesDao#setCopies(Branch, Book, int)} does for one, sending the
+	 * changes to the database as JDBC batches. The three arrays must be the same
+	 * length; the {@code i}th element of each together give one copies count.
+	 *
+	 * @param branchIds the IDs of the branches in question
+	 * @param bookIds   the IDs of the books in question
+	 * @param copies    the number of copies each branch holds of each book; none
+	 *                  may be negative, and 0 removes the row
+	 */
+	void setAllCopies(int[] branchIds, int[] bookIds, int[] copies);
+}
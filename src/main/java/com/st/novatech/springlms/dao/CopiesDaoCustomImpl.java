@@ -0,0 +1,148 @@
+package com.st.novatech.springlms.dao;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesIdentity;
+
+/**
+ * Hand-written implementation of {@link CopiesDaoCustom}.
+ *
+ * @author Jonathan Lovelace
+ */
+public class CopiesDaoCustomImpl implements CopiesDaoCustom {
+	/**
+	 * The entity manager used to run the queries.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>This is an "upsert", which JPQL cannot express, so it is native SQL. An
+	 * {@code @Query(nativeQuery = true)} method would do, except that Hibernate
+	 * cannot tell what tables a native statement touches, so after running one it
+	 * empties every region of the second-level cache. Here we tell it that only
+	 * the copies table is affected.
+	 */
+	@Override
+	public int incrementCopies(final int branchId, final int bookId) {
+		entityManager.flush();
+		final int updated = entityManager
+				.createNativeQuery("INSERT INTO tbl_book_copies (bookId, branchId, noOfCopies) "
+						+ "VALUES (:bookId, :branchId, 1) "
+						+ "ON DUPLICATE KEY UPDATE noOfCopies = noOfCopies + 1")
+				.unwrap(NativeQuery.class).addSynchronizedEntityClass(BranchCopies.class)
+				.setParameter("bookId", bookId).setParameter("branchId", branchId)
+				.executeUpdate();
+		entityManager.clear();
+		return updated;
+	}
+
+	@Override
+	public int[] checkOutCopies(final int branchId, final List<Integer> bookIds) {
+		if (bookIds.isEmpty()) {
+			return new int[0];
+		}
+		entityManager.flush();
+		final int[] updated = entityManager.unwrap(Session.class)
+				.doReturningWork(connection -> {
+					try (PreparedStatement statement = connection.prepareStatement(
+							"UPDATE tbl_book_copies SET noOfCopies = noOfCopies - 1 "
+									+ "WHERE branchId = ? AND bookId = ? AND noOfCopies > 0")) {
+						for (final int bookId : bookIds) {
+							statement.setInt(1, branchId);
+							statement.setInt(2, bookId);
+							statement.addBatch();
+						}
+						return statement.executeBatch();
+					}
+				});
+		entityManager
+				.createQuery("DELETE FROM BranchCopies c WHERE c.id.branch.id = :branchId "
+						+ "AND c.id.book.id IN :bookIds AND c.copies <= 0")
+				.setParameter("branchId", branchId).setParameter("bookIds", bookIds)
+				.executeUpdate();
+		entityManager.clear();
+		return updated;
+	}
+
+	@Override
+	public void restockCopies(final Map<CopiesIdentity, Integer> returned) {
+		if (returned.isEmpty()) {
+			return;
+		}
+		entityManager.flush();
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO tbl_book_copies (bookId, branchId, noOfCopies) "
+							+ "VALUES (?, ?, ?) "
+							+ "ON DUPLICATE KEY UPDATE noOfCopies = noOfCopies + ?")) {
+				for (final Map.Entry<CopiesIdentity, Integer> entry : returned.entrySet()) {
+					statement.setInt(1, entry.getKey().getBook().getId());
+					statement.setInt(2, entry.getKey().getBranch().getId());
+					statement.setInt(3, entry.getValue());
+					statement.setInt(4, entry.getValue());
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		});
+		entityManager.clear();
+	}
+
+	@Override
+	public void setAllCopies(final int[] branchIds, final int[] bookIds,
+			final int[] copies) {
+		if (branchIds.length != bookIds.length || bookIds.length != copies.length) {
+			throw new IllegalArgumentException("Arrays must be the same length");
+		}
+		for (final int count : copies) {
+			if (count < 0) {
+				throw new IllegalArgumentException("Number of copies must be nonnegative");
+			}
+		}
+		entityManager.flush();
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement upsert = connection.prepareStatement(
+					"INSERT INTO tbl_book_copies (bookId, branchId, noOfCopies) "
+							+ "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE noOfCopies = ?");
+					PreparedStatement delete = connection.prepareStatement(
+							"DELETE FROM tbl_book_copies WHERE bookId = ? AND branchId = ?")) {
+				boolean upserts = false;
+				boolean deletes = false;
+				for (int i = 0; i < copies.length; i++) {
+					if (copies[i] > 0) {
+						upsert.setInt(1, bookIds[i]);
+						upsert.setInt(2, branchIds[i]);
+						upsert.setInt(3, copies[i]);
+						upsert.setInt(4, copies[i]);
+						upsert.addBatch();
+						upserts = true;
+					} else {
+						delete.setInt(1, bookIds[i]);
+						delete.setInt(2, branchIds[i]);
+						delete.addBatch();
+						deletes = true;
+					}
+				}
+				if (upserts) {
+					upsert.executeBatch();
+				}
+				if (deletes) {
+					delete.executeBatch();
+				}
+			}
+		});
+		entityManager.clear();
+	}
+}
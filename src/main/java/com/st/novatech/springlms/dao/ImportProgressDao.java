@@ -0,0 +1,16 @@
+package com.st.novatech.springlms.dao;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.st.novatech.springlms.model.ImportProgress;
+
+/**
+ * A Data Access Object interface to access the progress of interrupted catalog
+ * imports, by the absolute path of the file being imported.
+ *
+ * @author Jonathan Lovelace
+ */
+@Repository
+public interface ImportProgressDao extends JpaRepository<ImportProgress, String> {
+}
@@ -0,0 +1,116 @@
+package com.st.novatech.springlms.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+
+/**
+ * Helper for the DAO methods that insert many rows into a table with a
+ * generated ID. Hibernate cannot batch such inserts, as it must read back each
+ * row's ID before it can insert the next, so these go straight to JDBC.
+ *
+ * @author Jonathan Lovelace
+ */
+final class JdbcBatch {
+	/**
+	 * How many rows to send to the database in each batch.
+	 */
+	static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Do not instantiate.
+	 */
+	private JdbcBatch() {
+	}
+
+	/**
+	 * How to set a statement's parameters from an item to be inserted.
+	 *
+	 * @param <T> the type of item
+	 */
+	@FunctionalInterface
+	interface Binder<T> {
+		/**
+		 * Set the statement's parameters.
+		 *
+		 * @param statement the statement
+		 * @param item      the item to be inserted
+		 * @throws SQLException on error setting a parameter
+		 */
+		void bind(PreparedStatement statement, T item) throws SQLException;
+	}
+
+	/**
+	 * How to make an entity from an item that has been inserted and the ID it
+	 * was given.
+	 *
+	 * @param <T> the type of item
+	 * @param <R> the type of entity
+	 */
+	@FunctionalInterface
+	interface WithId<T, R> {
+		/**
+		 * Make the entity.
+		 *
+		 * @param id   the ID the database gave the row
+		 * @param item the item that was inserted
+		 * @return the entity
+		 */
+		R apply(int id, T item);
+	}
+
+	/**
+	 * Insert the given items, {@link #BATCH_SIZE} rows per JDBC batch, reading
+	 * back the ID the database generates for each.
+	 *
+	 * @param <T>           the type of item to insert
+	 * @param <R>           the type of entity to return
+	 * @param entityManager the entity manager, whose connection is used
+	 * @param sql           the INSERT statement, with a parameter for each
+	 *                      column other than the ID
+	 * @param items         the items to insert
+	 * @param binder        how to set the statement's parameters from an item
+	 * @param withId        how to make an entity from an item and its new ID
+	 * @return the inserted entities, in the same order as the items; they are not
+	 *         added to the persistence context
+	 */
+	static <T, R> List<R> insertAll(final EntityManager entityManager,
+			final String sql, final List<T> items, final Binder<? super T> binder,
+			final WithId<? super T, R> withId) {
+		final List<R> retval = new ArrayList<>(items.size());
+		if (items.isEmpty()) {
+			return retval;
+		}
+		entityManager.flush();
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(sql,
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (int start = 0; start < items.size(); start += BATCH_SIZE) {
+					final List<T> batch = items.subList(start,
+							Math.min(start + BATCH_SIZE, items.size()));
+					for (final T item : batch) {
+						binder.bind(statement, item);
+						statement.addBatch();
+					}
+					statement.executeBatch();
+					try (ResultSet keys = statement.getGeneratedKeys()) {
+						for (final T item : batch) {
+							if (!keys.next()) {
+								throw new SQLException("Database did not return an ID for every row");
+							}
+							retval.add(withId.apply(keys.getInt(1), item));
+						}
+					}
+				}
+			}
+		});
+		return retval;
+	}
+}
@@ -1,7 +1,9 @@
 package com.st.novatech.springlms.dao;
 
 import java.sql.SQLException;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -26,4 +28,15 @@ public interface LibraryBranchDao extends JpaRepository<Branch, Integer> {
 	default Branch create(final String branchName, final String branchAddress) {
 		return save(new Branch(0, branchName, branchAddress));
 	}
+
+	/**
+	 * Get a page of branches whose ID is greater than the given value, in order of
+	 * ID. Passing the last ID of one page as {@code after} gives the next page
+	 * without the database having to skip over the earlier rows.
+	 *
+	 * @param after    only branches with a greater ID than this are returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of branches
+	 */
+	List<Branch> findByIdGreaterThanOrderByIdAsc(int after, Pageable pageable);
 }
@@ -1,7 +1,10 @@
 package com.st.novatech.springlms.dao;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,7 +17,8 @@ import com.st.novatech.springlms.model.Publisher;
  * @author Jonathan Lovelace
  */
 @Repository
-public interface PublisherDao extends JpaRepository<Publisher, Integer> {
+public interface PublisherDao
+		extends JpaRepository<Publisher, Integer>, PublisherDaoCustom {
 	/**
 	 * Create a publisher object and add the publisher to the database.
 	 * @param publisherName the name of the publisher
@@ -26,4 +30,23 @@ public interface PublisherDao extends JpaRepository<Publisher, Integer> {
 	default Publisher create(final String publisherName, final String publisherAddress, final String publisherPhone) {
 		return save(new Publisher(0, publisherName, publisherAddress, publisherPhone));
 	}
+
+	/**
+	 * Get a page of publishers whose ID is greater than the given value, in order
+	 * of ID. Passing the last ID of one page as {@code after} gives the next page
+	 * without the database having to skip over the earlier rows.
+	 *
+	 * @param after    only publishers with a greater ID than this are returned
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of publishers
+	 */
+	List<Publisher> findByIdGreaterThanOrderByIdAsc(int after, Pageable pageable);
+
+	/**
+	 * Get the publishers with any of the given names, in a single query.
+	 *
+	 * @param names the names in question; must not be empty
+	 * @return the publishers with those names
+	 */
+	List<Publisher> findByNameIn(Collection<String> names);
 }
@@ -0,0 +1,24 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import com.st.novatech.springlms.model.Publisher;
+
+/**
+ * Operations on the publishers table that Spring Data cannot derive from an
+ * annotation, implemented by hand in {@link PublisherDaoCustomImpl} and mixed
+ * into {@link PublisherDao}.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface PublisherDaoCustom {
+	/**
+	 * Add many publishers to the database at once, using JDBC batches. Their IDs
+	 * are ignored.
+	 *
+	 * @param publishers the publishers to add
+	 * @return the added publishers, with the IDs the database gave them, in the
+	 *         same order
+	 */
+	List<Publisher> insertAll(List<Publisher> publishers);
+}
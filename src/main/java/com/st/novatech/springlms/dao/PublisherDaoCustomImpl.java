@@ -0,0 +1,34 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.st.novatech.springlms.model.Publisher;
+
+/**
+ * Hand-written implementation of {@link PublisherDaoCustom}.
+ *
+ * @author Jonathan Lovelace
+ */
+public class PublisherDaoCustomImpl implements PublisherDaoCustom {
+	/**
+	 * The entity manager used to run the queries.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Publisher> insertAll(final List<Publisher> publishers) {
+		return JdbcBatch.insertAll(entityManager,
+				"INSERT INTO tbl_publisher (publisherName, publisherAddress, publisherPhone) "
+						+ "VALUES (?, ?, ?)",
+				publishers, (statement, publisher) -> {
+					statement.setString(1, publisher.getName());
+					statement.setString(2, publisher.getAddress());
+					statement.setString(3, publisher.getPhone());
+				}, (id, publisher) -> new Publisher(id, publisher.getName(),
+						publisher.getAddress(), publisher.getPhone()));
+	}
+}
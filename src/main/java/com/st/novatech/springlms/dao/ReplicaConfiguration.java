@@ -0,0 +1,131 @@
+package com.st.novatech.springlms.dao;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The data sources used when read replicas are configured (by setting
+ * {@code library.replica.urls}): a connection pool for the primary, configured
+ * by the usual {@code spring.datasource} properties, one for each replica, with
+ * the same settings, and, as the application's data source, a
+ * {@link ReplicaRoutingDataSource} choosing among them; and a transaction
+ * manager that keeps what is read from the replicas out of Hibernate's
+ * second-level cache. Without replicas, Spring Boot configures the single pool
+ * and the transaction manager as usual.
+ *
+ * @author Jonathan Lovelace
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.replica", name = "urls")
+public class ReplicaConfiguration {
+	/**
+	 * The connection pool for the primary database.
+	 *
+	 * @param properties the {@code spring.datasource} properties
+	 * @return the pool, with the {@code spring.datasource.hikari} properties
+	 *         applied
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+				.build();
+	}
+
+	/**
+	 * The data source choosing between the primary and the replicas. Each
+	 * replica's pool has the same settings as the primary's, and is named after
+	 * it; its metrics are published alongside the primary's.
+	 *
+	 * @param primaryDataSource the primary's pool
+	 * @param urls              the JDBC URLs of the replicas
+	 * @param maxLag            how far behind the primary, in milliseconds, a
+	 *                          replica may be and still be used
+	 * @param registry          the metrics registry, if metrics are enabled
+	 * @return the routing data source
+	 */
+	@Bean
+	public ReplicaRoutingDataSource routingDataSource(
+			final HikariDataSource primaryDataSource,
+			@Value("${library.replica.urls}") final String[] urls,
+			@Value("${library.replica.max-lag:5000}") final long maxLag,
+			final ObjectProvider<MeterRegistry> registry) {
+		final List<HikariDataSource> replicas = new ArrayList<>();
+		for (final String url : urls) {
+			// Not started until first used, so a replica that is down does not
+			// stop the application from starting.
+			final HikariDataSource replica = new HikariDataSource();
+			primaryDataSource.copyStateTo(replica);
+			replica.setJdbcUrl(url.trim());
+			replica.setPoolName(primaryDataSource.getPoolName() + "-replica-"
+					+ (replicas.size() + 1));
+			replica.setReadOnly(true);
+			registry.ifAvailable(meters -> replica
+					.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meters)));
+			replicas.add(replica);
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag);
+	}
+
+	/**
+	 * The application's data source. A transaction gets a connection from this
+	 * as it begins, before it is marked read-only, so the choice of database is
+	 * put off until the connection is first used.
+	 *
+	 * @param routingDataSource the routing data source
+	 * @return a data source wrapping it
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(final ReplicaRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	/**
+	 * The transaction manager, in place of the one Spring Boot would configure,
+	 * with the {@code spring.transaction} properties applied in the same way.
+	 *
+	 * @param customizers the customizers Spring Boot applies to its own
+	 * @return the transaction manager
+	 */
+	@Bean
+	public ReplicaTransactionManager transactionManager(
+			final ObjectProvider<TransactionManagerCustomizers> customizers) {
+		final ReplicaTransactionManager manager = new ReplicaTransactionManager();
+		customizers.ifAvailable(customizer -> customizer.customize(manager));
+		return manager;
+	}
+
+	/**
+	 * The heartbeat that measures each replica's lag.
+	 *
+	 * @param primaryDataSource the primary's pool
+	 * @param routingDataSource the routing data source
+	 * @param clock             the clock to get the current time from
+	 * @return the heartbeat
+	 */
+	@Bean
+	public ReplicaHeartbeat replicaHeartbeat(final HikariDataSource primaryDataSource,
+			final ReplicaRoutingDataSource routingDataSource, final Clock clock) {
+		return new ReplicaHeartbeat(primaryDataSource, routingDataSource, clock);
+	}
+}
@@ -0,0 +1,101 @@
+package com.st.novatech.springlms.dao;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Measures how far each read replica is behind the primary, so the routing
+ * data source can stop sending reads to one that falls too far behind. On
+ * every beat this writes the current time to the one row of
+ * tbl_replica_heartbeat on the primary, then reads that row back from each
+ * replica: a replica's lag is how old its copy of the row is. This works with
+ * any database and any form of replication, and measures what readers of the
+ * replica would actually see.
+ *
+ * @author Jonathan Lovelace
+ */
+public class ReplicaHeartbeat {
+	/**
+	 * Logger for errors reaching the databases.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(ReplicaHeartbeat.class.getName());
+
+	/**
+	 * The routing data source, to which the lags are reported.
+	 */
+	private final ReplicaRoutingDataSource routing;
+	/**
+	 * JDBC template for the primary.
+	 */
+	private final JdbcTemplate primary;
+	/**
+	 * JDBC templates for the replicas, in order.
+	 */
+	private final List<JdbcTemplate> replicas = new ArrayList<>();
+	/**
+	 * The clock to get the current time from.
+	 */
+	private final Clock clock;
+
+	/**
+	 * To construct the heartbeat, the caller must supply the primary, the
+	 * routing data source (which knows the replicas), and a clock.
+	 *
+	 * @param primary the primary database
+	 * @param routing the routing data source
+	 * @param clock   the clock to get the current time from
+	 */
+	public ReplicaHeartbeat(final HikariDataSource primary,
+			final ReplicaRoutingDataSource routing, final Clock clock) {
+		this.routing = routing;
+		this.primary = new JdbcTemplate(primary);
+		for (final HikariDataSource replica : routing.getReplicas()) {
+			replicas.add(new JdbcTemplate(replica));
+		}
+		this.clock = clock;
+	}
+
+	/**
+	 * Write the heartbeat to the primary, then record how far behind it each
+	 * replica is. A replica that cannot be read, or that has no heartbeat row
+	 * yet, is recorded as of unknown lag, and so is not used.
+	 */
+	@Scheduled(initialDelayString = "${library.replica.heartbeat:1000}",
+			fixedDelayString = "${library.replica.heartbeat:1000}")
+	public void beat() {
+		final long now = clock.millis();
+		try {
+			if (primary.update("UPDATE tbl_replica_heartbeat SET beat = ? WHERE id = 1",
+					now) == 0) {
+				primary.update("INSERT INTO tbl_replica_heartbeat (id, beat) VALUES (1, ?)",
+						now);
+			}
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.WARNING, "Writing replica heartbeat failed", except);
+		}
+		for (int i = 0; i < replicas.size(); i++) {
+			long lag;
+			try {
+				final Long beat = replicas.get(i).queryForObject(
+						"SELECT beat FROM tbl_replica_heartbeat WHERE id = 1", Long.class);
+				lag = beat == null ? -1 : Math.max(now - beat, 0);
+			} catch (final DataAccessException except) {
+				// Only worth a warning the first time, not on every beat.
+				LOGGER.log(routing.isAvailable(i) ? Level.WARNING : Level.FINE,
+						"Reading replica heartbeat failed", except);
+				lag = -1;
+			}
+			routing.setLag(i, lag);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.st.novatech.springlms.dao;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * A data source that sends connections for read-only transactions to one of a
+ * number of read replicas, in turn, and every other connection to the primary
+ * database. A replica is only used while it is known to be no more than the
+ * allowed lag behind the primary; until then, and while it is further behind or
+ * cannot be reached, its share of the reads goes to the primary.
+ *
+ * <p>Whether the current transaction is read-only is only known once it has
+ * begun, which is after the transaction manager asks for a connection, so
+ * this must be wrapped in a data source that defers getting the real
+ * connection until it is first used.
+ *
+ * <p>The replicas' pools belong to this data source, and are closed with it;
+ * the primary's pool is a bean in its own right, and is not.
+ *
+ * @author Jonathan Lovelace
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+		implements DisposableBean {
+	/**
+	 * Logger for changes in whether each replica is used.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(ReplicaRoutingDataSource.class.getName());
+	/**
+	 * The lookup key of the primary. Each replica's key is its index.
+	 */
+	private static final String PRIMARY = "primary";
+	/**
+	 * The lag recorded for a replica whose lag is not known.
+	 */
+	private static final long UNKNOWN = -1;
+
+	/**
+	 * The replicas.
+	 */
+	private final List<HikariDataSource> replicas;
+	/**
+	 * How far behind the primary, in milliseconds, a replica may be and still be
+	 * used.
+	 */
+	private final long maxLag;
+	/**
+	 * How far behind the primary each replica was at last check, in
+	 * milliseconds, or {@link #UNKNOWN}.
+	 */
+	private final AtomicLongArray lags;
+	/**
+	 * Counter used to take the replicas in turn.
+	 */
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * To construct the data source, the caller must supply the primary, the
+	 * replicas, and how far behind a replica may be. No replica is used until
+	 * its lag has been recorded.
+	 *
+	 * @param primary  the primary database
+	 * @param replicas the replicas
+	 * @param maxLag   how far behind the primary, in milliseconds, a replica may
+	 *                 be and still be used
+	 */
+	public ReplicaRoutingDataSource(final HikariDataSource primary,
+			final List<HikariDataSource> replicas, final long maxLag) {
+		this.replicas = Collections.unmodifiableList(replicas);
+		this.maxLag = maxLag;
+		lags = new AtomicLongArray(replicas.size());
+		final Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			targets.put(i, replicas.get(i));
+			lags.set(i, UNKNOWN);
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+	}
+
+	/**
+	 * Get the replicas.
+	 *
+	 * @return the replicas, in order
+	 */
+	public List<HikariDataSource> getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * Get how far behind the primary a replica was at last check.
+	 *
+	 * @param index which replica
+	 * @return its lag, in milliseconds, or -1 if it is not known
+	 */
+	public long getLag(final int index) {
+		return lags.get(index);
+	}
+
+	/**
+	 * Whether a replica is close enough behind the primary to be used.
+	 *
+	 * @param index which replica
+	 * @return whether its lag is known and within the allowed lag
+	 */
+	public boolean isAvailable(final int index) {
+		final long lag = lags.get(index);
+		return lag != UNKNOWN && lag <= maxLag;
+	}
+
+	/**
+	 * Record how far behind the primary a replica is.
+	 *
+	 * @param index which replica
+	 * @param lag   its lag, in milliseconds, or a negative number if it could
+	 *              not be determined
+	 */
+	void setLag(final int index, final long lag) {
+		final boolean wasAvailable = isAvailable(index);
+		lags.set(index, lag < 0 ? UNKNOWN : lag);
+		final boolean available = isAvailable(index);
+		if (available != wasAvailable) {
+			LOGGER.info(() -> String.format("Replica %s %s (lag %d ms)",
+					replicas.get(index).getPoolName(),
+					available ? "in use" : "no longer in use", lag));
+		}
+	}
+
+	/**
+	 * Choose where the current connection should go: if the current transaction
+	 * is read-only, the next available replica; otherwise, or if none is
+	 * available, the primary.
+	 *
+	 * @return the key of the chosen data source
+	 */
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!replicas.isEmpty()
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			final int count = replicas.size();
+			final int start = Math.floorMod(next.getAndIncrement(), count);
+			for (int i = 0; i < count; i++) {
+				final int index = (start + i) % count;
+				if (isAvailable(index)) {
+					return index;
+				}
+			}
+		}
+		return PRIMARY;
+	}
+
+	/**
+	 * Close the replicas' pools.
+	 */
+	@Override
+	public void destroy() {
+		replicas.forEach(HikariDataSource::close);
+	}
+}
@@ -0,0 +1,43 @@
+package com.st.novatech.springlms.dao;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The transaction manager used when read replicas are configured. Read-only
+ * transactions may read a replica, which can be behind the primary; an entity
+ * read from one could be older than the last change to it, which has already
+ * evicted it from Hibernate's second-level cache, and putting it back would
+ * serve that old copy until the cache region expired. So in a read-only
+ * transaction the session takes entities from the cache, but never puts them
+ * into it; only transactions that read the primary fill the cache.
+ *
+ * <p>This relies on each transaction having a session of its own, as it does
+ * with {@code spring.jpa.open-in-view} off.
+ *
+ * @author Jonathan Lovelace
+ */
+@SuppressWarnings("serial")
+public class ReplicaTransactionManager extends JpaTransactionManager {
+	/**
+	 * Begin a transaction, and if it is read-only stop its session from putting
+	 * what it reads into the second-level cache.
+	 *
+	 * @param transaction the transaction object
+	 * @param definition  how the transaction should behave
+	 */
+	@Override
+	protected void doBegin(final Object transaction,
+			final TransactionDefinition definition) {
+		super.doBegin(transaction, definition);
+		if (definition.isReadOnly()) {
+			final EntityManagerHolder holder = (EntityManagerHolder)
+					TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+			holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+		}
+	}
+}
@@ -4,12 +4,16 @@ import java.io.Serializable;
 import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * An author of books.
  *
@@ -18,6 +22,7 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "tbl_author")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "authors")
 public class Author implements Serializable {
 	/**
 	 * Serialization version. Increment on any change to class structure that is
@@ -35,6 +40,7 @@ public class Author implements Serializable {
 	 * The author's name.
 	 */
 	@Column(name = "authorName")
+	@Convert(converter = EmptyStringConverter.class)
 	private String name;
 	/**
 	 * No-arg constructor required for JPA.
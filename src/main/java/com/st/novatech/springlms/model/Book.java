@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -12,6 +13,8 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -23,6 +26,7 @@ import org.hibernate.annotations.OnDeleteAction;
  */
 @Entity
 @Table(name = "tbl_book")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book implements Serializable {
 	/**
 	 * Serialization version. Increment on any change to class structure that is
@@ -40,6 +44,7 @@ public class Book implements Serializable {
 	 * The title of the book.
 	 */
 	@Column
+	@Convert(converter = EmptyStringConverter.class)
 	private String title;
 	// Uncommenting this field causes book deletions to not be cascaded properly.
 //	/**
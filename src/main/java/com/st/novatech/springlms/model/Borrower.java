@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -34,16 +35,19 @@ public class Borrower implements Serializable {
 	 * The borrower's name.
 	 */
 	@Column
+	@Convert(converter = EmptyStringConverter.class)
 	private String name;
 	/**
 	 * The borrower's address.
 	 */
 	@Column
+	@Convert(converter = EmptyStringConverter.class)
 	private String address;
 	/**
 	 * The borrower's phone number.
 	 */
 	@Column
+	@Convert(converter = EmptyStringConverter.class)
 	private String phone;
 
 	// Uncommenting this field causes borrower deletions to not be cascaded properly.
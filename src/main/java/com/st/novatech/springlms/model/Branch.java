@@ -4,12 +4,16 @@ import java.io.Serializable;
 import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * A branch of a library.
  *
@@ -18,6 +22,7 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "tbl_library_branch")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "branches")
 public class Branch implements Serializable {
 	/**
 	 * Serialization version. Increment on any change to class structure that is
@@ -35,11 +40,13 @@ public class Branch implements Serializable {
 	 * The name of the branch.
 	 */
 	@Column(name = "branchName")
+	@Convert(converter = EmptyStringConverter.class)
 	private String name;
 	/**
 	 * The address of the branch.
 	 */
 	@Column(name = "branchAddress")
+	@Convert(converter = EmptyStringConverter.class)
 	private String address;
 
 	// Uncommenting this field causes branch deletions to not be cascaded properly.
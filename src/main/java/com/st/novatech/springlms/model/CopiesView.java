@@ -0,0 +1,152 @@
+package com.st.novatech.springlms.model;
+
+import java.util.Objects;
+
+/**
+ * A read-only, flat view of a copies record: the IDs and names of the branch
+ * and book, and the number of copies, without the entities themselves. The
+ * list endpoints serve these, which a projection query builds directly from
+ * the result set, so nothing is added to the persistence context.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class CopiesView {
+	/**
+	 * The ID of the branch.
+	 */
+	private final int branchId;
+	/**
+	 * The name of the branch.
+	 */
+	private final String branchName;
+	/**
+	 * The ID of the book.
+	 */
+	private final int bookId;
+	/**
+	 * The title of the book.
+	 */
+	private final String title;
+	/**
+	 * The name of the book's author, or the empty string if none.
+	 */
+	private final String author;
+	/**
+	 * The name of the book's publisher, or the empty string if none.
+	 */
+	private final String publisher;
+	/**
+	 * The number of copies of the book the branch holds.
+	 */
+	private final int copies;
+
+	/**
+	 * To construct a view, the caller must supply every field; this is called by
+	 * the projection queries.
+	 *
+	 * @param branchId   the ID of the branch
+	 * @param branchName the name of the branch
+	 * @param bookId     the ID of the book
+	 * @param title      the title of the book
+	 * @param author     the name of the book's author, or null if none
+	 * @param publisher  the name of the book's publisher, or null if none
+	 * @param copies     the number of copies of the book the branch holds
+	 */
+	public CopiesView(final int branchId, final String branchName, final int bookId,
+			final String title, final String author, final String publisher,
+			final int copies) {
+		this.branchId = branchId;
+		this.branchName = branchName;
+		this.bookId = bookId;
+		this.title = title;
+		this.author = Objects.toString(author, "");
+		this.publisher = Objects.toString(publisher, "");
+		this.copies = copies;
+	}
+
+	/**
+	 * Get the ID of the branch.
+	 * @return the branch ID
+	 */
+	public int getBranchId() {
+		return branchId;
+	}
+
+	/**
+	 * Get the name of the branch.
+	 * @return the branch name
+	 */
+	public String getBranchName() {
+		return branchName;
+	}
+
+	/**
+	 * Get the ID of the book.
+	 * @return the book ID
+	 */
+	public int getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * Get the title of the book.
+	 * @return the title
+	 */
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * Get the name of the book's author.
+	 * @return the author's name, or the empty string if none
+	 */
+	public String getAuthor() {
+		return author;
+	}
+
+	/**
+	 * Get the name of the book's publisher.
+	 * @return the publisher's name, or the empty string if none
+	 */
+	public String getPublisher() {
+		return publisher;
+	}
+
+	/**
+	 * Get the number of copies of the book the branch holds.
+	 * @return the number of copies
+	 */
+	public int getCopies() {
+		return copies;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(branchId, bookId);
+	}
+
+	/**
+	 * An object is equal to this one iff it is a CopiesView with equal fields.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof CopiesView) {
+			final CopiesView other = (CopiesView) obj;
+			return branchId == other.branchId && bookId == other.bookId
+					&& copies == other.copies
+					&& Objects.equals(branchName, other.branchName)
+					&& Objects.equals(title, other.title)
+					&& Objects.equals(author, other.author)
+					&& Objects.equals(publisher, other.publisher);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return branchName + " has " + copies + " copies of " + title + ".";
+	}
+}
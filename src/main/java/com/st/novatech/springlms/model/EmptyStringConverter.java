@@ -0,0 +1,41 @@
+package com.st.novatech.springlms.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * A converter, applied to each String column of the entities, that turns SQL
+ * nulls into empty strings, as the entity APIs require that their String
+ * properties never be null. Nulls in such properties are also written to the
+ * database as empty strings.
+ *
+ * <p>This replaces a session-wide interceptor that scanned every property of
+ * every entity as it was loaded, saved, or flushed, looking for strings; a
+ * converter is called only for the columns it is declared on.
+ *
+ * @author Jonathan Lovelace
+ */
+@Converter
+public class EmptyStringConverter implements AttributeConverter<String, String> {
+	/**
+	 * Convert an entity property to the value stored in the database.
+	 *
+	 * @param attribute the value of the property
+	 * @return it, or the empty string if it is null
+	 */
+	@Override
+	public String convertToDatabaseColumn(final String attribute) {
+		return attribute == null ? "" : attribute;
+	}
+
+	/**
+	 * Convert a value from the database to the value of an entity property.
+	 *
+	 * @param dbData the value in the database
+	 * @return it, or the empty string if it is null
+	 */
+	@Override
+	public String convertToEntityAttribute(final String dbData) {
+		return dbData == null ? "" : dbData;
+	}
+}
@@ -0,0 +1,111 @@
+package com.st.novatech.springlms.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * How far an interrupted catalog import of a file had got: the number of lines
+ * of it that have been committed. This is written in the same transaction as
+ * each chunk of the file, so it can never disagree with what was imported.
+ *
+ * @author Jonathan Lovelace
+ */
+@Entity
+@Table(name = "tbl_import_progress")
+public class ImportProgress implements Serializable {
+	/**
+	 * Serialization version. Increment on any change to class structure that is
+	 * pushed to production.
+	 */
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The absolute path of the file being imported.
+	 */
+	@Id
+	@Column(name = "source")
+	private final String source;
+	/**
+	 * The number of lines of the file that have been committed.
+	 */
+	@Column(name = "lastLine")
+	private long lastLine;
+
+	/**
+	 * No-arg constructor required for JPA.
+	 */
+	protected ImportProgress() {
+		this("", 0);
+	}
+
+	/**
+	 * To construct a progress record, callers must supply the file and the
+	 * number of its lines committed.
+	 *
+	 * @param source   the absolute path of the file being imported
+	 * @param lastLine the number of lines of it committed
+	 */
+	public ImportProgress(final String source, final long lastLine) {
+		this.source = source;
+		this.lastLine = lastLine;
+	}
+
+	/**
+	 * Get the absolute path of the file being imported.
+	 *
+	 * @return the path of the file
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * Get the number of lines of the file that have been committed.
+	 *
+	 * @return the number of lines committed
+	 */
+	public long getLastLine() {
+		return lastLine;
+	}
+
+	/**
+	 * Record that more of the file has been committed.
+	 *
+	 * @param lastLine the number of lines of it now committed
+	 */
+	public void setLastLine(final long lastLine) {
+		this.lastLine = lastLine;
+	}
+
+	/**
+	 * We use only the file for this object's hash-code.
+	 */
+	@Override
+	public int hashCode() {
+		return source.hashCode();
+	}
+
+	/**
+	 * An object is equal to this one iff it is an ImportProgress for the same
+	 * file with the same number of lines committed.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof ImportProgress) {
+			return source.equals(((ImportProgress) obj).getSource())
+					&& lastLine == ((ImportProgress) obj).getLastLine();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Import of " + source + ": " + lastLine + " lines committed";
+	}
+}
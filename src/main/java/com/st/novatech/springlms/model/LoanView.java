@@ -0,0 +1,155 @@
+package com.st.novatech.springlms.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A read-only, flat view of a loan: the borrower's card number, the IDs and
+ * names of the branch and book, and the dates, without the entities
+ * themselves. The list endpoints serve these, which a projection query builds
+ * directly from the result set, so nothing is added to the persistence context.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class LoanView {
+	/**
+	 * The borrower's card number.
+	 */
+	private final int cardNo;
+	/**
+	 * The ID of the branch the book was borrowed from.
+	 */
+	private final int branchId;
+	/**
+	 * The name of the branch the book was borrowed from.
+	 */
+	private final String branchName;
+	/**
+	 * The ID of the book.
+	 */
+	private final int bookId;
+	/**
+	 * The title of the book.
+	 */
+	private final String title;
+	/**
+	 * When the book was checked out.
+	 */
+	private final LocalDateTime dateOut;
+	/**
+	 * When the book is due.
+	 */
+	private final LocalDate dueDate;
+
+	/**
+	 * To construct a view, the caller must supply every field; this is called by
+	 * the projection queries.
+	 *
+	 * @param cardNo     the borrower's card number
+	 * @param branchId   the ID of the branch
+	 * @param branchName the name of the branch
+	 * @param bookId     the ID of the book
+	 * @param title      the title of the book
+	 * @param dateOut    when the book was checked out
+	 * @param dueDate    when the book is due
+	 */
+	public LoanView(final int cardNo, final int branchId, final String branchName,
+			final int bookId, final String title, final LocalDateTime dateOut,
+			final LocalDate dueDate) {
+		this.cardNo = cardNo;
+		this.branchId = branchId;
+		this.branchName = branchName;
+		this.bookId = bookId;
+		this.title = title;
+		this.dateOut = dateOut;
+		this.dueDate = dueDate;
+	}
+
+	/**
+	 * Get the borrower's card number.
+	 * @return the card number
+	 */
+	public int getCardNo() {
+		return cardNo;
+	}
+
+	/**
+	 * Get the ID of the branch the book was borrowed from.
+	 * @return the branch ID
+	 */
+	public int getBranchId() {
+		return branchId;
+	}
+
+	/**
+	 * Get the name of the branch the book was borrowed from.
+	 * @return the branch name
+	 */
+	public String getBranchName() {
+		return branchName;
+	}
+
+	/**
+	 * Get the ID of the book.
+	 * @return the book ID
+	 */
+	public int getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * Get the title of the book.
+	 * @return the title
+	 */
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * Get when the book was checked out.
+	 * @return the date and time it was checked out
+	 */
+	public LocalDateTime getDateOut() {
+		return dateOut;
+	}
+
+	/**
+	 * Get when the book is due.
+	 * @return the due date
+	 */
+	public LocalDate getDueDate() {
+		return dueDate;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(cardNo, branchId, bookId);
+	}
+
+	/**
+	 * An object is equal to this one iff it is a LoanView with equal fields.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof LoanView) {
+			final LoanView other = (LoanView) obj;
+			return cardNo == other.cardNo && branchId == other.branchId
+					&& bookId == other.bookId
+					&& Objects.equals(branchName, other.branchName)
+					&& Objects.equals(title, other.title)
+					&& Objects.equals(dateOut, other.dateOut)
+					&& Objects.equals(dueDate, other.dueDate);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Card " + cardNo + " has " + title + " from " + branchName + ", due "
+				+ dueDate + ".";
+	}
+}
@@ -4,12 +4,16 @@ import java.io.Serializable;
 import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * A publisher of books.
  *
@@ -18,6 +22,7 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "tbl_publisher")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "publishers")
 public class Publisher implements Serializable {
 	/**
 	 * Serialization version. Increment on any change to class structure that is
@@ -35,16 +40,19 @@ public class Publisher implements Serializable {
 	 * The name of the publisher.
 	 */
 	@Column(name = "publisherName")
+	@Convert(converter = EmptyStringConverter.class)
 	private String name;
 	/**
 	 * The address of the publisher.
 	 */
 	@Column(name = "publisherAddress")
+	@Convert(converter = EmptyStringConverter.class)
 	private String address;
 	/**
 	 * The publisher's phone number.
 	 */
 	@Column(name = "publisherPhone")
+	@Convert(converter = EmptyStringConverter.class)
 	private String phone;
 	/**
 	 * No-arg constructor required for JPA.
@@ -2,6 +2,10 @@ package com.st.novatech.springlms.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Pageable;
 
 import com.st.novatech.springlms.exception.TransactionException;
 import com.st.novatech.springlms.model.Author;
@@ -28,6 +32,17 @@ public interface AdministratorService extends Service {
 	 * @return the newly-created book
 	 */
 	Book createBook(String title, Author author, Publisher publisher) throws TransactionException;
+	/**
+	 * Create many books at once, as when loading a publisher's catalog, with far
+	 * fewer round trips to the database than creating each in turn. Each book's
+	 * ID is ignored. Its author and publisher, if any, are used if one with its
+	 * ID is in the database; otherwise, one with its name is created (only once
+	 * for each distinct name) and used instead.
+	 *
+	 * @param books the books to create
+	 * @return the newly-created books, in the same order
+	 */
+	List<Book> createBooks(List<Book> books) throws TransactionException;
 //	/**
 //	 * Create a book with the given title, author, and publisher and store it in the
 //	 * database.
@@ -194,6 +209,26 @@ public interface AdministratorService extends Service {
 	 */
 	List<Loan> getAllLoans() throws TransactionException;
 
+	/**
+	 * Pass every loan in the database (order should not be relied on) to the
+	 * given action, one at a time, without loading them all into memory at once.
+	 * The action must not hold on to the loans or modify them.
+	 *
+	 * @param action what to do with each loan
+	 */
+	void exportLoans(Consumer<? super Loan> action) throws TransactionException;
+
+	/**
+	 * Get a page of the loans due before the given date, earliest due first.
+	 * This uses the index on the due date, rather than reading every loan.
+	 *
+	 * @param date     loans due before this date are included
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of overdue loans
+	 */
+	List<Loan> getOverdueLoansPage(LocalDate date, Pageable pageable)
+			throws TransactionException;
+
 	/**
 	 * Get the borrower with the specified card number.
 	 *
@@ -238,4 +273,79 @@ public interface AdministratorService extends Service {
 	 * @return a Loan in the database
 	 */
 	Loan getLoan(int cardNo, int branchId, int bookId) throws TransactionException;
+
+	/**
+	 * Get a page of the books in the database, in order of ID.
+	 *
+	 * @param after    only books with a greater ID than this are included; pass
+	 *                 the last ID of the previous page to get the next page, or
+	 *                 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of books
+	 */
+	List<Book> getBooksPage(int after, Pageable pageable) throws TransactionException;
+
+	/**
+	 * Search the catalog for books whose title, author's name, or publisher's
+	 * name contain all the given words, ignoring case and accents. This is
+	 * answered from an in-memory index, not by scanning the book table.
+	 *
+	 * @param query the words to search for; a word ending in {@code *} matches
+	 *              any word it is a prefix of
+	 * @param limit the most books to return
+	 * @return the matching books, best match first
+	 */
+	List<Book> searchBooks(String query, int limit) throws TransactionException;
+
+	/**
+	 * Suggest book titles and author names starting with what the user has typed
+	 * so far, ignoring case and accents. This is answered from an in-memory
+	 * index, not by querying the database.
+	 *
+	 * @param prefix what the user has typed
+	 * @param limit  the most suggestions to return
+	 * @return the suggestions, those shared by the most books or authors first
+	 */
+	List<Suggestion> suggest(String prefix, int limit);
+
+	/**
+	 * Report the size of the in-memory index behind {@link #suggest(String, int)}.
+	 *
+	 * @return the number of distinct titles and author names, the number of
+	 *         trie nodes, and the estimated memory used in bytes, by name
+	 */
+	Map<String, Long> getSuggestFootprint();
+
+	/**
+	 * Get a page of the authors in the database, in order of ID.
+	 *
+	 * @param after    only authors with a greater ID than this are included;
+	 *                 pass the last ID of the previous page to get the next
+	 *                 page, or 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of authors
+	 */
+	List<Author> getAuthorsPage(int after, Pageable pageable) throws TransactionException;
+
+	/**
+	 * Get a page of the publishers in the database, in order of ID.
+	 *
+	 * @param after    only publishers with a greater ID than this are included;
+	 *                 pass the last ID of the previous page to get the next
+	 *                 page, or 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of publishers
+	 */
+	List<Publisher> getPublishersPage(int after, Pageable pageable) throws TransactionException;
+
+	/**
+	 * Get a page of the borrowers in the database, in order of card number.
+	 *
+	 * @param after    only borrowers with a greater card number than this are
+	 *                 included; pass the last card number of the previous page
+	 *                 to get the next page, or 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of borrowers
+	 */
+	List<Borrower> getBorrowersPage(int after, Pageable pageable) throws TransactionException;
 }
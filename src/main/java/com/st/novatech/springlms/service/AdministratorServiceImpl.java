@@ -1,16 +1,32 @@
 package com.st.novatech.springlms.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.st.novatech.springlms.dao.AuthorDao;
 import com.st.novatech.springlms.dao.BookDao;
@@ -36,11 +52,16 @@ import com.st.novatech.springlms.model.Publisher;
  *
  * <p>TODO: Split interface into "cataloger" and "executive" services.
  *
+ * <p>The lookup and listing methods run in read-only transactions, so the
+ * entities they return are loaded read-only, without dirty-checking snapshots,
+ * and the session is never flushed.
+ *
  * @author Jonathan Lovelace
  *
  */
+@Transactional(rollbackFor = TransactionException.class)
 @Service("AdministratorService")
-public final class AdministratorServiceImpl implements AdministratorService {
+public class AdministratorServiceImpl implements AdministratorService {
 	/**
 	 * DAO to access the library-branch table.
 	 */
@@ -72,38 +93,54 @@ public final class AdministratorServiceImpl implements AdministratorService {
 	@Autowired
 	private BookLoansDao loansDao;
 	/**
-	 * Logger for handling errors in the DAO layer.
+	 * The in-memory index of the "copies" table, told of books and branches
+	 * deleted, as the database deletes their copies records with them.
 	 */
-	private static final Logger LOGGER = Logger.getLogger(AdministratorService.class.getName());
-
+	@Autowired
+	private AvailabilityIndex availability;
 	/**
-	 * The currently-active transaction, or null if not in a transaction.
+	 * The in-memory full-text index of the catalog, told of every change to
+	 * books, authors, and publishers.
 	 */
-	private volatile TransactionStatus transaction;
+	@Autowired
+	private SearchIndex searchIndex;
 	/**
-	 * The transaction manager provided by Spring.
+	 * The in-memory index of titles and author names for typeahead suggestions,
+	 * told of every change to books and authors.
 	 */
 	@Autowired
-	private PlatformTransactionManager transactionManager;
+	private SuggestIndex suggestIndex;
+	/**
+	 * The entity manager, used to clear the persistence context during exports
+	 * and to reach the second-level cache.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+	/**
+	 * Logger for handling errors in the DAO layer.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(AdministratorService.class.getName());
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public void beginTransaction() throws TransactionException {
-		if (transaction == null) {
-			synchronized (this) {
-				if (transaction == null) {
-					transaction = transactionManager.getTransaction(null);
-				}
-			}
+	public List<Branch> getAllBranches() throws TransactionException {
+		try {
+			return branchDao.findAll();
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE,  "SQL error while getting all branches", except);
+			throw new UnknownSQLException("Getting all branches failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public List<Branch> getAllBranches() throws TransactionException {
+	public List<Branch> getBranchesPage(final int after, final Pageable pageable)
+			throws TransactionException {
 		try {
-			return branchDao.findAll();
+			return branchDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE,  "SQL error while getting all branches", except);
-			throw rollback(new UnknownSQLException("Getting all branches failed", except));
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of branches", except);
+			throw new UnknownSQLException("Getting branch records failed", except);
 		}
 	}
 
@@ -111,81 +148,231 @@ public final class AdministratorServiceImpl implements AdministratorService {
 	public Book createBook(final String title, final Author author,
 			final Publisher publisher) throws TransactionException {
 		try {
-			return bookDao.create(title, author, publisher);
+			final Book book = bookDao.create(title, author, publisher);
+			searchIndex.booksSaved(Collections.singletonList(book));
+			suggestIndex.booksSaved(Collections.singletonList(book));
+			return book;
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating a book", except);
-			throw rollback(new InsertException("Creating a book failed", except));
+			throw new InsertException("Creating a book failed", except);
+		}
+	}
+
+	@Override
+	public List<Book> createBooks(final List<Book> books) throws TransactionException {
+		try {
+			final Map<Integer, Author> existingAuthors = authorDao
+					.findAllById(books.stream().map(Book::getAuthor)
+							.filter(Objects::nonNull).map(Author::getId)
+							.collect(Collectors.toSet()))
+					.stream().collect(Collectors.toMap(Author::getId, Function.identity()));
+			final Map<String, Author> newAuthors = new LinkedHashMap<>();
+			final Map<Integer, Publisher> existingPublishers = publisherDao
+					.findAllById(books.stream().map(Book::getPublisher)
+							.filter(Objects::nonNull).map(Publisher::getId)
+							.collect(Collectors.toSet()))
+					.stream().collect(Collectors.toMap(Publisher::getId, Function.identity()));
+			final Map<String, Publisher> newPublishers = new LinkedHashMap<>();
+			for (final Book book : books) {
+				if (book.getAuthor() != null
+						&& !existingAuthors.containsKey(book.getAuthor().getId())) {
+					newAuthors.putIfAbsent(book.getAuthor().getName(), book.getAuthor());
+				}
+				if (book.getPublisher() != null
+						&& !existingPublishers.containsKey(book.getPublisher().getId())) {
+					newPublishers.putIfAbsent(book.getPublisher().getName(),
+							book.getPublisher());
+				}
+			}
+			final List<Author> insertedAuthors = authorDao
+					.insertAll(new ArrayList<>(newAuthors.keySet()));
+			for (final Author author : insertedAuthors) {
+				newAuthors.put(author.getName(), author);
+			}
+			suggestIndex.authorsSaved(insertedAuthors);
+			for (final Publisher publisher : publisherDao
+					.insertAll(new ArrayList<>(newPublishers.values()))) {
+				newPublishers.put(publisher.getName(), publisher);
+			}
+			final List<Book> toInsert = new ArrayList<>(books.size());
+			for (final Book book : books) {
+				final Author author;
+				if (book.getAuthor() == null) {
+					author = null;
+				} else {
+					author = existingAuthors.getOrDefault(book.getAuthor().getId(),
+							newAuthors.get(book.getAuthor().getName()));
+				}
+				final Publisher publisher;
+				if (book.getPublisher() == null) {
+					publisher = null;
+				} else {
+					publisher = existingPublishers.getOrDefault(
+							book.getPublisher().getId(),
+							newPublishers.get(book.getPublisher().getName()));
+				}
+				toInsert.add(new Book(0, book.getTitle(), author, publisher));
+			}
+			final List<Book> created = bookDao.insertAll(toInsert);
+			searchIndex.booksSaved(created);
+			suggestIndex.booksSaved(created);
+			return created;
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while creating books", except);
+			throw new InsertException("Creating books failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BOOKS, key = "#book.id")
 	@Override
 	public void updateBook(final Book book) throws TransactionException {
 		try {
-			bookDao.save(book);
+			final List<Book> saved = Collections.singletonList(bookDao.save(book));
+			searchIndex.booksSaved(saved);
+			suggestIndex.booksSaved(saved);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating a book", except);
-			throw rollback(new UpdateException("Updating book record failed", except));
+			throw new UpdateException("Updating book record failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BOOKS, key = "#book.id")
 	@Override
 	public void deleteBook(final Book book) throws TransactionException {
 		try {
 			bookDao.delete(book);
+			availability.bookRemoved(book.getId());
+			searchIndex.bookRemoved(book.getId());
+			suggestIndex.bookRemoved(book.getId());
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while removing a book record", except);
-			throw rollback(new DeleteException("Removing book record failed", except));
+			throw new DeleteException("Removing book record failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Book> getAllBooks() throws TransactionException {
 		try {
 			return bookDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting books", except);
-			throw rollback(new UnknownSQLException("Getting book records failed", except));
+			throw new UnknownSQLException("Getting book records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Book> getBooksPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return bookDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of books", except);
+			throw new UnknownSQLException("Getting book records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Book> searchBooks(final String query, final int limit)
+			throws TransactionException {
+		final List<Integer> ids = searchIndex.search(query, limit);
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			final Map<Integer, Book> found = bookDao.findAllById(ids).stream()
+					.collect(Collectors.toMap(Book::getId, Function.identity()));
+			// The index may briefly still list a book deleted by a transaction
+			// that has committed but not yet told it.
+			return ids.stream().map(found::get).filter(Objects::nonNull)
+					.collect(Collectors.toList());
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while searching books", except);
+			throw new RetrieveException("Searching books failed", except);
+		}
+	}
+
+	// Answered from the in-memory index, so it needs no connection.
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Override
+	public List<Suggestion> suggest(final String prefix, final int limit) {
+		return suggestIndex.suggest(prefix, limit);
+	}
+
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Override
+	public Map<String, Long> getSuggestFootprint() {
+		return suggestIndex.footprint();
+	}
+
 	@Override
 	public Author createAuthor(final String name) throws TransactionException {
 		try {
-			return authorDao.create(name);
+			final Author author = authorDao.create(name);
+			suggestIndex.authorsSaved(Collections.singletonList(author));
+			return author;
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating an author", except);
-			throw rollback(new InsertException("Creating an author failed", except));
+			throw new InsertException("Creating an author failed", except);
 		}
 
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = Caches.AUTHORS, key = "#author.id"),
+			@CacheEvict(cacheNames = Caches.BOOKS, allEntries = true) })
 	@Override
 	public void updateAuthor(final Author author) throws TransactionException {
 		try {
-			authorDao.save(author);
+			final Author saved = authorDao.save(author);
+			searchIndex.authorSaved(saved);
+			suggestIndex.authorsSaved(Collections.singletonList(saved));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating an author", except);
-			throw rollback(new UpdateException("Updating author record failed", except));
+			throw new UpdateException("Updating author record failed", except);
 		}
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = Caches.AUTHORS, key = "#author.id"),
+			@CacheEvict(cacheNames = Caches.BOOKS, allEntries = true) })
 	@Override
 	public void deleteAuthor(final Author author) throws TransactionException {
 		try {
 			authorDao.delete(author);
+			searchIndex.authorRemoved(author.getId());
+			suggestIndex.authorRemoved(author.getId());
+			// The database removes the author's books as well (ON DELETE CASCADE),
+			// without Hibernate knowing, so they must not stay in its cache. Until
+			// this commits, other transactions may still cache them, so evict after.
+			AfterCommit.run(() -> entityManager.getEntityManagerFactory().getCache()
+					.evict(Book.class));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while removing an author record", except);
-			throw rollback(new DeleteException("Removing author record failed", except));
+			throw new DeleteException("Removing author record failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Author> getAllAuthors() throws TransactionException {
 		try {
 			return authorDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting authors", except);
-			throw rollback(new UnknownSQLException("Getting author records failed", except));
+			throw new UnknownSQLException("Getting author records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Author> getAuthorsPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return authorDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of authors", except);
+			throw new UnknownSQLException("Getting author records failed", except);
 		}
 	}
 
@@ -201,37 +388,61 @@ public final class AdministratorServiceImpl implements AdministratorService {
 			return publisherDao.create(name, address, phone);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating a publisher", except);
-			throw rollback(new InsertException("Creating a publisher failed", except));
+			throw new InsertException("Creating a publisher failed", except);
 		}
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = Caches.PUBLISHERS, key = "#publisher.id"),
+			@CacheEvict(cacheNames = Caches.BOOKS, allEntries = true) })
 	@Override
 	public void updatePublisher(final Publisher publisher) throws TransactionException {
 		try {
-			publisherDao.save(publisher);
+			searchIndex.publisherSaved(publisherDao.save(publisher));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating a publisher", except);
-			throw rollback(new UpdateException("Updating publisher record failed", except));
+			throw new UpdateException("Updating publisher record failed", except);
 		}
 	}
 
+	@Caching(evict = { @CacheEvict(cacheNames = Caches.PUBLISHERS, key = "#publisher.id"),
+			@CacheEvict(cacheNames = Caches.BOOKS, allEntries = true) })
 	@Override
 	public void deletePublisher(final Publisher publisher) throws TransactionException {
 		try {
 			publisherDao.delete(publisher);
+			searchIndex.publisherRemoved(publisher.getId());
+			suggestIndex.publisherRemoved(publisher.getId());
+			// The database removes the publisher's books as well (ON DELETE CASCADE),
+			// without Hibernate knowing, so they must not stay in its cache. Until
+			// this commits, other transactions may still cache them, so evict after.
+			AfterCommit.run(() -> entityManager.getEntityManagerFactory().getCache()
+					.evict(Book.class));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while removing a publisher record", except);
-			throw rollback(new DeleteException("Removing publisher record failed", except));
+			throw new DeleteException("Removing publisher record failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Publisher> getAllPublishers() throws TransactionException {
 		try {
 			return publisherDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting publishers", except);
-			throw rollback(new UnknownSQLException("Getting publisher records failed", except));
+			throw new UnknownSQLException("Getting publisher records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Publisher> getPublishersPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return publisherDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of publishers", except);
+			throw new UnknownSQLException("Getting publisher records failed", except);
 		}
 	}
 
@@ -241,27 +452,30 @@ public final class AdministratorServiceImpl implements AdministratorService {
 			return branchDao.create(name, address);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating a branch", except);
-			throw rollback(new InsertException("Creating a branch failed", except));
+			throw new InsertException("Creating a branch failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BRANCHES, key = "#branch.id")
 	@Override
 	public void deleteBranch(final Branch branch) throws TransactionException {
 		try {
 			branchDao.delete(branch);
+			availability.branchRemoved(branch.getId());
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while removing a branch record", except);
-			throw rollback(new DeleteException("Removing branch record failed", except));
+			throw new DeleteException("Removing branch record failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BRANCHES, key = "#branch.id")
 	@Override
 	public void updateBranch(final Branch branch) throws TransactionException {
 		try {
 			branchDao.save(branch);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating a branch", except);
-			throw rollback(new UpdateException("Updating branch record failed", except));
+			throw new UpdateException("Updating branch record failed", except);
 		}
 	}
 
@@ -272,37 +486,52 @@ public final class AdministratorServiceImpl implements AdministratorService {
 			return borrowerDao.create(name, address, phone);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating a borrower", except);
-			throw rollback(new InsertException("Creating a borrower failed", except));
+			throw new InsertException("Creating a borrower failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BORROWERS, key = "#borrower.cardNo")
 	@Override
 	public void updateBorrower(final Borrower borrower) throws TransactionException {
 		try {
 			borrowerDao.save(borrower);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating a borrower", except);
-			throw rollback(new UpdateException("Updating borrower record failed", except));
+			throw new UpdateException("Updating borrower record failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BORROWERS, key = "#borrower.cardNo")
 	@Override
 	public void deleteBorrower(final Borrower borrower) throws TransactionException {
 		try {
 			borrowerDao.delete(borrower);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while removing a borrower record", except);
-			throw rollback(new DeleteException("Removing borrower record failed", except));
+			throw new DeleteException("Removing borrower record failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Borrower> getAllBorrowers() throws TransactionException {
 		try {
 			return borrowerDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting borrowers", except);
-			throw rollback(new UnknownSQLException("Getting borrower records failed", except));
+			throw new UnknownSQLException("Getting borrower records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Borrower> getBorrowersPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return borrowerDao.findByCardNoGreaterThanOrderByCardNoAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of borrowers", except);
+			throw new UnknownSQLException("Getting borrower records failed", except);
 		}
 	}
 
@@ -314,7 +543,7 @@ public final class AdministratorServiceImpl implements AdministratorService {
 			loan = Optional.ofNullable(loansDao.get(book, borrower, branch));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting loan record", except);
-			throw rollback(new UnknownSQLException("Getting loan record failed", except));
+			throw new UnknownSQLException("Getting loan record failed", except);
 		}
 		if (loan.isPresent()) {
 			loan.get().setDueDate(dueDate);
@@ -322,7 +551,7 @@ public final class AdministratorServiceImpl implements AdministratorService {
 				loansDao.save(loan.get());
 			} catch (final DataAccessException except) {
 				LOGGER.log(Level.SEVERE, "SQL error while updating a loan", except);
-				throw rollback(new UpdateException("Updating loan record failed", except));
+				throw new UpdateException("Updating loan record failed", except);
 			}
 			return true;
 		} else {
@@ -330,101 +559,113 @@ public final class AdministratorServiceImpl implements AdministratorService {
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Loan> getAllLoans() throws TransactionException {
 		try {
 			return loansDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting loans", except);
-			throw rollback(new UnknownSQLException("Getting loan records failed", except));
+			throw new UnknownSQLException("Getting loan records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public void commit() throws TransactionException {
-		try {
-			synchronized (this) {
-				if (transaction != null) {
-					transactionManager.commit(transaction);
-					transaction = null;
-				}
-			}
+	public void exportLoans(final Consumer<? super Loan> action)
+			throws TransactionException {
+		try (Stream<Loan> stream = loansDao.streamAll()) {
+			Exports.forEach(stream, entityManager, action);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Error of some kind while committing transaction", except);
-			throw new UnknownSQLException("Committing the transaction failed", except);
+			LOGGER.log(Level.SEVERE, "SQL error while exporting loans", except);
+			throw new UnknownSQLException("Exporting loan records failed", except);
 		}
 	}
-	private <E extends Exception> E rollback(final E pending) {
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Loan> getOverdueLoansPage(final LocalDate date, final Pageable pageable)
+			throws TransactionException {
 		try {
-			if (transaction != null) {
-				transactionManager.rollback(transaction);
-			}
+			return loansDao.findByDueDateBefore(date, pageable);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Further error while rolling back transaction", except);
-			pending.addSuppressed(except);
-		}
-		synchronized (this) {
-			transaction = null;
+			LOGGER.log(Level.SEVERE, "SQL error while getting overdue loans", except);
+			throw new UnknownSQLException("Getting overdue loans failed", except);
 		}
-		return pending;
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BORROWERS, unless = "#result == null")
 	@Override
 	public Borrower getBorrower(final int cardNo) throws TransactionException {
 		try {
 			return borrowerDao.findById(cardNo).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting borrower details", except);
-			throw rollback(new RetrieveException("Getting borrower record failed", except));
+			throw new RetrieveException("Getting borrower record failed", except);
 		}
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.AUTHORS, unless = "#result == null")
 	@Override
 	public Author getAuthor(final int authorId) throws TransactionException {
 		try {
 			return authorDao.findById(authorId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting borrower details", except);
-			throw rollback(new RetrieveException("Getting borrower record failed", except));
+			throw new RetrieveException("Getting borrower record failed", except);
 		}
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.PUBLISHERS, unless = "#result == null")
 	@Override
 	public Publisher getPublisher(final int publisherId) throws TransactionException {
 		try {
 			return publisherDao.findById(publisherId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting borrower details", except);
-			throw rollback(new RetrieveException("Getting borrower record failed", except));
+			throw new RetrieveException("Getting borrower record failed", except);
 		}
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BRANCHES, unless = "#result == null")
 	@Override
 	public Branch getBranch(final int branchId) throws TransactionException {
 		try {
 			return branchDao.findById(branchId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a branch", except);
-			throw rollback(new RetrieveException("Getting a branch failed", except));
+			throw new RetrieveException("Getting a branch failed", except);
 		}
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BOOKS, unless = "#result == null")
 	@Override
 	public Book getBook(final int bookId) throws TransactionException {
 		try {
 			return bookDao.findById(bookId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a book", except);
-			throw rollback(new RetrieveException("Getting a book failed", except));
+			throw new RetrieveException("Getting a book failed", except);
 		}
 	}
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public Loan getLoan(final int cardNo, final int branchId, final int bookId) throws TransactionException {
 		try {
-			return loansDao.get(getBook(bookId), getBorrower(cardNo), getBranch(branchId));
+			return loansDao.get(cardNo, branchId, bookId);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a Loan record", except);
-			throw rollback(new RetrieveException("Getting a Loan failed", except));
+			throw new RetrieveException("Getting a Loan failed", except);
 		}
 	}
 }
@@ -0,0 +1,38 @@
+package com.st.novatech.springlms.service;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A helper for the in-memory indexes and caches the services keep alongside
+ * the database, which must only reflect changes once they have been committed.
+ *
+ * @author Jonathan Lovelace
+ */
+final class AfterCommit {
+	/**
+	 * Do not instantiate.
+	 */
+	private AfterCommit() {
+	}
+
+	/**
+	 * Run an action once the current transaction commits, or at once if there is
+	 * no transaction. If the transaction rolls back, the action is never run.
+	 *
+	 * @param action the action
+	 */
+	static void run(final Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCommit() {
+							action.run();
+						}
+					});
+		} else {
+			action.run();
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package com.st.novatech.springlms.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.st.novatech.springlms.dao.CopiesDao;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.model.BranchCopies;
+
+/**
+ * An in-memory copy of the number of copies of each book each branch holds, so
+ * that "does this branch have this book?" and "which branches have this book?"
+ * can be answered without asking the database.
+ *
+ * <p>The index is loaded once the application has started. Until then, and if
+ * loading fails, reads fall through to the database. The services tell the
+ * index of every change they make to the copies table, and the index applies
+ * each change once the transaction that made it commits, so a rolled-back
+ * change never shows up here.
+ *
+ * <p>Changes made to the table in other ways (by hand, by another instance of
+ * the application, or by the database cascading a deletion of an author or
+ * publisher to their books) are not seen until the index is next reconciled
+ * with the database, which happens on the schedule given by the
+ * {@code library.availability.reconcile} property (a cron expression, or "-" to
+ * never reconcile after the initial load). Reconciliation reloads the whole
+ * table without blocking readers; any count the services change while it runs
+ * keeps the value they gave it.
+ *
+ * @author Jonathan Lovelace
+ */
+@Component
+public class AvailabilityIndex {
+	/**
+	 * Logger for handling errors in the DAO layer.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(AvailabilityIndex.class.getName());
+
+	/**
+	 * The DAO for the "copies" table.
+	 */
+	@Autowired
+	private CopiesDao copiesDao;
+	/**
+	 * Transaction manager, to load the table in a read-only transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Guards {@link #counts}, {@link #branchIds}, {@link #touched}, and
+	 * {@link #removals}.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * The number of copies of each book at each branch.
+	 */
+	private CopiesCountMap counts = new CopiesCountMap(0);
+	/**
+	 * The IDs, in ascending order, of every branch that has (or recently had)
+	 * copies of anything. To find the branches holding a book, we look the book
+	 * up at each of these; there are few enough branches that this is far
+	 * cheaper than keeping a second map by book.
+	 */
+	private int[] branchIds = new int[0];
+	/**
+	 * Whether {@link #counts} has been loaded from the database.
+	 */
+	private volatile boolean loaded;
+	/**
+	 * While a reconciliation is running, the (branch, book) pairs changed since
+	 * it started; otherwise null.
+	 */
+	private CopiesCountMap touched;
+	/**
+	 * While a reconciliation is running, the removals of whole books and
+	 * branches since it started, to be replayed on the reloaded table;
+	 * otherwise null.
+	 */
+	private List<Runnable> removals;
+
+	/**
+	 * Load the index once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		reconcile();
+	}
+
+	/**
+	 * Reload the index from the database, logging how many counts had drifted
+	 * from it.
+	 */
+	@Scheduled(cron = "${library.availability.reconcile:0 0 * * * *}")
+	public void reconcile() {
+		lock.writeLock().lock();
+		try {
+			if (touched != null) {
+				return; // another reconciliation is already running
+			}
+			touched = new CopiesCountMap(0);
+			removals = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		CopiesCountMap fresh = null;
+		try {
+			fresh = load();
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while loading the availability index",
+					except);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				if (fresh != null) {
+					final CopiesCountMap current = counts;
+					final CopiesCountMap reloaded = fresh;
+					touched.forEach((branchId, bookId, ignored) -> reloaded.put(branchId,
+							bookId, current.get(branchId, bookId)));
+					counts = reloaded;
+					removals.forEach(Runnable::run);
+					branchIds = branchesIn(reloaded);
+					if (loaded) {
+						logDrift(current, reloaded);
+					} else {
+						LOGGER.info(() -> String.format(
+								"Availability index loaded: %d entries in %d KiB",
+								reloaded.size(), reloaded.footprint() / 1024));
+					}
+					loaded = true;
+				}
+				touched = null;
+				removals = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Read every copies count from the database into a new table.
+	 *
+	 * @return the new table
+	 */
+	private CopiesCountMap load() {
+		// Not read-only, so that with read replicas configured this reads the
+		// primary: a replica may not yet have the borrows and returns committed
+		// just before the load began, which the changes recorded during the load
+		// would not make up for.
+		final TransactionTemplate template = new TransactionTemplate(
+				transactionManager);
+		return template.execute(status -> {
+			final CopiesCountMap retval = new CopiesCountMap((int) copiesDao.count());
+			try (Stream<Object[]> stream = copiesDao.streamCounts()) {
+				stream.forEach(row -> retval.put(((Number) row[0]).intValue(),
+						((Number) row[1]).intValue(), ((Number) row[2]).intValue()));
+			}
+			return retval;
+		});
+	}
+
+	/**
+	 * Get the IDs of the branches with any entries in a table.
+	 *
+	 * @param table the table
+	 * @return the IDs of the branches in it, in ascending order
+	 */
+	private static int[] branchesIn(final CopiesCountMap table) {
+		// A table with one entry per branch serves as a set of branch IDs.
+		final CopiesCountMap seen = new CopiesCountMap(0);
+		table.forEach((branchId, bookId, count) -> seen.put(branchId, 1, 1));
+		final int[] retval = new int[seen.size()];
+		final int[] index = new int[1];
+		seen.forEach((branchId, ignored, count) -> retval[index[0]++] = branchId);
+		Arrays.sort(retval);
+		return retval;
+	}
+
+	/**
+	 * Log how many counts differed between the index before and after a
+	 * reconciliation, if any did.
+	 *
+	 * @param before the index before
+	 * @param after  the index after
+	 */
+	private static void logDrift(final CopiesCountMap before,
+			final CopiesCountMap after) {
+		final int[] drift = new int[1];
+		after.forEach((branchId, bookId, count) -> {
+			if (before.get(branchId, bookId) != count) {
+				drift[0]++;
+			}
+		});
+		before.forEach((branchId, bookId, count) -> {
+			if (after.get(branchId, bookId) == 0) {
+				drift[0]++;
+			}
+		});
+		if (drift[0] > 0) {
+			LOGGER.warning(() -> String.format(
+					"Availability index corrected %d of %d counts from the database",
+					drift[0], after.size()));
+		}
+	}
+
+	/**
+	 * Get the number of copies of a book held by a branch.
+	 *
+	 * @param branch the branch in question
+	 * @param book   the book in question
+	 * @return the number of copies that branch holds; if none, 0
+	 */
+	public int getCopies(final Branch branch, final Book book) {
+		if (!loaded) {
+			return copiesDao.getCopies(branch, book);
+		}
+		lock.readLock().lock();
+		try {
+			return counts.get(branch.getId(), book.getId());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the branches that hold any copies of a book, and how many copies each
+	 * holds.
+	 *
+	 * @param book the book in question
+	 * @return the number of copies each branch holding the book holds, by branch
+	 *         ID, with the branch holding the most copies first
+	 */
+	public Map<Integer, Integer> getBookCopies(final Book book) {
+		final Map<Integer, Integer> retval = new LinkedHashMap<>();
+		if (!loaded) {
+			for (final BranchCopies copies : copiesDao.findAvailableByBook(book)) {
+				retval.put(copies.getBranch().getId(), copies.getCopies());
+			}
+			return retval;
+		}
+		final List<int[]> found = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (final int branchId : branchIds) {
+				final int count = counts.get(branchId, book.getId());
+				if (count > 0) {
+					found.add(new int[] {branchId, count});
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		found.sort(Comparator.<int[]>comparingInt(pair -> -pair[1])
+				.thenComparingInt(pair -> pair[0]));
+		for (final int[] pair : found) {
+			retval.put(pair[0], pair[1]);
+		}
+		return retval;
+	}
+
+	/**
+	 * Record that the number of copies of a book held by a branch has been set,
+	 * once the current transaction (if any) commits.
+	 *
+	 * @param branchId the ID of the branch
+	 * @param bookId   the ID of the book
+	 * @param copies   the number of copies it now holds
+	 */
+	void copiesSet(final int branchId, final int bookId, final int copies) {
+		AfterCommit.run(() -> change(branchId, bookId, copies, false));
+	}
+
+	/**
+	 * Record that copies of a book have been added to or taken from a branch's
+	 * stock, once the current transaction (if any) commits.
+	 *
+	 * @param branchId the ID of the branch
+	 * @param bookId   the ID of the book
+	 * @param delta    the number of copies added, or negative if taken
+	 */
+	void copiesAdded(final int branchId, final int bookId, final int delta) {
+		AfterCommit.run(() -> change(branchId, bookId, delta, true));
+	}
+
+	/**
+	 * Record that a book, and so its copies records, has been deleted, once the
+	 * current transaction (if any) commits.
+	 *
+	 * @param bookId the ID of the book
+	 */
+	void bookRemoved(final int bookId) {
+		AfterCommit.run(() -> remove(() -> counts.removeBook(bookId)));
+	}
+
+	/**
+	 * Record that a branch, and so its copies records, has been deleted, once
+	 * the current transaction (if any) commits.
+	 *
+	 * @param branchId the ID of the branch
+	 */
+	void branchRemoved(final int branchId) {
+		AfterCommit.run(() -> remove(() -> {
+			counts.removeBranch(branchId);
+			final int index = Arrays.binarySearch(branchIds, branchId);
+			if (index >= 0) {
+				final int[] remaining = new int[branchIds.length - 1];
+				System.arraycopy(branchIds, 0, remaining, 0, index);
+				System.arraycopy(branchIds, index + 1, remaining, index,
+						remaining.length - index);
+				branchIds = remaining;
+			}
+		}));
+	}
+
+	/**
+	 * Change one count.
+	 *
+	 * @param branchId the ID of the branch
+	 * @param bookId   the ID of the book
+	 * @param value    the new count, or the change to it
+	 * @param relative whether the value is a change rather than the new count
+	 */
+	private void change(final int branchId, final int bookId, final int value,
+			final boolean relative) {
+		lock.writeLock().lock();
+		try {
+			final int count;
+			if (relative) {
+				count = counts.add(branchId, bookId, value);
+			} else {
+				counts.put(branchId, bookId, value);
+				count = value;
+			}
+			final int index = Arrays.binarySearch(branchIds, branchId);
+			if (count > 0 && index < 0) {
+				final int[] more = new int[branchIds.length + 1];
+				final int insertion = -index - 1;
+				System.arraycopy(branchIds, 0, more, 0, insertion);
+				more[insertion] = branchId;
+				System.arraycopy(branchIds, insertion, more, insertion + 1,
+						branchIds.length - insertion);
+				branchIds = more;
+			}
+			if (touched != null) {
+				touched.put(branchId, bookId, 1);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove the counts of a whole book or branch.
+	 *
+	 * @param removal the removal, which acts on whatever table is then current
+	 */
+	private void remove(final Runnable removal) {
+		lock.writeLock().lock();
+		try {
+			removal.run();
+			if (removals != null) {
+				removals.add(removal);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.st.novatech.springlms.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import com.st.novatech.springlms.exception.TransactionException;
@@ -9,7 +10,9 @@ import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Borrower;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesView;
 import com.st.novatech.springlms.model.Loan;
+import com.st.novatech.springlms.model.LoanView;
 
 /**
  * A service interface to ease the creation of a UI for borrowers (library
@@ -37,6 +40,28 @@ public interface BorrowerService extends Service {
 	Loan borrowBook(Borrower borrower, Book book, Branch branch,
 			LocalDateTime dateOut, LocalDate dueDate) throws TransactionException;
 
+	/**
+	 * Check out several books from the same branch to the same borrower at once,
+	 * all with the given date out and due date. Each book is checked out if the
+	 * branch has a copy available and the borrower does not already have it out
+	 * from that branch, whether or not the others can be.
+	 *
+	 * @param borrower the patron checking out the books
+	 * @param branch   the branch from which the books are being borrowed
+	 * @param bookIds  the IDs of the books being checked out; any repeats are
+	 *                 ignored
+	 * @param dateOut  the date the books are being checked out
+	 * @param dueDate  the date the books are due
+	 * @return the outcome for each distinct book ID, in the order they were
+	 *         given
+	 * @throws TransactionException if something occurs while attempting to
+	 *                              borrow the books, in which case none are
+	 *                              borrowed
+	 */
+	List<CheckoutResult> borrowBooks(Borrower borrower, Branch branch,
+			Collection<Integer> bookIds, LocalDateTime dateOut, LocalDate dueDate)
+			throws TransactionException;
+
 	/**
 	 * Get all book-copy counts for the given branch.
 	 *
@@ -46,6 +71,27 @@ public interface BorrowerService extends Service {
 	 */
 	List<BranchCopies> getAllBranchCopies(Branch branch) throws TransactionException;
 
+	/**
+	 * Get flat, read-only views of all book-copy counts for the given branch, in
+	 * order of book ID, built without loading the entities.
+	 *
+	 * @param branch the branch in question
+	 * @return views of the copies records for the requested branch
+	 * @throws TransactionException if something goes wrong with the retrieval
+	 */
+	List<CopiesView> getBranchCopiesViews(Branch branch) throws TransactionException;
+
+	/**
+	 * Get the copies records of the branches that have any copies of the given
+	 * book, the branch with the most copies first. This is answered from the
+	 * in-memory availability index, not the copies table.
+	 *
+	 * @param book the book in question
+	 * @return the copies records of the branches that have that book
+	 * @throws TransactionException if something goes wrong with the retrieval
+	 */
+	List<BranchCopies> getAvailableCopies(Book book) throws TransactionException;
+
 	/**
 	 * Handle a returned book: if there is an outstanding loan of the given book to
 	 * the given borrower from the given branch, and the book is not overdue, remove
@@ -63,6 +109,21 @@ public interface BorrowerService extends Service {
 	Boolean returnBook(Borrower borrower, Book book, Branch branch,
 			LocalDate returnDate) throws TransactionException;
 
+	/**
+	 * Handle many returned books at once, as when a book drop is emptied: each
+	 * outstanding loan that is not overdue is removed and the book put back into
+	 * the branch's stock, whether or not the others can be. A loan that another
+	 * request returns first is reported as not found, and its book is put back
+	 * only once.
+	 *
+	 * @param loans the IDs of the loans being returned; any repeats are ignored
+	 * @return the outcome for each distinct loan, in the order they were given
+	 * @throws TransactionException if something occurs while attempting to
+	 *                              return the books, in which case none are
+	 *                              returned
+	 */
+	List<ReturnResult> returnBooks(Collection<LoanKey> loans) throws TransactionException;
+
 	/**
 	 * Get all branches from which the borrower has an outstanding loan.
 	 *
@@ -81,6 +142,16 @@ public interface BorrowerService extends Service {
 	 */
 	List<Loan> getAllBorrowedBooks(Borrower borrower) throws TransactionException;
 
+	/**
+	 * Get flat, read-only views of all book loans the borrower has out from any
+	 * library branch, earliest due first, built without loading the entities.
+	 *
+	 * @param borrower in question
+	 * @return views of the borrower's outstanding loans
+	 * @throws TransactionException if something goes wrong with the retrieval
+	 */
+	List<LoanView> getLoanViews(Borrower borrower) throws TransactionException;
+
 	/**
 	 * Get the borrower with the specified card number.
 	 *
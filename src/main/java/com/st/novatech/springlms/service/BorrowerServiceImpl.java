@@ -3,17 +3,30 @@ package com.st.novatech.springlms.service;
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.st.novatech.springlms.dao.BookDao;
@@ -30,13 +43,21 @@ import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Borrower;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesIdentity;
+import com.st.novatech.springlms.model.CopiesView;
 import com.st.novatech.springlms.model.Loan;
+import com.st.novatech.springlms.model.LoanView;
 
 /**
  * The "service" class to help UIs for borrowers.
  *
+ * <p>Methods that only read run in read-only transactions: Hibernate neither
+ * flushes the session nor keeps snapshots of what they load for dirty
+ * checking, and the connection is marked read-only.
+ *
  * @author Jonathan Lovelace
  */
+@Transactional(rollbackFor = TransactionException.class)
 @Service("BorrowerService")
 public class BorrowerServiceImpl implements BorrowerService {
 	/**
@@ -54,11 +75,21 @@ public class BorrowerServiceImpl implements BorrowerService {
 	 */
 	@Autowired
 	private CopiesDao copiesDao;
+	/**
+	 * The in-memory index of the "copies" table, told of every change to it.
+	 */
+	@Autowired
+	private AvailabilityIndex availability;
 	/**
 	 * The DAO for the "borrowers" table.
 	 */
 	@Autowired
 	private BorrowerDao borrowerDao;
+	/**
+	 * The entity manager, from which we get the second-level cache.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
 	/**
 	 * The clock to get "the current time" from.
 	 */
@@ -73,26 +104,6 @@ public class BorrowerServiceImpl implements BorrowerService {
 	 */
 	@Autowired
 	private BookDao bookDao;
-	/**
-	 * The currently-active transaction, or null if not in a transaction.
-	 */
-	private volatile TransactionStatus transaction;
-	/**
-	 * The transaction manager provided by Spring.
-	 */
-	@Autowired
-	private PlatformTransactionManager transactionManager;
-
-	@Override
-	public void beginTransaction() throws TransactionException {
-		if (transaction == null) {
-			synchronized (this) {
-				if (transaction == null) {
-					transaction = transactionManager.getTransaction(null);
-				}
-			}
-		}
-	}
 
 	/**
 	 * To construct this service class, the caller must supply a clock to get "the
@@ -100,6 +111,7 @@ public class BorrowerServiceImpl implements BorrowerService {
 	 *
 	 * @param clock a clock (time-zone) to get "the current date".
 	 */
+	@Autowired
 	public BorrowerServiceImpl(final Clock clock) {
 		this.clock = clock;
 	}
@@ -111,26 +123,39 @@ public class BorrowerServiceImpl implements BorrowerService {
 		this(Clock.systemDefaultZone());
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Branch> getAllBranches() throws TransactionException {
 		try {
 			return branchDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE,  "Error while getting all branches", except);
-			throw rollback(new UnknownSQLException("Getting all branches failed", except));
+			throw new UnknownSQLException("Getting all branches failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Branch> getBranchesPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return branchDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of branches", except);
+			throw new UnknownSQLException("Getting branch records failed", except);
 		}
 	}
 
-	@Transactional
 	@Override
 	public Loan borrowBook(final Borrower borrower, final Book book,
 			final Branch branch, final LocalDateTime dateOut,
 			final LocalDate dueDate) throws TransactionException {
 		try {
+			// The availability index may be behind the database, so whether a copy
+			// is left is decided only by the conditional decrement.
 			if (loanDao.get(book, borrower, branch) == null) {
-				final int copies = copiesDao.getCopies(branch, book);
-				if (copies > 0) {
-					copiesDao.setCopies(branch, book, copies - 1);
+				if (copiesDao.checkOutCopy(branch, book) > 0) {
+					availability.copiesAdded(branch.getId(), book.getId(), -1);
 					return loanDao.create(book, borrower, branch, dateOut, dueDate);
 				} else {
 					return null;
@@ -140,10 +165,72 @@ public class BorrowerServiceImpl implements BorrowerService {
 			}
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while creating a loan record", except);
-			throw rollback(new InsertException("Creating a loan failed", except));
+			throw new InsertException("Creating a loan failed", except);
+		}
+	}
+
+	@Override
+	public List<CheckoutResult> borrowBooks(final Borrower borrower,
+			final Branch branch, final Collection<Integer> bookIds,
+			final LocalDateTime dateOut, final LocalDate dueDate)
+			throws TransactionException {
+		final Set<Integer> requested = new LinkedHashSet<>(bookIds);
+		if (requested.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			final Set<Integer> onLoan = new HashSet<>(
+					loanDao.findBookIdsOnLoan(borrower, branch, requested));
+			final Map<Integer, Book> available = new LinkedHashMap<>();
+			for (final BranchCopies copies : copiesDao.findAvailable(branch, requested)) {
+				if (!onLoan.contains(copies.getBook().getId())) {
+					available.put(copies.getBook().getId(), copies.getBook());
+				}
+			}
+			final List<Integer> candidates = new ArrayList<>(available.keySet());
+			// Another checkout may have taken the last copy since we looked, so
+			// whether we got one is decided by the conditional decrement.
+			final int[] taken = copiesDao.checkOutCopies(branch.getId(), candidates);
+			// A driver that does not report each statement's count leaves us no
+			// way to tell which copies were taken, so give up, rolling back the
+			// decrements, rather than lend copies that are not there.
+			for (final int count : taken) {
+				if (count < 0) {
+					LOGGER.severe("Driver did not report which copies were checked out");
+					throw new InsertException(
+							"Creating loans failed: copies checked out not known");
+				}
+			}
+			final Map<Integer, Loan> loans = new HashMap<>();
+			for (int i = 0; i < taken.length; i++) {
+				if (taken[i] > 0) {
+					availability.copiesAdded(branch.getId(), candidates.get(i), -1);
+					loans.put(candidates.get(i), new Loan(available.get(candidates.get(i)),
+							borrower, branch, dateOut, dueDate));
+				}
+			}
+			loanDao.insertAll(new ArrayList<>(loans.values()));
+			final List<CheckoutResult> results = new ArrayList<>(requested.size());
+			for (final Integer bookId : requested) {
+				if (loans.containsKey(bookId)) {
+					results.add(new CheckoutResult(bookId, CheckoutResult.Status.BORROWED,
+							loans.get(bookId)));
+				} else if (onLoan.contains(bookId)) {
+					results.add(new CheckoutResult(bookId,
+							CheckoutResult.Status.ALREADY_BORROWED, null));
+				} else {
+					results.add(new CheckoutResult(bookId,
+							CheckoutResult.Status.UNAVAILABLE, null));
+				}
+			}
+			return results;
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while creating loan records", except);
+			throw new InsertException("Creating loans failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<BranchCopies> getAllBranchCopies(final Branch branch)
 			throws TransactionException {
@@ -151,11 +238,63 @@ public class BorrowerServiceImpl implements BorrowerService {
 			return copiesDao.getAllBranchCopies(branch);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "Error while getting branch copies", except);
-			throw rollback(new UnknownSQLException("Getting branch copy records failed", except));
+			throw new UnknownSQLException("Getting branch copy records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<CopiesView> getBranchCopiesViews(final Branch branch)
+			throws TransactionException {
+		try {
+			return copiesDao.findViewsByBranch(branch.getId());
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "Error while getting branch copies", except);
+			throw new UnknownSQLException("Getting branch copy records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<BranchCopies> getAvailableCopies(final Book book)
+			throws TransactionException {
+		try {
+			final Map<Integer, Integer> copies = availability.getBookCopies(book);
+			final List<BranchCopies> retval = new ArrayList<>();
+			if (copies.isEmpty()) {
+				return retval;
+			}
+			// Branches are nearly always in the second-level cache, and are read
+			// from it one by one; any that are not are loaded in a single query.
+			final Cache cache = entityManager.getEntityManagerFactory().getCache();
+			final Map<Integer, Branch> branches = new HashMap<>();
+			final List<Integer> uncached = new ArrayList<>();
+			for (final Integer branchId : copies.keySet()) {
+				if (cache.contains(Branch.class, branchId)) {
+					branchDao.findById(branchId)
+							.ifPresent(branch -> branches.put(branchId, branch));
+				} else {
+					uncached.add(branchId);
+				}
+			}
+			if (!uncached.isEmpty()) {
+				for (final Branch branch : branchDao.findAllById(uncached)) {
+					branches.put(branch.getId(), branch);
+				}
+			}
+			for (final Map.Entry<Integer, Integer> entry : copies.entrySet()) {
+				final Branch branch = branches.get(entry.getKey());
+				if (branch != null) {
+					retval.add(new BranchCopies(book, branch, entry.getValue()));
+				}
+			}
+			return retval;
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "Error while getting book availability", except);
+			throw new RetrieveException("Getting book availability failed", except);
 		}
 	}
 
-	@Transactional
 	@Override
 	public Boolean returnBook(final Borrower borrower, final Book book,
 			final Branch branch, final LocalDate dueDate) throws TransactionException {
@@ -164,24 +303,26 @@ public class BorrowerServiceImpl implements BorrowerService {
 			loan = Optional.ofNullable(loanDao.get(book, borrower, branch));
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting loan details", except);
-			throw rollback(new UnknownSQLException("Getting loan details failed", except));
+			throw new UnknownSQLException("Getting loan details failed", except);
 		}
 		if (loan.isPresent()) {
 			if (LocalDate.now(clock).isAfter(loan.get().getDueDate())) {
 				return false;
 			} else {
+				// Remove the loan first, while it is still managed, so that
+				// deleting it does not need to look it up again.
 				try {
-					final int copies = copiesDao.getCopies(branch, book);
-					copiesDao.setCopies(branch, book, copies + 1);
+					loanDao.delete(loan.get());
 				} catch (final DataAccessException except) {
-					LOGGER.log(Level.SEVERE, "SQL error while incrementing copies on return", except);
-					throw rollback(new UnknownSQLException("Incrementing copies on return failed", except));
+					LOGGER.log(Level.SEVERE, "SQL error while removing a loan record", except);
+					throw new DeleteException("Removing loan record failed", except);
 				}
 				try {
-					loanDao.delete(loan.get());
+					copiesDao.returnCopy(branch, book);
+					availability.copiesAdded(branch.getId(), book.getId(), 1);
 				} catch (final DataAccessException except) {
-					LOGGER.log(Level.SEVERE, "SQL error while removing a loan record", except);
-					throw rollback(new DeleteException("Removing loan record failed", except));
+					LOGGER.log(Level.SEVERE, "SQL error while incrementing copies on return", except);
+					throw new UnknownSQLException("Incrementing copies on return failed", except);
 				}
 				return true;
 			}
@@ -191,91 +332,162 @@ public class BorrowerServiceImpl implements BorrowerService {
 	}
 
 	@Override
-	public List<Branch> getAllBranchesWithLoan(final Borrower borrower)
+	public List<ReturnResult> returnBooks(final Collection<LoanKey> loans)
 			throws TransactionException {
-		return getAllBorrowedBooks(borrower).parallelStream().map(Loan::getBranch)
-				.collect(Collectors.toList());
+		final Set<LoanKey> requested = new LinkedHashSet<>(loans);
+		if (requested.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final Map<LoanKey, Loan> found = new HashMap<>();
+		try {
+			for (final Loan loan : loanDao.findAllByIds(
+					requested.stream().map(LoanKey::getCardNo).collect(Collectors.toSet()),
+					requested.stream().map(LoanKey::getBranchId).collect(Collectors.toSet()),
+					requested.stream().map(LoanKey::getBookId).collect(Collectors.toSet()))) {
+				final LoanKey key = LoanKey.of(loan);
+				if (requested.contains(key)) {
+					found.put(key, loan);
+				}
+			}
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting loan details", except);
+			throw new UnknownSQLException("Getting loan details failed", except);
+		}
+		final LocalDate today = LocalDate.now(clock);
+		final Map<LoanKey, ReturnResult.Status> statuses = new HashMap<>();
+		final List<Loan> returning = new ArrayList<>();
+		for (final LoanKey key : requested) {
+			final Loan loan = found.get(key);
+			if (loan == null) {
+				statuses.put(key, ReturnResult.Status.NOT_FOUND);
+			} else if (today.isAfter(loan.getDueDate())) {
+				statuses.put(key, ReturnResult.Status.OVERDUE);
+			} else {
+				returning.add(loan);
+			}
+		}
+		final int[] deleted;
+		try {
+			deleted = loanDao.deleteBatch(returning);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while removing loan records", except);
+			throw new DeleteException("Removing loan records failed", except);
+		}
+		// Another request may have returned a loan since we looked it up, so only
+		// the loans this request actually deleted are restocked.
+		final Map<CopiesIdentity, Integer> restock = new HashMap<>();
+		for (int i = 0; i < deleted.length; i++) {
+			final Loan loan = returning.get(i);
+			if (deleted[i] < 0) {
+				LOGGER.severe("Driver did not report which loans were removed");
+				throw new DeleteException(
+						"Removing loan records failed: loans removed not known");
+			} else if (deleted[i] > 0) {
+				statuses.put(LoanKey.of(loan), ReturnResult.Status.RETURNED);
+				restock.merge(new CopiesIdentity(loan.getBook(), loan.getBranch()), 1,
+						Integer::sum);
+			} else {
+				statuses.put(LoanKey.of(loan), ReturnResult.Status.NOT_FOUND);
+			}
+		}
+		final List<ReturnResult> results = new ArrayList<>(requested.size());
+		for (final LoanKey key : requested) {
+			results.add(new ReturnResult(key, statuses.get(key)));
+		}
+		try {
+			copiesDao.restockCopies(restock);
+			restock.forEach((id, count) -> availability.copiesAdded(
+					id.getBranch().getId(), id.getBook().getId(), count));
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while incrementing copies on return", except);
+			throw new UnknownSQLException("Incrementing copies on return failed", except);
+		}
+		return results;
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public List<Loan> getAllBorrowedBooks(final Borrower borrower)
+	public List<Branch> getAllBranchesWithLoan(final Borrower borrower)
 			throws TransactionException {
 		try {
-			return loanDao.findAll().parallelStream()
-					.filter(loan -> borrower.equals(loan.getBorrower()))
-					.collect(Collectors.toList());
+			return loanDao.findBranchesByBorrower(borrower);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "SQL error while getting loan records", except);
-			throw rollback(new RetrieveException("Getting loan records failed", except));
+			LOGGER.log(Level.SEVERE, "SQL error while getting branches with loans", except);
+			throw new RetrieveException("Getting branches with loans failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public Borrower getBorrower(final int cardNo) throws TransactionException {
+	public List<Loan> getAllBorrowedBooks(final Borrower borrower)
+			throws TransactionException {
 		try {
-			return borrowerDao.findById(cardNo).orElse(null);
+			return loanDao.findByIdBorrower(borrower);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "SQL error while getting borrower details", except);
-			throw rollback(new RetrieveException("Unable to find the requested borrower", except));
+			LOGGER.log(Level.SEVERE, "SQL error while getting loan records", except);
+			throw new RetrieveException("Getting loan records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public void commit() throws TransactionException {
+	public List<LoanView> getLoanViews(final Borrower borrower)
+			throws TransactionException {
 		try {
-			synchronized (this) {
-				if (transaction != null) {
-					transactionManager.commit(transaction);
-					transaction = null;
-				}
-			}
+			return loanDao.findViewsByBorrower(borrower.getCardNo());
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Error of some kind while committing transaction", except);
-			throw new UnknownSQLException("Committing the transaction failed", except);
+			LOGGER.log(Level.SEVERE, "SQL error while getting loan records", except);
+			throw new RetrieveException("Getting loan records failed", except);
 		}
 	}
-	private <E extends Exception> E rollback(final E pending) {
+
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BORROWERS, unless = "#result == null")
+	@Override
+	public Borrower getBorrower(final int cardNo) throws TransactionException {
 		try {
-			transactionManager.rollback(transaction);
+			return borrowerDao.findById(cardNo).orElse(null);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Further error while rolling back transaction", except);
-			pending.addSuppressed(except);
-		}
-		synchronized (this) {
-			transaction = null;
+			LOGGER.log(Level.SEVERE, "SQL error while getting borrower details", except);
+			throw new RetrieveException("Unable to find the requested borrower", except);
 		}
-		return pending;
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BRANCHES, unless = "#result == null")
 	@Override
 	public Branch getBranch(final int branchId) throws TransactionException {
 		try {
 			return branchDao.findById(branchId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a branch", except);
-			throw rollback(new RetrieveException("Unable to find the requested branch", except));
+			throw new RetrieveException("Unable to find the requested branch", except);
 		}
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BOOKS, unless = "#result == null")
 	@Override
 	public Book getBook(final int bookId) throws TransactionException {
 		try {
 			return bookDao.findById(bookId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a book", except);
-			throw rollback(new RetrieveException("Unable to find the requested book", except));
+			throw new RetrieveException("Unable to find the requested book", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public Loan getLoan(final int cardNo, final int branchId, final int bookId) throws TransactionException {
 		try {
-			return loanDao.get(bookDao.findById(bookId).get(),
-					borrowerDao.findById(cardNo).get(),
-					branchDao.findById(branchId).get());
+			return loanDao.get(cardNo, branchId, bookId);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a Loan record", except);
-			throw rollback(new RetrieveException("Getting a Loan failed", except));
+			throw new RetrieveException("Getting a Loan failed", except);
 		}
 	}
 
@@ -298,6 +510,7 @@ public class BorrowerServiceImpl implements BorrowerService {
 				// TODO: throw IllegalArgumentException?
 			} else {
 				copiesDao.save(new BranchCopies(book, branch, noOfCopies));
+				availability.copiesSet(branch.getId(), book.getId(), noOfCopies);
 			}
 		} catch (final DataAccessException e) {
 			throw new UnknownSQLException("Error with setting copies", e);
@@ -317,7 +530,7 @@ public class BorrowerServiceImpl implements BorrowerService {
 			if (branch == null || book == null) {
 				return 0; // TODO: Throw IllegalArgumentException instead?
 			} else {
-				return copiesDao.getCopies(branch, book);
+				return availability.getCopies(branch, book);
 			}
 		} catch (final DataAccessException e) {
 			throw new RetrieveException("Error with getting copies");
@@ -0,0 +1,48 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * Names of the caches in which the services keep the results of looking up
+ * records by ID. A caller often looks up the same record several times in a
+ * request, and these records rarely change. Each cache must also be configured
+ * (size, expiry, and so on) in application.conf.
+ *
+ * <p>The caches hold copies of the records, not the records themselves. So a
+ * caller may modify a record it got from a service without affecting what the
+ * next caller gets, until it saves the change through the service, which
+ * evicts the record.
+ *
+ * <p>The lookups that fill these caches are not read-only transactions, so
+ * when read replicas are configured they still read the primary. A record read
+ * from a replica might be older than the last change to it, which has already
+ * evicted it, and would then be served from the cache until it expired.
+ *
+ * @author Jonathan Lovelace
+ */
+final class Caches {
+	/**
+	 * Books by ID.
+	 */
+	static final String BOOKS = "bookById";
+	/**
+	 * Authors by ID.
+	 */
+	static final String AUTHORS = "authorById";
+	/**
+	 * Publishers by ID.
+	 */
+	static final String PUBLISHERS = "publisherById";
+	/**
+	 * Branches by ID.
+	 */
+	static final String BRANCHES = "branchById";
+	/**
+	 * Borrowers by card number.
+	 */
+	static final String BORROWERS = "borrowerById";
+
+	/**
+	 * Do not instantiate.
+	 */
+	private Caches() {
+	}
+}
@@ -0,0 +1,37 @@
+package com.st.novatech.springlms.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.st.novatech.springlms.exception.TransactionException;
+
+/**
+ * A service to load large files of authors, publishers, books, or copies
+ * counts into the database.
+ *
+ * @author Jonathan Lovelace
+ */
+public interface CatalogImportService {
+	/**
+	 * Import every record in the given file. The file is read in chunks, which
+	 * are parsed in parallel and written to the database, in order, each in its
+	 * own transaction. How far the import has got is recorded in the database in
+	 * the same transaction as each chunk; if the import is interrupted,
+	 * importing the same file again resumes after the last committed chunk. The
+	 * record is removed once the whole file has been imported.
+	 *
+	 * @param source the file to import
+	 * @param kind   the kind of record it holds
+	 * @param format the format it is in
+	 * @return what the import did
+	 * @throws IOException              on error reading the file
+	 * @throws IllegalArgumentException if a line is not a valid record; the
+	 *                                  message gives its line number, and the
+	 *                                  chunks before it remain imported
+	 * @throws TransactionException     on error writing to the database; the
+	 *                                  chunks before the one that failed remain
+	 *                                  imported
+	 */
+	ImportSummary importFile(Path source, ImportKind kind, ImportFormat format)
+			throws IOException, TransactionException;
+}
@@ -0,0 +1,503 @@
+package com.st.novatech.springlms.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.st.novatech.springlms.dao.AuthorDao;
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.dao.CopiesDao;
+import com.st.novatech.springlms.dao.ImportProgressDao;
+import com.st.novatech.springlms.dao.PublisherDao;
+import com.st.novatech.springlms.exception.DeleteException;
+import com.st.novatech.springlms.exception.InsertException;
+import com.st.novatech.springlms.exception.RetrieveException;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Author;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.ImportProgress;
+import com.st.novatech.springlms.model.Publisher;
+
+/**
+ * An implementation of the catalog import service.
+ *
+ * <p>One thread reads the file, a chunk of lines at a time, and hands each
+ * chunk to a pool of threads to parse. The chunks are written to the database
+ * in the order they were read, each in its own transaction, through the DAOs'
+ * batch operations. At most a few chunks per parsing thread are held in memory
+ * at once, however large the file.
+ *
+ * <p>Authors and publishers are identified by name. The import remembers the
+ * ID of each name it has seen, so each is looked up or created only once per
+ * run; this is the only state that grows with the size of the file, and it
+ * grows only with the number of distinct names.
+ *
+ * <p>Unlike the other services, this is not transactional as a whole, as it
+ * commits each chunk separately. How much of the file has been imported is
+ * recorded in the same transaction as each chunk, so a chunk is never imported
+ * twice, however the import is interrupted.
+ *
+ * @author Jonathan Lovelace
+ */
+@Service("CatalogImportService")
+public class CatalogImportServiceImpl implements CatalogImportService {
+	/**
+	 * How many lines are parsed, and then written, together.
+	 */
+	private static final int CHUNK_LINES = 5000;
+	/**
+	 * How many chunks may be read ahead, per parsing thread, of the one being
+	 * written.
+	 */
+	private static final int CHUNKS_PER_THREAD = 2;
+	/**
+	 * Logger for handling errors in the DAO layer.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(CatalogImportService.class.getName());
+
+	/**
+	 * DAO to access the book table.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * DAO to access the author table.
+	 */
+	@Autowired
+	private AuthorDao authorDao;
+	/**
+	 * DAO to access the publisher table.
+	 */
+	@Autowired
+	private PublisherDao publisherDao;
+	/**
+	 * DAO to access the copies table.
+	 */
+	@Autowired
+	private CopiesDao copiesDao;
+	/**
+	 * DAO to access the progress of interrupted imports.
+	 */
+	@Autowired
+	private ImportProgressDao progressDao;
+	/**
+	 * The in-memory index of the "copies" table, told of every change to it.
+	 */
+	@Autowired
+	private AvailabilityIndex availability;
+	/**
+	 * The in-memory full-text index of the catalog, told of every book imported.
+	 */
+	@Autowired
+	private SearchIndex searchIndex;
+	/**
+	 * The in-memory index of titles and author names for typeahead suggestions,
+	 * told of every book and author imported.
+	 */
+	@Autowired
+	private SuggestIndex suggestIndex;
+	/**
+	 * Transaction manager, to commit each chunk in its own transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * A chunk of the file, parsed.
+	 */
+	private static final class Chunk {
+		/**
+		 * The number of the last line in the chunk, counting from 1.
+		 */
+		private final long lastLine;
+		/**
+		 * The fields of each record in the chunk.
+		 */
+		private final List<String[]> records;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param lastLine the number of the last line in the chunk
+		 * @param records  the fields of each record in the chunk
+		 */
+		Chunk(final long lastLine, final List<String[]> records) {
+			this.lastLine = lastLine;
+			this.records = records;
+		}
+	}
+
+	/**
+	 * The authors and publishers an import has seen, by name.
+	 */
+	private static final class Names {
+		/**
+		 * Authors by name.
+		 */
+		private final Map<String, Author> authors = new HashMap<>();
+		/**
+		 * Publishers by name.
+		 */
+		private final Map<String, Publisher> publishers = new HashMap<>();
+	}
+
+	@Override
+	public ImportSummary importFile(final Path source, final ImportKind kind,
+			final ImportFormat format) throws IOException, TransactionException {
+		final long start = System.nanoTime();
+		final String key = source.toAbsolutePath().normalize().toString();
+		final TransactionTemplate transactions = new TransactionTemplate(
+				transactionManager);
+		final long resumeAfter = readProgress(key, transactions);
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ExecutorService parsers = Executors.newFixedThreadPool(threads);
+		final Names names = new Names();
+		long line = 0;
+		long imported = 0;
+		try (BufferedReader reader = Files.newBufferedReader(source,
+				StandardCharsets.UTF_8)) {
+			while (line < resumeAfter && reader.readLine() != null) {
+				line++;
+			}
+			final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+			boolean more = true;
+			while (more || !pending.isEmpty()) {
+				while (more && pending.size() < threads * CHUNKS_PER_THREAD) {
+					final List<String> lines = new ArrayList<>(CHUNK_LINES);
+					String current;
+					while (lines.size() < CHUNK_LINES
+							&& (current = reader.readLine()) != null) {
+						lines.add(current);
+					}
+					if (lines.isEmpty()) {
+						more = false;
+					} else {
+						final long first = line + 1;
+						line += lines.size();
+						pending.add(parsers.submit(() -> parse(lines, first, kind, format)));
+					}
+				}
+				if (!pending.isEmpty()) {
+					final Chunk chunk = await(pending.remove());
+					imported += write(key, chunk, kind, names, transactions);
+				}
+			}
+		} finally {
+			parsers.shutdownNow();
+		}
+		clearProgress(key, transactions);
+		return new ImportSummary(resumeAfter, line - resumeAfter, imported,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * Wait for a chunk to be parsed.
+	 *
+	 * @param future the parsing of the chunk
+	 * @return the parsed chunk
+	 * @throws IOException if the thread is interrupted while waiting
+	 */
+	private static Chunk await(final Future<Chunk> future) throws IOException {
+		try {
+			return future.get();
+		} catch (final InterruptedException except) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing", except);
+		} catch (final ExecutionException except) {
+			if (except.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) except.getCause();
+			} else {
+				throw new IllegalStateException(except.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Parse a chunk of lines.
+	 *
+	 * @param lines  the lines
+	 * @param first  the number of the first of them
+	 * @param kind   the kind of record they hold
+	 * @param format the format they are in
+	 * @return the parsed chunk
+	 * @throws IllegalArgumentException if any line is not a valid record
+	 */
+	private static Chunk parse(final List<String> lines, final long first,
+			final ImportKind kind, final ImportFormat format) {
+		final List<String[]> records = new ArrayList<>(lines.size());
+		long number = first;
+		for (final String line : lines) {
+			if (!line.trim().isEmpty() && !line.startsWith("#")) {
+				try {
+					final String[] fields = format.split(line, kind);
+					for (int i = 0; i < fields.length; i++) {
+						if (fields[i].length() > kind.getWidth(i)) {
+							throw new IllegalArgumentException("Field " + (i + 1)
+									+ " is longer than " + kind.getWidth(i) + " characters");
+						}
+					}
+					if (fields[0].isEmpty()) {
+						throw new IllegalArgumentException("First field is blank");
+					}
+					if (kind == ImportKind.COPIES) {
+						for (final String field : fields) {
+							if (Integer.parseInt(field) < 0) {
+								throw new IllegalArgumentException("Negative number");
+							}
+						}
+					}
+					records.add(fields);
+				} catch (final IllegalArgumentException except) {
+					throw new IllegalArgumentException(
+							"Line " + number + ": " + except.getMessage(), except);
+				}
+			}
+			number++;
+		}
+		return new Chunk(first + lines.size() - 1, records);
+	}
+
+	/**
+	 * Write a parsed chunk to the database, in one transaction, along with the
+	 * number of lines of the file that are imported once it commits.
+	 *
+	 * @param key          the absolute path of the file
+	 * @param chunk        the chunk
+	 * @param kind         the kind of record it holds
+	 * @param names        the authors and publishers seen so far, which is
+	 *                     updated once the transaction commits
+	 * @param transactions the transaction template
+	 * @return the number of records written
+	 * @throws TransactionException on error writing to the database
+	 */
+	private int write(final String key, final Chunk chunk, final ImportKind kind,
+			final Names names, final TransactionTemplate transactions)
+			throws TransactionException {
+		final Names added = new Names();
+		try {
+			transactions.execute(status -> {
+				switch (kind) {
+				case AUTHORS:
+					resolveAuthors(column(chunk, 0), names, added);
+					break;
+				case PUBLISHERS:
+					final Map<String, Publisher> publishers = new LinkedHashMap<>();
+					for (final String[] record : chunk.records) {
+						publishers.putIfAbsent(record[0],
+								new Publisher(0, record[0], record[1], record[2]));
+					}
+					resolvePublishers(publishers, names, added);
+					break;
+				case BOOKS:
+					writeBooks(chunk, names, added);
+					break;
+				case COPIES:
+					final int size = chunk.records.size();
+					final int[] branchIds = new int[size];
+					final int[] bookIds = new int[size];
+					final int[] copies = new int[size];
+					for (int i = 0; i < size; i++) {
+						branchIds[i] = Integer.parseInt(chunk.records.get(i)[0]);
+						bookIds[i] = Integer.parseInt(chunk.records.get(i)[1]);
+						copies[i] = Integer.parseInt(chunk.records.get(i)[2]);
+					}
+					copiesDao.setAllCopies(branchIds, bookIds, copies);
+					for (int i = 0; i < size; i++) {
+						availability.copiesSet(branchIds[i], bookIds[i], copies[i]);
+					}
+					break;
+				default:
+					throw new IllegalStateException("Unhandled kind of record");
+				}
+				progressDao.save(new ImportProgress(key, chunk.lastLine));
+				return null;
+			});
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while importing records up to line "
+					+ chunk.lastLine, except);
+			throw new InsertException(
+					"Importing records up to line " + chunk.lastLine + " failed", except);
+		}
+		names.authors.putAll(added.authors);
+		names.publishers.putAll(added.publishers);
+		return chunk.records.size();
+	}
+
+	/**
+	 * Get the distinct non-blank values of one field of a chunk's records.
+	 *
+	 * @param chunk the chunk
+	 * @param field the index of the field
+	 * @return its distinct non-blank values, in the order they first appear
+	 */
+	private static Set<String> column(final Chunk chunk, final int field) {
+		final Set<String> retval = new LinkedHashSet<>();
+		for (final String[] record : chunk.records) {
+			if (!record[field].isEmpty()) {
+				retval.add(record[field]);
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * Make sure there is an author with each of the given names, looking up in a
+	 * single query any not seen before, and creating in a batch any not found.
+	 *
+	 * @param wanted the names
+	 * @param names  the authors seen in earlier chunks
+	 * @param added  where to put those first seen in this chunk
+	 */
+	private void resolveAuthors(final Set<String> wanted, final Names names,
+			final Names added) {
+		final Set<String> unknown = new LinkedHashSet<>(wanted);
+		unknown.removeAll(names.authors.keySet());
+		if (unknown.isEmpty()) {
+			return;
+		}
+		for (final Author author : authorDao.findByNameIn(unknown)) {
+			added.authors.putIfAbsent(author.getName(), author);
+		}
+		unknown.removeAll(added.authors.keySet());
+		final List<Author> inserted = authorDao.insertAll(new ArrayList<>(unknown));
+		for (final Author author : inserted) {
+			added.authors.put(author.getName(), author);
+		}
+		suggestIndex.authorsSaved(inserted);
+	}
+
+	/**
+	 * Make sure there is a publisher with each of the given names, looking up in
+	 * a single query any not seen before, and creating in a batch any not found.
+	 *
+	 * @param wanted the publishers to create if none with their names exist, by
+	 *               name
+	 * @param names  the publishers seen in earlier chunks
+	 * @param added  where to put those first seen in this chunk
+	 */
+	private void resolvePublishers(final Map<String, Publisher> wanted,
+			final Names names, final Names added) {
+		final Map<String, Publisher> unknown = new LinkedHashMap<>(wanted);
+		unknown.keySet().removeAll(names.publishers.keySet());
+		if (unknown.isEmpty()) {
+			return;
+		}
+		for (final Publisher publisher : publisherDao.findByNameIn(unknown.keySet())) {
+			added.publishers.putIfAbsent(publisher.getName(), publisher);
+		}
+		unknown.keySet().removeAll(added.publishers.keySet());
+		for (final Publisher publisher : publisherDao
+				.insertAll(new ArrayList<>(unknown.values()))) {
+			added.publishers.put(publisher.getName(), publisher);
+		}
+	}
+
+	/**
+	 * Write a chunk of books, and any authors and publishers they need.
+	 *
+	 * @param chunk the chunk
+	 * @param names the authors and publishers seen in earlier chunks
+	 * @param added where to put those first seen in this chunk
+	 */
+	private void writeBooks(final Chunk chunk, final Names names, final Names added) {
+		resolveAuthors(column(chunk, 1), names, added);
+		final Map<String, Publisher> publishers = new LinkedHashMap<>();
+		for (final String name : column(chunk, 2)) {
+			publishers.put(name, new Publisher(0, name, "", ""));
+		}
+		resolvePublishers(publishers, names, added);
+		final List<Book> books = new ArrayList<>(chunk.records.size());
+		for (final String[] record : chunk.records) {
+			books.add(new Book(0, record[0], lookup(record[1], names.authors, added.authors),
+					lookup(record[2], names.publishers, added.publishers)));
+		}
+		final List<Book> inserted = bookDao.insertAll(books);
+		searchIndex.booksSaved(inserted);
+		suggestIndex.booksSaved(inserted);
+	}
+
+	/**
+	 * Look up an author or publisher by name.
+	 *
+	 * @param <T>     the type of thing to look up
+	 * @param name    its name, or the empty string if none
+	 * @param earlier those seen in earlier chunks
+	 * @param added   those first seen in this chunk
+	 * @return the one with that name, or null if the name is blank
+	 */
+	private static <T> T lookup(final String name, final Map<String, T> earlier,
+			final Map<String, T> added) {
+		if (name.isEmpty()) {
+			return null;
+		} else if (earlier.containsKey(name)) {
+			return earlier.get(name);
+		} else {
+			return added.get(name);
+		}
+	}
+
+	/**
+	 * Read how many lines of a file an earlier, interrupted, import of it
+	 * committed.
+	 *
+	 * @param key          the absolute path of the file
+	 * @param transactions the transaction template
+	 * @return the number of lines committed, or 0 if there was no such import
+	 * @throws TransactionException on error reading the database
+	 */
+	private long readProgress(final String key,
+			final TransactionTemplate transactions) throws TransactionException {
+		try {
+			return transactions.execute(status -> progressDao.findById(key)
+					.map(ImportProgress::getLastLine).orElse(0L));
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while reading import progress", except);
+			throw new RetrieveException("Reading import progress failed", except);
+		}
+	}
+
+	/**
+	 * Forget the progress of an import once the whole file has been imported.
+	 *
+	 * @param key          the absolute path of the file
+	 * @param transactions the transaction template
+	 * @throws TransactionException on error writing to the database
+	 */
+	private void clearProgress(final String key,
+			final TransactionTemplate transactions) throws TransactionException {
+		try {
+			transactions.execute(status -> {
+				progressDao.findById(key).ifPresent(progressDao::delete);
+				return null;
+			});
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while clearing import progress", except);
+			throw new DeleteException("Clearing import progress failed", except);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.st.novatech.springlms.service;
+
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * The outcome of trying to check out one book as part of a batch checkout.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class CheckoutResult {
+	/**
+	 * The possible outcomes.
+	 */
+	public enum Status {
+		/**
+		 * The book was checked out.
+		 */
+		BORROWED,
+		/**
+		 * The borrower already had the book out from that branch.
+		 */
+		ALREADY_BORROWED,
+		/**
+		 * The branch had no copies of the book available, or there is no such book.
+		 */
+		UNAVAILABLE
+	}
+
+	/**
+	 * The ID of the book.
+	 */
+	private final int bookId;
+	/**
+	 * What happened.
+	 */
+	private final Status status;
+	/**
+	 * The loan created, if the book was checked out.
+	 */
+	private final Loan loan;
+
+	/**
+	 * To construct a result, the caller must supply the book ID, what happened,
+	 * and the loan if one was created.
+	 *
+	 * @param bookId the ID of the book
+	 * @param status what happened
+	 * @param loan   the loan created, or null if none
+	 */
+	public CheckoutResult(final int bookId, final Status status, final Loan loan) {
+		this.bookId = bookId;
+		this.status = status;
+		this.loan = loan;
+	}
+
+	/**
+	 * Get the ID of the book the caller asked to check out.
+	 *
+	 * @return the ID of the book
+	 */
+	public int getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * Get what happened.
+	 *
+	 * @return whether the book was checked out, and if not why not
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get the loan created.
+	 *
+	 * @return the loan, or null if the book was not checked out
+	 */
+	public Loan getLoan() {
+		return loan;
+	}
+}
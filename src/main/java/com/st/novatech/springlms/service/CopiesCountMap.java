@@ -0,0 +1,328 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * A map from (branch ID, book ID) pairs to numbers of copies, specialized to
+ * primitives. Each pair is packed into a single {@code long} key, and keys and
+ * counts are kept in parallel arrays with open addressing and linear probing,
+ * so an entry costs twelve bytes (plus slack) and a lookup allocates nothing,
+ * where a {@code HashMap<CopiesIdentity, Integer>} would hold three or four
+ * objects per entry.
+ *
+ * <p>Only pairs with a positive count are stored; setting a count to zero
+ * removes the entry. As IDs are positive, the key 0 (branch 0, book 0) never
+ * occurs and marks an empty slot.
+ *
+ * <p>This class is not thread-safe; {@link AvailabilityIndex} guards it.
+ *
+ * @author Jonathan Lovelace
+ */
+final class CopiesCountMap {
+	/**
+	 * The key marking an empty slot.
+	 */
+	private static final long EMPTY = 0L;
+	/**
+	 * The smallest capacity of the table.
+	 */
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * The keys, each a branch ID in the high 32 bits and a book ID in the low 32
+	 * bits. The length is always a power of two.
+	 */
+	private long[] keys;
+	/**
+	 * The counts, in the slots of their keys.
+	 */
+	private int[] counts;
+	/**
+	 * The number of entries.
+	 */
+	private int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param expected the number of entries expected, to size the table so it
+	 *                 need not grow while they are added
+	 */
+	CopiesCountMap(final int expected) {
+		final int capacity = capacityFor(expected);
+		keys = new long[capacity];
+		counts = new int[capacity];
+	}
+
+	/**
+	 * A callback for {@link CopiesCountMap#forEach(Visitor)}.
+	 */
+	@FunctionalInterface
+	interface Visitor {
+		/**
+		 * Visit one entry.
+		 *
+		 * @param branchId the branch ID
+		 * @param bookId   the book ID
+		 * @param count    the number of copies, which is positive
+		 */
+		void visit(int branchId, int bookId, int count);
+	}
+
+	/**
+	 * Pack a branch ID and book ID into a key.
+	 *
+	 * @param branchId the branch ID
+	 * @param bookId   the book ID
+	 * @return the key
+	 */
+	static long key(final int branchId, final int bookId) {
+		return ((long) branchId << 32) | (bookId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Spread a key's bits, so that keys differing only in the branch ID do not
+	 * all land in neighbouring slots.
+	 *
+	 * @param key a key
+	 * @return its hash
+	 */
+	private static int hash(final long key) {
+		final long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+	/**
+	 * Get the smallest power-of-two capacity that keeps the given number of
+	 * entries at most half full.
+	 *
+	 * @param expected the number of entries
+	 * @return the capacity
+	 */
+	private static int capacityFor(final int expected) {
+		final long wanted = Math.max(MIN_CAPACITY, (long) expected * 2);
+		if (wanted > 1 << 30) {
+			throw new IllegalArgumentException("Too many entries for one table");
+		}
+		return Integer.highestOneBit((int) wanted - 1) << 1;
+	}
+
+	/**
+	 * Find the slot holding a key, or the empty slot where it would go.
+	 *
+	 * @param table the keys table to search
+	 * @param key   the key
+	 * @return the index of its slot
+	 */
+	private static int slot(final long[] table, final long key) {
+		final int mask = table.length - 1;
+		int index = hash(key) & mask;
+		while (table[index] != EMPTY && table[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Get the number of copies of a book at a branch.
+	 *
+	 * @param branchId the branch ID
+	 * @param bookId   the book ID
+	 * @return the number of copies, or 0 if none
+	 */
+	int get(final int branchId, final int bookId) {
+		final long key = key(branchId, bookId);
+		final int index = slot(keys, key);
+		return keys[index] == key ? counts[index] : 0;
+	}
+
+	/**
+	 * Set the number of copies of a book at a branch.
+	 *
+	 * @param branchId the branch ID
+	 * @param bookId   the book ID
+	 * @param count    the number of copies; zero or less removes the entry
+	 */
+	void put(final int branchId, final int bookId, final int count) {
+		final long key = key(branchId, bookId);
+		final int index = slot(keys, key);
+		if (keys[index] == key) {
+			if (count > 0) {
+				counts[index] = count;
+			} else {
+				removeAt(index);
+			}
+		} else if (count > 0) {
+			keys[index] = key;
+			counts[index] = count;
+			size++;
+			if (size * 2 > keys.length) {
+				resize(keys.length * 2);
+			}
+		}
+	}
+
+	/**
+	 * Add to (or, with a negative delta, take from) the number of copies of a
+	 * book at a branch.
+	 *
+	 * @param branchId the branch ID
+	 * @param bookId   the book ID
+	 * @param delta    the change in the number of copies
+	 * @return the new number of copies, or 0 if that would be negative
+	 */
+	int add(final int branchId, final int bookId, final int delta) {
+		final int count = Math.max(0, get(branchId, bookId) + delta);
+		put(branchId, bookId, count);
+		return count;
+	}
+
+	/**
+	 * Remove every entry for the given branch.
+	 *
+	 * @param branchId the branch ID
+	 */
+	void removeBranch(final int branchId) {
+		removeIf(key -> (int) (key >>> 32) == branchId);
+	}
+
+	/**
+	 * Remove every entry for the given book.
+	 *
+	 * @param bookId the book ID
+	 */
+	void removeBook(final int bookId) {
+		removeIf(key -> (int) key == bookId);
+	}
+
+	/**
+	 * A test of a key.
+	 */
+	@FunctionalInterface
+	private interface KeyPredicate {
+		/**
+		 * Test a key.
+		 *
+		 * @param key the key
+		 * @return whether it matches
+		 */
+		boolean test(long key);
+	}
+
+	/**
+	 * Remove every entry whose key matches. This walks the whole table, and then
+	 * rebuilds it, as removing entries one by one from the middle of probe
+	 * sequences as we walk could move unvisited entries behind us.
+	 *
+	 * @param predicate which keys to remove
+	 */
+	private void removeIf(final KeyPredicate predicate) {
+		final long[] oldKeys = keys;
+		final int[] oldCounts = counts;
+		int removed = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY && predicate.test(oldKeys[i])) {
+				removed++;
+			}
+		}
+		if (removed == 0) {
+			return;
+		}
+		final int capacity = capacityFor(size - removed);
+		keys = new long[capacity];
+		counts = new int[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY && !predicate.test(oldKeys[i])) {
+				insertNew(oldKeys[i], oldCounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry in a slot, moving later entries of the same probe run back
+	 * so that none of them is left unreachable behind an empty slot.
+	 *
+	 * @param index the slot
+	 */
+	private void removeAt(final int index) {
+		final int mask = keys.length - 1;
+		int hole = index;
+		int next = (hole + 1) & mask;
+		while (keys[next] != EMPTY) {
+			final int home = hash(keys[next]) & mask;
+			// Move the entry into the hole unless its home slot lies cyclically
+			// after the hole and at or before its current slot.
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				counts[hole] = counts[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		counts[hole] = 0;
+		size--;
+	}
+
+	/**
+	 * Add an entry whose key is known not to be present, without checking
+	 * whether the table needs to grow.
+	 *
+	 * @param key   the key
+	 * @param count the count
+	 */
+	private void insertNew(final long key, final int count) {
+		final int index = slot(keys, key);
+		keys[index] = key;
+		counts[index] = count;
+		size++;
+	}
+
+	/**
+	 * Move every entry into a table of the given capacity.
+	 *
+	 * @param capacity the new capacity, a power of two
+	 */
+	private void resize(final int capacity) {
+		final long[] oldKeys = keys;
+		final int[] oldCounts = counts;
+		keys = new long[capacity];
+		counts = new int[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				insertNew(oldKeys[i], oldCounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Visit every entry, in no particular order.
+	 *
+	 * @param visitor what to do with each entry
+	 */
+	void forEach(final Visitor visitor) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				visitor.visit((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of entries.
+	 *
+	 * @return the number of (branch, book) pairs with any copies
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get roughly how many bytes the table's arrays take up.
+	 *
+	 * @return the size of the arrays, in bytes
+	 */
+	long footprint() {
+		return (long) keys.length * (Long.BYTES + Integer.BYTES);
+	}
+}
@@ -0,0 +1,54 @@
+package com.st.novatech.springlms.service;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Helper for the service methods that hand every row of a large table to the
+ * caller one at a time, rather than building a list of them all. The exports
+ * run in read-only transactions, so with read replicas configured they read a
+ * replica, and may miss changes made in the last few seconds.
+ *
+ * @author Jonathan Lovelace
+ */
+final class Exports {
+	/**
+	 * How many entities to pass to the caller between clearing the persistence
+	 * context. Without this, every entity read would stay in the persistence
+	 * context, and so in memory, until the transaction ends.
+	 */
+	static final int CLEAR_INTERVAL = 500;
+
+	/**
+	 * Do not instantiate.
+	 */
+	private Exports() {
+	}
+
+	/**
+	 * Pass each entity in a stream to the given action, clearing the persistence
+	 * context every {@link #CLEAR_INTERVAL} entities. The action must not hold on
+	 * to the entities, or expect changes to them to be saved.
+	 *
+	 * @param <T>           the type of entity in the stream
+	 * @param stream        the stream of entities; the caller is responsible for
+	 *                      closing it
+	 * @param entityManager the entity manager that loaded them
+	 * @param action        what to do with each entity
+	 */
+	static <T> void forEach(final Stream<T> stream,
+			final EntityManager entityManager, final Consumer<? super T> action) {
+		final Iterator<T> iter = stream.iterator();
+		int count = 0;
+		while (iter.hasNext()) {
+			action.accept(iter.next());
+			count++;
+			if (count % CLEAR_INTERVAL == 0) {
+				entityManager.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.st.novatech.springlms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The formats a catalog import file may be in. Either way, each record is one
+ * line, and blank lines and lines beginning with '#' are ignored.
+ *
+ * @author Jonathan Lovelace
+ */
+public enum ImportFormat {
+	/**
+	 * Comma-separated values. A field may be enclosed in double quotes, in which
+	 * case it may contain commas, and a doubled quote stands for one quote; it
+	 * may not contain a line break.
+	 */
+	CSV {
+		@Override
+		String[] split(final String line, final ImportKind kind) {
+			final List<String> fields = new ArrayList<>(kind.getFieldCount());
+			final StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			for (int i = 0; i < line.length(); i++) {
+				final char ch = line.charAt(i);
+				if (quoted) {
+					if (ch != '"') {
+						field.append(ch);
+					} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						field.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else if (ch == '"') {
+					quoted = true;
+				} else if (ch == ',') {
+					fields.add(field.toString().trim());
+					field.setLength(0);
+				} else {
+					field.append(ch);
+				}
+			}
+			if (quoted) {
+				throw new IllegalArgumentException("Unterminated quoted field");
+			}
+			fields.add(field.toString().trim());
+			if (fields.size() != kind.getFieldCount()) {
+				throw new IllegalArgumentException("Expected " + kind.getFieldCount()
+						+ " fields but found " + fields.size());
+			}
+			return fields.toArray(new String[0]);
+		}
+	},
+	/**
+	 * Fixed-width fields, in the manner of the fixed fields of a MARC record:
+	 * each field takes exactly as many characters as
+	 * {@link ImportKind#getWidth(int)} gives, padded with spaces, except that
+	 * trailing spaces, and so trailing blank fields, may be left off.
+	 */
+	FIXED {
+		@Override
+		String[] split(final String line, final ImportKind kind) {
+			final String[] fields = new String[kind.getFieldCount()];
+			int start = 0;
+			for (int i = 0; i < fields.length; i++) {
+				final int end = Math.min(start + kind.getWidth(i), line.length());
+				fields[i] = line.substring(start, end).trim();
+				start = end;
+			}
+			if (start < line.length()) {
+				throw new IllegalArgumentException("Line longer than its fields");
+			}
+			return fields;
+		}
+	};
+
+	/**
+	 * Split a line into its fields, each with surrounding whitespace removed.
+	 *
+	 * @param line the line
+	 * @param kind the kind of record it holds
+	 * @return its fields
+	 * @throws IllegalArgumentException if the line does not hold a record of that
+	 *                                  kind in this format
+	 */
+	abstract String[] split(String line, ImportKind kind);
+}
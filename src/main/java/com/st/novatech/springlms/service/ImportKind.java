@@ -0,0 +1,61 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * The kinds of record a catalog import file may contain, one kind per file,
+ * and the fields of each, in order.
+ *
+ * @author Jonathan Lovelace
+ */
+public enum ImportKind {
+	/**
+	 * Authors: name.
+	 */
+	AUTHORS(45),
+	/**
+	 * Publishers: name, address, phone.
+	 */
+	PUBLISHERS(45, 45, 45),
+	/**
+	 * Books: title, author name, publisher name. The author and publisher may
+	 * be blank; if not, and none with that name exists, one is created.
+	 */
+	BOOKS(45, 45, 45),
+	/**
+	 * Copies counts: branch ID, book ID, number of copies.
+	 */
+	COPIES(11, 11, 11);
+
+	/**
+	 * The width of each field in the fixed-field format; these match the widths
+	 * of the database columns.
+	 */
+	private final int[] widths;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param widths the width of each field in the fixed-field format
+	 */
+	ImportKind(final int... widths) {
+		this.widths = widths;
+	}
+
+	/**
+	 * Get how many fields each record has.
+	 *
+	 * @return the number of fields per record
+	 */
+	public int getFieldCount() {
+		return widths.length;
+	}
+
+	/**
+	 * Get the width of a field in the fixed-field format.
+	 *
+	 * @param field the index of the field
+	 * @return its width in characters
+	 */
+	public int getWidth(final int field) {
+		return widths[field];
+	}
+}
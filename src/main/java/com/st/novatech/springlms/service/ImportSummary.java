@@ -0,0 +1,79 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * What a catalog import did.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class ImportSummary {
+	/**
+	 * How many lines of the file had been imported by an earlier, interrupted,
+	 * run, and so were skipped.
+	 */
+	private final long linesSkipped;
+	/**
+	 * How many lines of the file this run read.
+	 */
+	private final long linesRead;
+	/**
+	 * How many records this run wrote to the database.
+	 */
+	private final long recordsImported;
+	/**
+	 * How long this run took, in milliseconds.
+	 */
+	private final long elapsedMillis;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param linesSkipped    how many lines an earlier run had imported
+	 * @param linesRead       how many lines this run read
+	 * @param recordsImported how many records this run wrote
+	 * @param elapsedMillis   how long this run took, in milliseconds
+	 */
+	public ImportSummary(final long linesSkipped, final long linesRead,
+			final long recordsImported, final long elapsedMillis) {
+		this.linesSkipped = linesSkipped;
+		this.linesRead = linesRead;
+		this.recordsImported = recordsImported;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Get how many lines of the file had been imported by an earlier run.
+	 *
+	 * @return how many lines were skipped
+	 */
+	public long getLinesSkipped() {
+		return linesSkipped;
+	}
+
+	/**
+	 * Get how many lines of the file this run read, including blank lines and
+	 * comments.
+	 *
+	 * @return how many lines were read
+	 */
+	public long getLinesRead() {
+		return linesRead;
+	}
+
+	/**
+	 * Get how many records this run wrote to the database.
+	 *
+	 * @return how many records were imported
+	 */
+	public long getRecordsImported() {
+		return recordsImported;
+	}
+
+	/**
+	 * Get how long this run took.
+	 *
+	 * @return the time taken, in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+}
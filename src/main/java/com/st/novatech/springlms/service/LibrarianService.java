@@ -1,11 +1,15 @@
 package com.st.novatech.springlms.service;
 
 import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Pageable;
 
 import com.st.novatech.springlms.exception.TransactionException;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesView;
 
 /**
  * A service interface to ease the creation of a UI for librarians.
@@ -60,4 +64,54 @@ public interface LibrarianService extends Service {
 	 * @return the number of copies
 	 */
 	int getCopies(Book book,Branch branch) throws TransactionException;
+
+	/**
+	 * Get a page of the books in the database, in order of ID.
+	 *
+	 * @param after    only books with a greater ID than this are included; pass
+	 *                 the last ID of the previous page to get the next page, or
+	 *                 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of books
+	 */
+	List<Book> getBooksPage(int after, Pageable pageable) throws TransactionException;
+
+	/**
+	 * Get a page of the copy counts that branches have, in order of branch ID and
+	 * then book ID.
+	 *
+	 * @param afterBranch the branch ID of the last record of the previous page, or
+	 *                    0 to start at the beginning
+	 * @param afterBook   the book ID of the last record of the previous page, or 0
+	 *                    to start at the beginning
+	 * @param pageable    the size, and optionally the offset, of the page
+	 * @return the requested page of copy counts
+	 */
+	List<BranchCopies> getCopiesPage(int afterBranch, int afterBook, Pageable pageable)
+			throws TransactionException;
+
+	/**
+	 * Get a page of flat, read-only views of the copy counts that branches have,
+	 * paged as by {@link #getCopiesPage(int, int, Pageable)}, but built without
+	 * loading the entities.
+	 *
+	 * @param afterBranch the branch ID of the last record of the previous page, or
+	 *                    0 to start at the beginning
+	 * @param afterBook   the book ID of the last record of the previous page, or 0
+	 *                    to start at the beginning
+	 * @param pageable    the size, and optionally the offset, of the page
+	 * @return the requested page of views
+	 */
+	List<CopiesView> getCopiesViewPage(int afterBranch, int afterBook,
+			Pageable pageable) throws TransactionException;
+
+	/**
+	 * Pass every copies record in the database, in order of branch ID and then
+	 * book ID, to the given action, one at a time, without loading them all into
+	 * memory at once. The action must not hold on to the records or modify them.
+	 *
+	 * @param action what to do with each copies record
+	 */
+	void exportCopies(Consumer<? super BranchCopies> action)
+			throws TransactionException;
 }
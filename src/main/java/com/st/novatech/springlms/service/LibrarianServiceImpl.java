@@ -1,14 +1,22 @@
 package com.st.novatech.springlms.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.st.novatech.springlms.dao.BookDao;
 import com.st.novatech.springlms.dao.CopiesDao;
@@ -20,14 +28,19 @@ import com.st.novatech.springlms.exception.UpdateException;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Branch;
 import com.st.novatech.springlms.model.BranchCopies;
+import com.st.novatech.springlms.model.CopiesView;
 
 /**
  * The "service" class to help UIs for librarians.
  *
+ * <p>As in the other services, the methods that only read are read-only
+ * transactions, so what they load is not dirty-checked or flushed.
+ *
  * @author Jonathan Lovelace
  */
+@Transactional(rollbackFor = TransactionException.class)
 @Service
-public final class LibrarianServiceImpl implements LibrarianService {
+public class LibrarianServiceImpl implements LibrarianService {
 	/**
 	 * The DAO for the "branches" table.
 	 */
@@ -44,47 +57,51 @@ public final class LibrarianServiceImpl implements LibrarianService {
 	@Autowired
 	private CopiesDao copiesDao;
 	/**
-	 * Logger for handling errors in the DAO layer.
+	 * The in-memory index of the "copies" table, told of every change to it.
 	 */
-	private static final Logger LOGGER = Logger.getLogger(LibrarianService.class.getName());
+	@Autowired
+	private AvailabilityIndex availability;
 	/**
-	 * The currently-active transaction, or null if not in a transaction.
+	 * The entity manager, used to clear the persistence context during exports.
 	 */
-	private volatile TransactionStatus transaction;
+	@PersistenceContext
+	private EntityManager entityManager;
 	/**
-	 * The transaction manager provided by Spring.
+	 * Logger for handling errors in the DAO layer.
 	 */
-	@Autowired
-	private PlatformTransactionManager transactionManager;
+	private static final Logger LOGGER = Logger.getLogger(LibrarianService.class.getName());
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public void beginTransaction() throws TransactionException {
-		if (transaction == null) {
-			synchronized (this) {
-				if (transaction == null) {
-					transaction = transactionManager.getTransaction(null);
-				}
-			}
+	public List<Branch> getAllBranches() throws TransactionException {
+		try {
+			return branchDao.findAll();
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE,  "SQL error while getting all branches", except);
+			throw new UnknownSQLException("Getting all branches failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
-	public List<Branch> getAllBranches() throws TransactionException {
+	public List<Branch> getBranchesPage(final int after, final Pageable pageable)
+			throws TransactionException {
 		try {
-			return branchDao.findAll();
+			return branchDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
 		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE,  "SQL error while getting all branches", except);
-			throw rollback(new UnknownSQLException("Getting all branches failed", except));
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of branches", except);
+			throw new UnknownSQLException("Getting branch records failed", except);
 		}
 	}
 
+	@CacheEvict(cacheNames = Caches.BRANCHES, key = "#branch.id")
 	@Override
 	public void updateBranch(final Branch branch) throws TransactionException {
 		try {
 			branchDao.save(branch);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while updating a book", except);
-			throw rollback(new UpdateException("Updating book record failed", except));
+			throw new UpdateException("Updating book record failed", except);
 		}
 	}
 
@@ -93,32 +110,86 @@ public final class LibrarianServiceImpl implements LibrarianService {
 			final int noOfCopies) throws TransactionException {
 		try {
 			copiesDao.setCopies(branch, book, noOfCopies);
+			availability.copiesSet(branch.getId(), book.getId(), noOfCopies);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while setting copy records", except);
-			throw rollback(new UnknownSQLException("Setting copy records failed", except));
+			throw new UnknownSQLException("Setting copy records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<Book> getAllBooks() throws TransactionException {
 		try {
 			return bookDao.findAll();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting books", except);
-			throw rollback(new UnknownSQLException("Getting book records failed", except));
+			throw new UnknownSQLException("Getting book records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<Book> getBooksPage(final int after, final Pageable pageable)
+			throws TransactionException {
+		try {
+			return bookDao.findByIdGreaterThanOrderByIdAsc(after, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of books", except);
+			throw new UnknownSQLException("Getting book records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
 	@Override
 	public List<BranchCopies> getAllCopies() throws TransactionException {
 		try {
 			return copiesDao.getAllCopies();
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting copy records", except);
-			throw rollback(new UnknownSQLException("Getting copy records failed", except));
+			throw new UnknownSQLException("Getting copy records failed", except);
 		}
 	}
 
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<BranchCopies> getCopiesPage(final int afterBranch,
+			final int afterBook, final Pageable pageable) throws TransactionException {
+		try {
+			return copiesDao.findPageAfter(afterBranch, afterBook, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of copy records", except);
+			throw new UnknownSQLException("Getting copy records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public List<CopiesView> getCopiesViewPage(final int afterBranch,
+			final int afterBook, final Pageable pageable) throws TransactionException {
+		try {
+			return copiesDao.findViewPageAfter(afterBranch, afterBook, pageable);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while getting a page of copy records", except);
+			throw new UnknownSQLException("Getting copy records failed", except);
+		}
+	}
+
+	@Transactional(readOnly = true, rollbackFor = TransactionException.class)
+	@Override
+	public void exportCopies(final Consumer<? super BranchCopies> action)
+			throws TransactionException {
+		try (Stream<BranchCopies> stream = copiesDao.streamAll()) {
+			Exports.forEach(stream, entityManager, action);
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while exporting copy records", except);
+			throw new UnknownSQLException("Exporting copy records failed", except);
+		}
+	}
+
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BRANCHES, unless = "#result == null")
 	@Override
 	public Branch getbranch(final int branchId) throws TransactionException {
 		Branch foundbranch = null;
@@ -126,11 +197,14 @@ public final class LibrarianServiceImpl implements LibrarianService {
 			foundbranch = branchDao.findById(branchId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a branch", except);
-			throw rollback(new RetrieveException("Getting a branch failed", except));
+			throw new RetrieveException("Getting a branch failed", except);
 		}
 		return foundbranch;
 	}
 
+	// Not read-only, so it reads the primary; see Caches.
+	@Transactional(rollbackFor = TransactionException.class)
+	@Cacheable(cacheNames = Caches.BOOKS, unless = "#result == null")
 	@Override
 	public Book getBook(final int bookId) throws TransactionException {
 		Book foundbook = null;
@@ -138,37 +212,15 @@ public final class LibrarianServiceImpl implements LibrarianService {
 			foundbook = bookDao.findById(bookId).orElse(null);
 		} catch (final DataAccessException except) {
 			LOGGER.log(Level.SEVERE, "SQL error while getting a book", except);
-			throw rollback(new RetrieveException("Getting a book failed", except));
+			throw new RetrieveException("Getting a book failed", except);
 		}
 		return foundbook;
 	}
 
-	@Override
-	public void commit() throws TransactionException {
-		try {
-			synchronized (this) {
-				transactionManager.commit(transaction);
-				transaction = null;
-			}
-		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Error of some kind while committing transaction", except);
-			throw new UnknownSQLException("Committing the transaction failed", except);
-		}
-	}
-	private <E extends Exception> E rollback(final E pending) {
-		try {
-			transactionManager.rollback(transaction);
-		} catch (final DataAccessException except) {
-			LOGGER.log(Level.SEVERE, "Further error while rolling back transaction", except);
-			pending.addSuppressed(except);
-		}
-		synchronized (this) {
-			transaction = null;
-		}
-		return pending;
-	}
+	// Answered from the in-memory index, so it needs no connection.
+	@Transactional(propagation = Propagation.SUPPORTS)
 	@Override
 	public int getCopies(final Book book, final Branch branch) throws TransactionException {
-		return copiesDao.getCopies(branch, book);
+		return availability.getCopies(branch, book);
 	}
 }
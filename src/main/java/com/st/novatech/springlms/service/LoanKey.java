@@ -0,0 +1,105 @@
+package com.st.novatech.springlms.service;
+
+import java.util.Objects;
+
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * The IDs that identify a loan: the borrower's card number, the branch, and the
+ * book. Unlike {@link com.st.novatech.springlms.model.LoanIdentity}, this does
+ * not require the caller to have loaded the borrower, branch, and book.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class LoanKey {
+	/**
+	 * The card number of the borrower.
+	 */
+	private final int cardNo;
+	/**
+	 * The ID of the branch.
+	 */
+	private final int branchId;
+	/**
+	 * The ID of the book.
+	 */
+	private final int bookId;
+
+	/**
+	 * To construct a loan key, the caller must supply the three IDs.
+	 *
+	 * @param cardNo   the card number of the borrower
+	 * @param branchId the ID of the branch
+	 * @param bookId   the ID of the book
+	 */
+	public LoanKey(final int cardNo, final int branchId, final int bookId) {
+		this.cardNo = cardNo;
+		this.branchId = branchId;
+		this.bookId = bookId;
+	}
+
+	/**
+	 * Get the key of the given loan.
+	 *
+	 * @param loan a loan
+	 * @return the IDs that identify it
+	 */
+	public static LoanKey of(final Loan loan) {
+		return new LoanKey(loan.getBorrower().getCardNo(), loan.getBranch().getId(),
+				loan.getBook().getId());
+	}
+
+	/**
+	 * Get the card number of the borrower.
+	 *
+	 * @return the borrower's card number
+	 */
+	public int getCardNo() {
+		return cardNo;
+	}
+
+	/**
+	 * Get the ID of the branch.
+	 *
+	 * @return the branch's ID
+	 */
+	public int getBranchId() {
+		return branchId;
+	}
+
+	/**
+	 * Get the ID of the book.
+	 *
+	 * @return the book's ID
+	 */
+	public int getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * An object is equal to this one iff it is a LoanKey with the same IDs.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof LoanKey) {
+			return cardNo == ((LoanKey) obj).getCardNo()
+					&& branchId == ((LoanKey) obj).getBranchId()
+					&& bookId == ((LoanKey) obj).getBookId();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(cardNo, branchId, bookId);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Loan of book %d from branch %d to borrower %d", bookId,
+				branchId, cardNo);
+	}
+}
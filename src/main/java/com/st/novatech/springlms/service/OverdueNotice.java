@@ -0,0 +1,144 @@
+package com.st.novatech.springlms.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * A notice to a borrower that a book they have out is overdue. This copies
+ * what it needs from the loan, so it stays valid after the loan has been
+ * detached from the persistence context.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class OverdueNotice {
+	/**
+	 * The borrower's card number.
+	 */
+	private final int cardNo;
+	/**
+	 * The borrower's name.
+	 */
+	private final String borrowerName;
+	/**
+	 * The ID of the book.
+	 */
+	private final int bookId;
+	/**
+	 * The title of the book.
+	 */
+	private final String title;
+	/**
+	 * The ID of the branch it was borrowed from.
+	 */
+	private final int branchId;
+	/**
+	 * The name of the branch it was borrowed from.
+	 */
+	private final String branchName;
+	/**
+	 * When the book was due.
+	 */
+	private final LocalDate dueDate;
+	/**
+	 * How many days overdue the book is.
+	 */
+	private final long daysOverdue;
+
+	/**
+	 * To construct a notice, the caller must supply the overdue loan and the
+	 * current date.
+	 *
+	 * @param loan  the overdue loan
+	 * @param today the current date
+	 */
+	public OverdueNotice(final Loan loan, final LocalDate today) {
+		cardNo = loan.getBorrower().getCardNo();
+		borrowerName = loan.getBorrower().getName();
+		bookId = loan.getBook().getId();
+		title = loan.getBook().getTitle();
+		branchId = loan.getBranch().getId();
+		branchName = loan.getBranch().getName();
+		dueDate = loan.getDueDate();
+		daysOverdue = ChronoUnit.DAYS.between(dueDate, today);
+	}
+
+	/**
+	 * Get the borrower's card number.
+	 *
+	 * @return the card number
+	 */
+	public int getCardNo() {
+		return cardNo;
+	}
+
+	/**
+	 * Get the borrower's name.
+	 *
+	 * @return the name
+	 */
+	public String getBorrowerName() {
+		return borrowerName;
+	}
+
+	/**
+	 * Get the ID of the book.
+	 *
+	 * @return the book ID
+	 */
+	public int getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * Get the title of the book.
+	 *
+	 * @return the title
+	 */
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * Get the ID of the branch the book was borrowed from.
+	 *
+	 * @return the branch ID
+	 */
+	public int getBranchId() {
+		return branchId;
+	}
+
+	/**
+	 * Get the name of the branch the book was borrowed from.
+	 *
+	 * @return the branch name
+	 */
+	public String getBranchName() {
+		return branchName;
+	}
+
+	/**
+	 * Get when the book was due.
+	 *
+	 * @return the due date
+	 */
+	public LocalDate getDueDate() {
+		return dueDate;
+	}
+
+	/**
+	 * Get how many days overdue the book is.
+	 *
+	 * @return the number of days since the due date
+	 */
+	public long getDaysOverdue() {
+		return daysOverdue;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Card %d (%s): \"%s\" from %s was due %s, %d days ago",
+				cardNo, borrowerName, title, branchName, dueDate, daysOverdue);
+	}
+}
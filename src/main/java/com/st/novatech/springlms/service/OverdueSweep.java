@@ -0,0 +1,137 @@
+package com.st.novatech.springlms.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.st.novatech.springlms.dao.BookLoansDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.exception.UnknownSQLException;
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * A background job that finds every overdue loan and produces a notice for
+ * each. The loans are read with an indexed query on the due date and streamed
+ * from the database, so only one chunk of them is ever in memory, however many
+ * loans there are.
+ *
+ * @author Jonathan Lovelace
+ */
+@Component
+public class OverdueSweep {
+	/**
+	 * How many notices to pass on at a time. The persistence context is cleared
+	 * after each chunk.
+	 */
+	static final int CHUNK_SIZE = Exports.CLEAR_INTERVAL;
+	/**
+	 * Logger for handling errors in the DAO layer, and for the notices
+	 * themselves until there is a way to deliver them.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(OverdueSweep.class.getName());
+
+	/**
+	 * The DAO for the "loans" table.
+	 */
+	@Autowired
+	private BookLoansDao loansDao;
+	/**
+	 * The entity manager, used to clear the persistence context between chunks.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+	/**
+	 * Transaction manager, to hold a read-only transaction open while streaming.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	/**
+	 * The clock to get "the current date" from.
+	 */
+	private final Clock clock;
+
+	/**
+	 * To construct the sweep, the caller must supply a clock to get "the current
+	 * date."
+	 *
+	 * @param clock a clock (time-zone) to get "the current date"
+	 */
+	public OverdueSweep(final Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Find the loans that are now overdue and log a notice for each.
+	 */
+	@Scheduled(cron = "${library.overdue.sweep:0 0 6 * * *}")
+	public void sweep() {
+		try {
+			final int count = sweep(chunk -> chunk.forEach(
+					notice -> LOGGER.info(notice::toString)));
+			LOGGER.info(() -> String.format("Overdue sweep sent %d notices", count));
+		} catch (final TransactionException except) {
+			LOGGER.log(Level.WARNING, "Overdue sweep failed", except);
+		}
+	}
+
+	/**
+	 * Find the loans that are now overdue, earliest due first, and pass notices
+	 * for them to the given action a chunk at a time. The action is called while
+	 * the loans are still being read, so it should not take long.
+	 *
+	 * @param action what to do with each chunk of notices
+	 * @return the number of notices produced
+	 * @throws TransactionException on error reading the loans
+	 */
+	public int sweep(final Consumer<? super List<OverdueNotice>> action)
+			throws TransactionException {
+		final LocalDate today = LocalDate.now(clock);
+		final TransactionTemplate template = new TransactionTemplate(
+				transactionManager);
+		// Read-only, so with read replicas configured this reads a replica: a
+		// loan returned in the last few seconds may still get a notice.
+		template.setReadOnly(true);
+		try {
+			return template.execute(status -> {
+				int count = 0;
+				List<OverdueNotice> chunk = new ArrayList<>(CHUNK_SIZE);
+				try (Stream<Loan> stream = loansDao.streamByDueDateBefore(today)) {
+					final Iterator<Loan> iter = stream.iterator();
+					while (iter.hasNext()) {
+						chunk.add(new OverdueNotice(iter.next(), today));
+						if (chunk.size() == CHUNK_SIZE) {
+							action.accept(chunk);
+							count += chunk.size();
+							chunk = new ArrayList<>(CHUNK_SIZE);
+							entityManager.clear();
+						}
+					}
+				}
+				if (!chunk.isEmpty()) {
+					action.accept(chunk);
+					count += chunk.size();
+				}
+				return count;
+			});
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while finding overdue loans", except);
+			throw new UnknownSQLException("Finding overdue loans failed", except);
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package com.st.novatech.springlms.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A radix trie (a trie in which each chain of single-child nodes is merged into
+ * one edge) counting how many times each key has been added, for suggesting
+ * the most common completions of a prefix.
+ *
+ * <p>Each node also records the highest count anywhere beneath it, so the
+ * {@code k} most common completions can be found by a best-first walk that
+ * visits only the branches that can contribute, rather than every key with
+ * the prefix.
+ *
+ * <p>This class is not thread-safe; {@link SuggestIndex} guards it.
+ *
+ * @author Jonathan Lovelace
+ */
+final class RadixTrie {
+	/**
+	 * Shared empty child array, so leaves cost nothing for children.
+	 */
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	/**
+	 * A node of the trie.
+	 */
+	private static final class Node {
+		/**
+		 * The characters on the edge leading to this node.
+		 */
+		private String label;
+		/**
+		 * The children, in order of the first character of their labels.
+		 */
+		private Node[] children = NO_CHILDREN;
+		/**
+		 * How many times the key ending here has been added, less the times it
+		 * has been removed; 0 if no key ends here.
+		 */
+		private int count;
+		/**
+		 * The key ending here, as it was first given (before normalization), or
+		 * null if no key ends here.
+		 */
+		private String display;
+		/**
+		 * The highest count of this node and any below it.
+		 */
+		private int best;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param label the characters on the edge leading to this node
+		 */
+		Node(final String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Find the child whose label starts with a character.
+		 *
+		 * @param first the character
+		 * @return the index of the child, or (-(insertion point) - 1) if none
+		 */
+		int find(final char first) {
+			int low = 0;
+			int high = children.length - 1;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				final char current = children[mid].label.charAt(0);
+				if (current < first) {
+					low = mid + 1;
+				} else if (current > first) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -low - 1;
+		}
+
+		/**
+		 * Recompute {@link #best} from this node's count and its children.
+		 */
+		void updateBest() {
+			int max = count;
+			for (final Node child : children) {
+				max = Math.max(max, child.best);
+			}
+			best = max;
+		}
+	}
+
+	/**
+	 * A completion found by {@link RadixTrie#top(String, int)}.
+	 */
+	static final class Completion {
+		/**
+		 * The key, as first given.
+		 */
+		private final String display;
+		/**
+		 * How many times it has been added.
+		 */
+		private final int count;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param display the key, as first given
+		 * @param count   how many times it has been added
+		 */
+		Completion(final String display, final int count) {
+			this.display = display;
+			this.count = count;
+		}
+
+		/**
+		 * Get the key, as first given.
+		 *
+		 * @return the key
+		 */
+		String getDisplay() {
+			return display;
+		}
+
+		/**
+		 * Get how many times the key has been added.
+		 *
+		 * @return the count
+		 */
+		int getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * The root, whose label is empty.
+	 */
+	private final Node root = new Node("");
+	/**
+	 * The number of distinct keys.
+	 */
+	private int size;
+	/**
+	 * The number of nodes, including the root.
+	 */
+	private int nodes = 1;
+
+	/**
+	 * Add a key once.
+	 *
+	 * @param key     the key, normalized; must not be empty
+	 * @param display the key as it should be shown, if not already present
+	 */
+	void add(final String key, final String display) {
+		add(root, key, 0, display);
+	}
+
+	/**
+	 * Add a key below a node.
+	 *
+	 * @param node    the node
+	 * @param key     the key
+	 * @param pos     how much of the key the path to the node has matched
+	 * @param display the key as it should be shown
+	 */
+	private void add(final Node node, final String key, final int pos,
+			final String display) {
+		if (pos == key.length()) {
+			if (node.count == 0) {
+				node.display = display;
+				size++;
+			}
+			node.count++;
+		} else {
+			final int index = node.find(key.charAt(pos));
+			if (index < 0) {
+				final Node leaf = new Node(key.substring(pos));
+				leaf.count = 1;
+				leaf.best = 1;
+				leaf.display = display;
+				final int insertion = -index - 1;
+				final Node[] children = new Node[node.children.length + 1];
+				System.arraycopy(node.children, 0, children, 0, insertion);
+				children[insertion] = leaf;
+				System.arraycopy(node.children, insertion, children, insertion + 1,
+						node.children.length - insertion);
+				node.children = children;
+				nodes++;
+				size++;
+			} else {
+				Node child = node.children[index];
+				final int common = commonPrefix(child.label, key, pos);
+				if (common < child.label.length()) {
+					// Split the edge where the key leaves it.
+					final Node middle = new Node(child.label.substring(0, common));
+					child.label = child.label.substring(common);
+					middle.children = new Node[] {child};
+					middle.best = child.best;
+					node.children[index] = middle;
+					nodes++;
+					child = middle;
+				}
+				add(child, key, pos + common, display);
+			}
+		}
+		node.updateBest();
+	}
+
+	/**
+	 * Get how many characters of a label match a key from a position on.
+	 *
+	 * @param label the label
+	 * @param key   the key
+	 * @param pos   where in the key to start
+	 * @return the length of the common prefix
+	 */
+	private static int commonPrefix(final String label, final String key,
+			final int pos) {
+		final int max = Math.min(label.length(), key.length() - pos);
+		int retval = 0;
+		while (retval < max && label.charAt(retval) == key.charAt(pos + retval)) {
+			retval++;
+		}
+		return retval;
+	}
+
+	/**
+	 * Remove one addition of a key, if it is present.
+	 *
+	 * @param key the key, normalized
+	 */
+	void remove(final String key) {
+		remove(root, key, 0);
+	}
+
+	/**
+	 * Remove one addition of a key below a node, and prune or merge any nodes
+	 * this leaves with no purpose.
+	 *
+	 * @param node the node
+	 * @param key  the key
+	 * @param pos  how much of the key the path to the node has matched
+	 * @return whether the key was found
+	 */
+	private boolean remove(final Node node, final String key, final int pos) {
+		if (pos == key.length()) {
+			if (node.count == 0) {
+				return false;
+			}
+			node.count--;
+			if (node.count == 0) {
+				node.display = null;
+				size--;
+			}
+			node.updateBest();
+			return true;
+		}
+		final int index = node.find(key.charAt(pos));
+		if (index < 0) {
+			return false;
+		}
+		final Node child = node.children[index];
+		if (!key.startsWith(child.label, pos)
+				|| !remove(child, key, pos + child.label.length())) {
+			return false;
+		}
+		if (child.count == 0 && child.children.length == 0) {
+			final Node[] children = new Node[node.children.length - 1];
+			System.arraycopy(node.children, 0, children, 0, index);
+			System.arraycopy(node.children, index + 1, children, index,
+					children.length - index);
+			node.children = children.length == 0 ? NO_CHILDREN : children;
+			nodes--;
+		} else if (child.count == 0 && child.children.length == 1) {
+			final Node grandchild = child.children[0];
+			grandchild.label = child.label + grandchild.label;
+			node.children[index] = grandchild;
+			nodes--;
+		}
+		node.updateBest();
+		return true;
+	}
+
+	/**
+	 * Get the most often added keys starting with a prefix, most often added
+	 * first; keys added equally often come in alphabetical order of their
+	 * normalized form.
+	 *
+	 * @param prefix the prefix, normalized
+	 * @param limit  the most keys to return
+	 * @return the completions
+	 */
+	List<Completion> top(final String prefix, final int limit) {
+		Node node = root;
+		String path = "";
+		int pos = 0;
+		while (pos < prefix.length()) {
+			final int index = node.find(prefix.charAt(pos));
+			if (index < 0) {
+				return new ArrayList<>();
+			}
+			final Node child = node.children[index];
+			final int common = commonPrefix(child.label, prefix, pos);
+			if (common < child.label.length() && pos + common < prefix.length()) {
+				return new ArrayList<>(); // the prefix leaves the edge part-way
+			}
+			pos += common;
+			path += child.label;
+			node = child;
+		}
+		final PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator
+				.comparingInt((Candidate candidate) -> -candidate.priority)
+				.thenComparing(candidate -> candidate.path));
+		final List<Completion> retval = new ArrayList<>();
+		if (node.best > 0) {
+			queue.add(new Candidate(node, path, false));
+		}
+		while (!queue.isEmpty() && retval.size() < limit) {
+			final Candidate candidate = queue.poll();
+			final Node current = candidate.node;
+			if (candidate.terminal) {
+				retval.add(new Completion(current.display, current.count));
+			} else {
+				if (current.count > 0) {
+					queue.add(new Candidate(current, candidate.path, true));
+				}
+				for (final Node child : current.children) {
+					queue.add(new Candidate(child, candidate.path + child.label, false));
+				}
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * An entry in the queue of {@link RadixTrie#top(String, int)}: either the
+	 * key ending at a node, or the whole subtree below a node.
+	 */
+	private static final class Candidate {
+		/**
+		 * The node.
+		 */
+		private final Node node;
+		/**
+		 * The normalized characters on the path from the root to the node.
+		 * Candidates with equal priority are taken in order of this: the
+		 * candidates in the queue never overlap, and every key a subtree holds
+		 * starts with its path, so this puts keys added equally often in
+		 * alphabetical order however deep in the trie they are. A node's key is
+		 * queued with the same path as the subtree it was taken from, which is
+		 * no longer in the queue.
+		 */
+		private final String path;
+		/**
+		 * Whether this stands for the key ending at the node, rather than the
+		 * subtree.
+		 */
+		private final boolean terminal;
+		/**
+		 * The count of the key, if terminal, or else the best count in the
+		 * subtree.
+		 */
+		private final int priority;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param node     the node
+		 * @param path     the normalized characters on the path to the node
+		 * @param terminal whether this stands for the key ending at the node
+		 */
+		Candidate(final Node node, final String path, final boolean terminal) {
+			this.node = node;
+			this.path = path;
+			this.terminal = terminal;
+			priority = terminal ? node.count : node.best;
+		}
+	}
+
+	/**
+	 * Get the number of distinct keys.
+	 *
+	 * @return the number of keys
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return the number of nodes
+	 */
+	int nodes() {
+		return nodes;
+	}
+
+	/**
+	 * Estimate how many bytes the trie occupies, assuming a 64-bit JVM with
+	 * compressed object pointers and compact (one byte per character) strings.
+	 *
+	 * @return the estimated size of the trie, including its labels and display
+	 *         strings, in bytes
+	 */
+	long footprint() {
+		long total = 0;
+		final List<Node> stack = new ArrayList<>();
+		stack.add(root);
+		while (!stack.isEmpty()) {
+			final Node node = stack.remove(stack.size() - 1);
+			// Object header plus five fields, padded to eight bytes.
+			total += 40 + stringBytes(node.label) + stringBytes(node.display);
+			if (node.children.length > 0) {
+				total += align(16 + 4L * node.children.length);
+			}
+			for (final Node child : node.children) {
+				stack.add(child);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Estimate the size of a string.
+	 *
+	 * @param string the string, or null
+	 * @return its estimated size in bytes, or 0 if null
+	 */
+	private static long stringBytes(final String string) {
+		if (string == null) {
+			return 0;
+		}
+		// The String object, then its byte array.
+		return 24 + align(16 + string.length());
+	}
+
+	/**
+	 * Round a size up to a multiple of eight bytes.
+	 *
+	 * @param bytes the size
+	 * @return it rounded up
+	 */
+	private static long align(final long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
@@ -0,0 +1,82 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * The outcome of trying to return one book as part of a batch return.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class ReturnResult {
+	/**
+	 * The possible outcomes.
+	 */
+	public enum Status {
+		/**
+		 * The book was returned.
+		 */
+		RETURNED,
+		/**
+		 * The loan is overdue, so the book was not returned.
+		 */
+		OVERDUE,
+		/**
+		 * There is no such loan.
+		 */
+		NOT_FOUND
+	}
+
+	/**
+	 * The IDs identifying the loan.
+	 */
+	private final LoanKey loan;
+	/**
+	 * What happened.
+	 */
+	private final Status status;
+
+	/**
+	 * To construct a result, the caller must supply the loan and what happened.
+	 *
+	 * @param loan   the IDs identifying the loan
+	 * @param status what happened
+	 */
+	public ReturnResult(final LoanKey loan, final Status status) {
+		this.loan = loan;
+		this.status = status;
+	}
+
+	/**
+	 * Get the card number of the borrower returning the book.
+	 *
+	 * @return the borrower's card number
+	 */
+	public int getCardNo() {
+		return loan.getCardNo();
+	}
+
+	/**
+	 * Get the ID of the branch the book was borrowed from.
+	 *
+	 * @return the branch's ID
+	 */
+	public int getBranchId() {
+		return loan.getBranchId();
+	}
+
+	/**
+	 * Get the ID of the book being returned.
+	 *
+	 * @return the book's ID
+	 */
+	public int getBookId() {
+		return loan.getBookId();
+	}
+
+	/**
+	 * Get what happened.
+	 *
+	 * @return whether the book was returned, and if not why not
+	 */
+	public Status getStatus() {
+		return status;
+	}
+}
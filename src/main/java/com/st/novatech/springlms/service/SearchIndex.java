@@ -0,0 +1,560 @@
+package com.st.novatech.springlms.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.model.Author;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Publisher;
+
+/**
+ * An in-memory inverted index of the catalog, for full-text search over book
+ * titles and the names of their authors and publishers.
+ *
+ * <p>Each term (see {@link Terms}) maps to the IDs of the books it occurs in,
+ * with a weight for each: a term in the title counts for more than one in the
+ * author's name, which counts for more than one in the publisher's. A search
+ * finds the books that match every term of the query, and ranks them by the
+ * sum over the terms of that weight times the term's inverse document
+ * frequency, so rare terms count for more than common ones. A query term
+ * ending in {@code *} matches every indexed term it is a prefix of, at a
+ * discount against an exact match.
+ *
+ * <p>The index is built from the book table once the application has started,
+ * and until then searches find nothing. The services tell the index of every
+ * change they make to books, and to authors and publishers (whose names are
+ * indexed with their books), and it applies each change once the transaction
+ * that made it commits. Changes made to the database in other ways are not
+ * seen until {@link #rebuild()} is called.
+ *
+ * @author Jonathan Lovelace
+ */
+@Component
+public class SearchIndex {
+	/**
+	 * The weight of a term in a book's title.
+	 */
+	private static final int TITLE_WEIGHT = 3;
+	/**
+	 * The weight of a term in the name of a book's author.
+	 */
+	private static final int AUTHOR_WEIGHT = 2;
+	/**
+	 * The weight of a term in the name of a book's publisher.
+	 */
+	private static final int PUBLISHER_WEIGHT = 1;
+	/**
+	 * How much less a prefix match counts than an exact match.
+	 */
+	private static final double PREFIX_DISCOUNT = 0.5;
+	/**
+	 * The most indexed terms one prefix in a query may expand to; a
+	 * one-letter prefix could otherwise match much of the vocabulary.
+	 */
+	private static final int MAX_EXPANSIONS = 1000;
+	/**
+	 * How many books to read from the database at a time while building the
+	 * index.
+	 */
+	private static final int PAGE_SIZE = 1000;
+	/**
+	 * Logger for handling errors in the DAO layer.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+
+	/**
+	 * The DAO for the "books" table.
+	 */
+	@Autowired
+	private BookDao bookDao;
+
+	/**
+	 * Guards {@link #state} and {@link #pending}.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * The index.
+	 */
+	private State state = new State();
+	/**
+	 * Whether {@link #state} has been built from the database.
+	 */
+	private volatile boolean loaded;
+	/**
+	 * While a rebuild is running, the changes made since it started, to be
+	 * replayed on the rebuilt index; otherwise null.
+	 */
+	private List<Consumer<State>> pending;
+
+	/**
+	 * The books that one term occurs in, in order of ID, with the weight of the
+	 * term in each.
+	 */
+	private static final class Postings {
+		/**
+		 * The IDs of the books.
+		 */
+		private int[] ids = new int[2];
+		/**
+		 * The weight of the term in each book.
+		 */
+		private int[] weights = new int[2];
+		/**
+		 * The number of books.
+		 */
+		private int size;
+
+		/**
+		 * Add a book, or change its weight if already present. Books are mostly
+		 * added in order of ID, in which case this appends.
+		 *
+		 * @param id     the book's ID
+		 * @param weight the term's weight in it
+		 */
+		void put(final int id, final int weight) {
+			final int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				weights[index] = weight;
+				return;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+			}
+			final int insertion = -index - 1;
+			System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+			System.arraycopy(weights, insertion, weights, insertion + 1, size - insertion);
+			ids[insertion] = id;
+			weights[insertion] = weight;
+			size++;
+		}
+
+		/**
+		 * Remove a book, if present.
+		 *
+		 * @param id the book's ID
+		 */
+		void remove(final int id) {
+			final int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+				System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+				size--;
+			}
+		}
+	}
+
+	/**
+	 * What is indexed of one book.
+	 */
+	private static final class Entry {
+		/**
+		 * The book's title.
+		 */
+		private final String title;
+		/**
+		 * The ID of the book's author, or 0 if none.
+		 */
+		private final int authorId;
+		/**
+		 * The name of the book's author, or null if none.
+		 */
+		private final String author;
+		/**
+		 * The ID of the book's publisher, or 0 if none.
+		 */
+		private final int publisherId;
+		/**
+		 * The name of the book's publisher, or null if none.
+		 */
+		private final String publisher;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param title       the book's title
+		 * @param authorId    the ID of its author, or 0 if none
+		 * @param author      the name of its author, or null if none
+		 * @param publisherId the ID of its publisher, or 0 if none
+		 * @param publisher   the name of its publisher, or null if none
+		 */
+		Entry(final String title, final int authorId, final String author,
+				final int publisherId, final String publisher) {
+			this.title = title;
+			this.authorId = authorId;
+			this.author = author;
+			this.publisherId = publisherId;
+			this.publisher = publisher;
+		}
+
+		/**
+		 * Capture what is indexed of a book.
+		 *
+		 * @param book the book
+		 * @return what is indexed of it
+		 */
+		static Entry of(final Book book) {
+			final Author author = book.getAuthor();
+			final Publisher publisher = book.getPublisher();
+			return new Entry(book.getTitle(), author == null ? 0 : author.getId(),
+					author == null ? null : author.getName(),
+					publisher == null ? 0 : publisher.getId(),
+					publisher == null ? null : publisher.getName());
+		}
+
+		/**
+		 * Get the weight of each term in the book.
+		 *
+		 * @return the weight of each term, summed over its occurrences
+		 */
+		Map<String, Integer> weights() {
+			final Map<String, Integer> retval = new HashMap<>();
+			for (final String term : Terms.tokenize(title)) {
+				retval.merge(term, TITLE_WEIGHT, Integer::sum);
+			}
+			for (final String term : Terms.tokenize(author)) {
+				retval.merge(term, AUTHOR_WEIGHT, Integer::sum);
+			}
+			for (final String term : Terms.tokenize(publisher)) {
+				retval.merge(term, PUBLISHER_WEIGHT, Integer::sum);
+			}
+			return retval;
+		}
+	}
+
+	/**
+	 * The index proper.
+	 */
+	private static final class State {
+		/**
+		 * The books each term occurs in, by term.
+		 */
+		private final NavigableMap<String, Postings> postings = new TreeMap<>();
+		/**
+		 * What is indexed of each book, by ID.
+		 */
+		private final Map<Integer, Entry> entries = new HashMap<>();
+
+		/**
+		 * Index a book, replacing what was indexed of it before, if anything.
+		 *
+		 * @param id    the book's ID
+		 * @param entry what to index of it
+		 */
+		void put(final int id, final Entry entry) {
+			remove(id);
+			entries.put(id, entry);
+			entry.weights().forEach((term, weight) -> postings
+					.computeIfAbsent(term, key -> new Postings()).put(id, weight));
+		}
+
+		/**
+		 * Remove a book from the index, if present.
+		 *
+		 * @param id the book's ID
+		 */
+		void remove(final int id) {
+			final Entry entry = entries.remove(id);
+			if (entry != null) {
+				for (final String term : entry.weights().keySet()) {
+					final Postings list = postings.get(term);
+					if (list != null) {
+						list.remove(id);
+						if (list.size == 0) {
+							postings.remove(term);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Re-index, or remove, every book by the given author or publisher.
+		 *
+		 * @param byAuthor whether to match the author, rather than the publisher
+		 * @param id       the ID of the author or publisher
+		 * @param name     the new name, or null to remove the books
+		 */
+		void changeAll(final boolean byAuthor, final int id, final String name) {
+			final List<Map.Entry<Integer, Entry>> matching = new ArrayList<>();
+			for (final Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+				if ((byAuthor ? entry.getValue().authorId : entry.getValue().publisherId) == id) {
+					matching.add(entry);
+				}
+			}
+			for (final Map.Entry<Integer, Entry> entry : matching) {
+				final Entry old = entry.getValue();
+				if (name == null) {
+					remove(entry.getKey());
+				} else if (byAuthor) {
+					put(entry.getKey(), new Entry(old.title, id, name, old.publisherId,
+							old.publisher));
+				} else {
+					put(entry.getKey(), new Entry(old.title, old.authorId, old.author,
+							id, name));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Build the index once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		rebuild();
+	}
+
+	/**
+	 * Build the index afresh from the book table. Searches are served from the
+	 * old index until the new one is ready.
+	 */
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			if (pending != null) {
+				return; // a rebuild is already running
+			}
+			pending = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		final State fresh = new State();
+		boolean built = false;
+		try {
+			int after = 0;
+			List<Book> page;
+			do {
+				page = bookDao.findByIdGreaterThanOrderByIdAsc(after,
+						PageRequest.of(0, PAGE_SIZE));
+				for (final Book book : page) {
+					fresh.put(book.getId(), Entry.of(book));
+					after = book.getId();
+				}
+			} while (page.size() == PAGE_SIZE);
+			built = true;
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while building the search index", except);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				if (built) {
+					pending.forEach(change -> change.accept(fresh));
+					state = fresh;
+					loaded = true;
+					LOGGER.info(() -> String.format(
+							"Search index built: %d books, %d distinct terms",
+							fresh.entries.size(), fresh.postings.size()));
+				}
+				pending = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Search the catalog.
+	 *
+	 * @param query the words to search for; each may end in {@code *} to match
+	 *              any word it is a prefix of
+	 * @param limit the most results to return
+	 * @return the IDs of the books matching every word, best match first; empty
+	 *         if the query has no words, or the index has not yet been built
+	 */
+	public List<Integer> search(final String query, final int limit) {
+		final List<String> exact = new ArrayList<>();
+		final List<String> prefixes = new ArrayList<>();
+		for (final String word : query.trim().split("\\s+")) {
+			final List<String> terms = Terms.tokenize(word);
+			if (terms.isEmpty()) {
+				continue;
+			} else if (word.endsWith("*")) {
+				exact.addAll(terms.subList(0, terms.size() - 1));
+				prefixes.add(terms.get(terms.size() - 1));
+			} else {
+				exact.addAll(terms);
+			}
+		}
+		if ((exact.isEmpty() && prefixes.isEmpty()) || limit <= 0 || !loaded) {
+			return Collections.emptyList();
+		}
+		final List<Map<Integer, Double>> scores = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			final int total = state.entries.size();
+			for (final String term : exact) {
+				final Map<Integer, Double> termScores = new HashMap<>();
+				score(state.postings.get(term), total, 1.0, termScores);
+				scores.add(termScores);
+			}
+			for (final String prefix : prefixes) {
+				final Map<Integer, Double> termScores = new HashMap<>();
+				int expansions = 0;
+				for (final Map.Entry<String, Postings> entry : state.postings
+						.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+						.entrySet()) {
+					if (expansions++ >= MAX_EXPANSIONS) {
+						break;
+					}
+					score(entry.getValue(), total,
+							entry.getKey().equals(prefix) ? 1.0 : PREFIX_DISCOUNT, termScores);
+				}
+				scores.add(termScores);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		// Intersect starting from the rarest term, so the candidates are few.
+		scores.sort(Comparator.comparingInt(Map::size));
+		final Map<Integer, Double> combined = new HashMap<>(scores.get(0));
+		for (final Map<Integer, Double> termScores : scores.subList(1, scores.size())) {
+			combined.keySet().retainAll(termScores.keySet());
+			combined.replaceAll((id, score) -> score + termScores.get(id));
+		}
+		final Comparator<Map.Entry<Integer, Double>> ranking = Map.Entry
+				.<Integer, Double>comparingByValue()
+				.thenComparing(Map.Entry.<Integer, Double>comparingByKey(
+						Comparator.reverseOrder()));
+		final PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(ranking);
+		for (final Map.Entry<Integer, Double> entry : combined.entrySet()) {
+			best.add(entry);
+			if (best.size() > limit) {
+				best.poll();
+			}
+		}
+		final List<Integer> retval = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			retval.add(best.poll().getKey());
+		}
+		Collections.reverse(retval);
+		return retval;
+	}
+
+	/**
+	 * Add the score each book gets from one indexed term.
+	 *
+	 * @param list        the books the term occurs in, or null if none
+	 * @param total       the number of books in the index
+	 * @param factor      how much to scale the score by
+	 * @param accumulator the scores so far, by book ID, to add to
+	 */
+	private static void score(final Postings list, final int total,
+			final double factor, final Map<Integer, Double> accumulator) {
+		if (list == null) {
+			return;
+		}
+		final double idf = Math.log(1.0 + (double) total / list.size);
+		for (int i = 0; i < list.size; i++) {
+			accumulator.merge(list.ids[i], list.weights[i] * idf * factor, Double::sum);
+		}
+	}
+
+	/**
+	 * Apply a change to the index, and to the one being rebuilt if any.
+	 *
+	 * @param change the change
+	 */
+	private void apply(final Consumer<State> change) {
+		lock.writeLock().lock();
+		try {
+			change.accept(state);
+			if (pending != null) {
+				pending.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that books have been created or changed, once the current
+	 * transaction (if any) commits.
+	 *
+	 * @param books the books, as saved
+	 */
+	void booksSaved(final Collection<Book> books) {
+		final Map<Integer, Entry> entries = new LinkedHashMap<>();
+		for (final Book book : books) {
+			entries.put(book.getId(), Entry.of(book));
+		}
+		AfterCommit.run(() -> apply(index -> entries.forEach(index::put)));
+	}
+
+	/**
+	 * Record that a book has been deleted, once the current transaction (if any)
+	 * commits.
+	 *
+	 * @param bookId the ID of the book
+	 */
+	void bookRemoved(final int bookId) {
+		AfterCommit.run(() -> apply(index -> index.remove(bookId)));
+	}
+
+	/**
+	 * Record that an author has been renamed, once the current transaction (if
+	 * any) commits.
+	 *
+	 * @param author the author, as saved
+	 */
+	void authorSaved(final Author author) {
+		final int id = author.getId();
+		final String name = author.getName();
+		AfterCommit.run(() -> apply(index -> index.changeAll(true, id, name)));
+	}
+
+	/**
+	 * Record that an author, and so their books, have been deleted, once the
+	 * current transaction (if any) commits.
+	 *
+	 * @param authorId the ID of the author
+	 */
+	void authorRemoved(final int authorId) {
+		AfterCommit.run(() -> apply(index -> index.changeAll(true, authorId, null)));
+	}
+
+	/**
+	 * Record that a publisher has been renamed, once the current transaction (if
+	 * any) commits.
+	 *
+	 * @param publisher the publisher, as saved
+	 */
+	void publisherSaved(final Publisher publisher) {
+		final int id = publisher.getId();
+		final String name = publisher.getName();
+		AfterCommit.run(() -> apply(index -> index.changeAll(false, id, name)));
+	}
+
+	/**
+	 * Record that a publisher, and so their books, have been deleted, once the
+	 * current transaction (if any) commits.
+	 *
+	 * @param publisherId the ID of the publisher
+	 */
+	void publisherRemoved(final int publisherId) {
+		AfterCommit.run(() -> apply(index -> index.changeAll(false, publisherId, null)));
+	}
+}
@@ -2,12 +2,18 @@ package com.st.novatech.springlms.service;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+
 import com.st.novatech.springlms.exception.TransactionException;
 import com.st.novatech.springlms.model.Branch;
 
 /**
  * A base interface that all service interfaces extend.
  *
+ * <p>Implementations run each method in its own declarative transaction, bound
+ * to the calling thread, which commits when the method returns and rolls back
+ * if it throws; callers do not manage transactions themselves.
+ *
  * @author Salem Ozaki
  * @author Jonathan Lovelace
  */
@@ -19,12 +25,15 @@ public interface Service {
 	 * @return all the borrowers in the database.
 	 */
 	List<Branch> getAllBranches() throws TransactionException;
+
 	/**
-	 * Commit all outstanding operations to the database, if the backend supports transactions.
-	 */
-	void commit() throws TransactionException;
-	/**
-	 * Begin a transaction, if not already in one.
+	 * Get a page of the library branches in the database, in order of ID.
+	 *
+	 * @param after    only library branches with a greater ID than this are
+	 *                 included; pass the last ID of the previous page to get
+	 *                 the next page, or 0 to start at the beginning
+	 * @param pageable the size, and optionally the offset, of the page
+	 * @return the requested page of library branches
 	 */
-	void beginTransaction() throws TransactionException;
+	List<Branch> getBranchesPage(int after, Pageable pageable) throws TransactionException;
 }
@@ -0,0 +1,421 @@
+package com.st.novatech.springlms.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.st.novatech.springlms.dao.AuthorDao;
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.model.Author;
+import com.st.novatech.springlms.model.Book;
+
+/**
+ * In-memory prefix indexes of book titles and author names, for suggesting
+ * completions as the user types, without a {@code LIKE} query per keystroke.
+ *
+ * <p>Titles and names are normalized as by {@link Terms#normalize(String)} and
+ * kept in one {@link RadixTrie} each, counting how many books share each title
+ * and how many authors share each name; the most common completions are
+ * suggested first.
+ *
+ * <p>As with {@link SearchIndex}, the tries are built from the database once
+ * the application has started, and the services tell this index of every
+ * change to books and authors, which it applies once the change commits.
+ *
+ * @author Jonathan Lovelace
+ */
+@Component
+public class SuggestIndex {
+	/**
+	 * How many records to read from the database at a time while building the
+	 * index.
+	 */
+	private static final int PAGE_SIZE = 1000;
+	/**
+	 * Logger for handling errors in the DAO layer.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(SuggestIndex.class.getName());
+
+	/**
+	 * The DAO for the "books" table.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * The DAO for the "authors" table.
+	 */
+	@Autowired
+	private AuthorDao authorDao;
+
+	/**
+	 * Guards {@link #state} and {@link #pending}.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * The index.
+	 */
+	private State state = new State();
+	/**
+	 * While a rebuild is running, the changes made since it started, to be
+	 * replayed on the rebuilt index; otherwise null.
+	 */
+	private List<Consumer<State>> pending;
+
+	/**
+	 * What is indexed of one book.
+	 */
+	private static final class BookEntry {
+		/**
+		 * The book's title.
+		 */
+		private final String title;
+		/**
+		 * The ID of the book's author, or 0 if none.
+		 */
+		private final int authorId;
+		/**
+		 * The ID of the book's publisher, or 0 if none.
+		 */
+		private final int publisherId;
+
+		/**
+		 * Capture what is indexed of a book.
+		 *
+		 * @param book the book
+		 */
+		BookEntry(final Book book) {
+			title = book.getTitle();
+			authorId = book.getAuthor() == null ? 0 : book.getAuthor().getId();
+			publisherId = book.getPublisher() == null ? 0 : book.getPublisher().getId();
+		}
+	}
+
+	/**
+	 * The index proper.
+	 */
+	private static final class State {
+		/**
+		 * Book titles.
+		 */
+		private final RadixTrie titles = new RadixTrie();
+		/**
+		 * Author names.
+		 */
+		private final RadixTrie authors = new RadixTrie();
+		/**
+		 * What is indexed of each book, by ID, so that a changed or deleted book's
+		 * old title can be removed.
+		 */
+		private final Map<Integer, BookEntry> books = new HashMap<>();
+		/**
+		 * Each author's name, by ID.
+		 */
+		private final Map<Integer, String> authorNames = new HashMap<>();
+
+		/**
+		 * Add a key to a trie, unless it is blank.
+		 *
+		 * @param trie the trie
+		 * @param text the key, before normalization
+		 */
+		private static void add(final RadixTrie trie, final String text) {
+			final String key = Terms.normalize(text).trim();
+			if (!key.isEmpty()) {
+				trie.add(key, text.trim());
+			}
+		}
+
+		/**
+		 * Remove a key from a trie.
+		 *
+		 * @param trie the trie
+		 * @param text the key, before normalization, or null if none
+		 */
+		private static void remove(final RadixTrie trie, final String text) {
+			final String key = Terms.normalize(text).trim();
+			if (!key.isEmpty()) {
+				trie.remove(key);
+			}
+		}
+
+		/**
+		 * Index a book, replacing what was indexed of it before, if anything.
+		 *
+		 * @param id    the book's ID
+		 * @param entry what to index of it
+		 */
+		void putBook(final int id, final BookEntry entry) {
+			removeBook(id);
+			books.put(id, entry);
+			add(titles, entry.title);
+		}
+
+		/**
+		 * Remove a book, if present.
+		 *
+		 * @param id the book's ID
+		 */
+		void removeBook(final int id) {
+			final BookEntry old = books.remove(id);
+			if (old != null) {
+				remove(titles, old.title);
+			}
+		}
+
+		/**
+		 * Index an author, replacing their old name if any.
+		 *
+		 * @param id   the author's ID
+		 * @param name the author's name
+		 */
+		void putAuthor(final int id, final String name) {
+			final String old = authorNames.put(id, name);
+			if (old != null) {
+				remove(authors, old);
+			}
+			add(authors, name);
+		}
+
+		/**
+		 * Remove books whose author or publisher matches, as the database does
+		 * when that author or publisher is deleted.
+		 *
+		 * @param byAuthor whether to match the author, rather than the publisher
+		 * @param id       the ID of the author or publisher
+		 */
+		void removeBooksOf(final boolean byAuthor, final int id) {
+			final Iterator<BookEntry> iter = books.values().iterator();
+			while (iter.hasNext()) {
+				final BookEntry entry = iter.next();
+				if ((byAuthor ? entry.authorId : entry.publisherId) == id) {
+					remove(titles, entry.title);
+					iter.remove();
+				}
+			}
+		}
+
+		/**
+		 * Remove an author, and their books.
+		 *
+		 * @param id the author's ID
+		 */
+		void removeAuthor(final int id) {
+			final String old = authorNames.remove(id);
+			if (old != null) {
+				remove(authors, old);
+			}
+			removeBooksOf(true, id);
+		}
+	}
+
+	/**
+	 * Build the index once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		rebuild();
+	}
+
+	/**
+	 * Build the index afresh from the book and author tables. Suggestions are
+	 * served from the old index until the new one is ready.
+	 */
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			if (pending != null) {
+				return; // a rebuild is already running
+			}
+			pending = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		final State fresh = new State();
+		boolean built = false;
+		try {
+			int after = 0;
+			List<Author> authors;
+			do {
+				authors = authorDao.findByIdGreaterThanOrderByIdAsc(after,
+						PageRequest.of(0, PAGE_SIZE));
+				for (final Author author : authors) {
+					fresh.putAuthor(author.getId(), author.getName());
+					after = author.getId();
+				}
+			} while (authors.size() == PAGE_SIZE);
+			after = 0;
+			List<Book> books;
+			do {
+				books = bookDao.findByIdGreaterThanOrderByIdAsc(after,
+						PageRequest.of(0, PAGE_SIZE));
+				for (final Book book : books) {
+					fresh.putBook(book.getId(), new BookEntry(book));
+					after = book.getId();
+				}
+			} while (books.size() == PAGE_SIZE);
+			built = true;
+		} catch (final DataAccessException except) {
+			LOGGER.log(Level.SEVERE, "SQL error while building the suggestion index",
+					except);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				if (built) {
+					pending.forEach(change -> change.accept(fresh));
+					state = fresh;
+					LOGGER.info(() -> String.format(
+							"Suggestion index built: %d titles and %d author names in about %d KiB",
+							fresh.titles.size(), fresh.authors.size(),
+							(fresh.titles.footprint() + fresh.authors.footprint()) / 1024));
+				}
+				pending = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Suggest titles and author names starting with what the user has typed.
+	 *
+	 * @param prefix what the user has typed
+	 * @param limit  the most suggestions to return
+	 * @return the suggestions, those standing for the most records first, and
+	 *         otherwise in alphabetical order; empty if the prefix is blank
+	 */
+	public List<Suggestion> suggest(final String prefix, final int limit) {
+		final String key = Terms.normalize(prefix).replaceAll("^\\s+", "");
+		final List<Suggestion> retval = new ArrayList<>();
+		if (key.isEmpty() || limit <= 0) {
+			return retval;
+		}
+		lock.readLock().lock();
+		try {
+			for (final RadixTrie.Completion completion : state.titles.top(key, limit)) {
+				retval.add(new Suggestion(completion.getDisplay(), Suggestion.Kind.TITLE,
+						completion.getCount()));
+			}
+			for (final RadixTrie.Completion completion : state.authors.top(key, limit)) {
+				retval.add(new Suggestion(completion.getDisplay(), Suggestion.Kind.AUTHOR,
+						completion.getCount()));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		retval.sort(Comparator.comparingInt(Suggestion::getCount).reversed()
+				.thenComparing(suggestion -> Terms.normalize(suggestion.getText())));
+		return retval.size() > limit ? new ArrayList<>(retval.subList(0, limit)) : retval;
+	}
+
+	/**
+	 * Report how big the index is.
+	 *
+	 * @return the number of distinct titles and author names, the number of
+	 *         trie nodes, and the estimated memory used by the tries in bytes
+	 */
+	public Map<String, Long> footprint() {
+		final Map<String, Long> retval = new LinkedHashMap<>();
+		lock.readLock().lock();
+		try {
+			retval.put("titles", (long) state.titles.size());
+			retval.put("authors", (long) state.authors.size());
+			retval.put("nodes", (long) state.titles.nodes() + state.authors.nodes());
+			retval.put("bytes", state.titles.footprint() + state.authors.footprint());
+		} finally {
+			lock.readLock().unlock();
+		}
+		return retval;
+	}
+
+	/**
+	 * Apply a change to the index, and to the one being rebuilt if any.
+	 *
+	 * @param change the change
+	 */
+	private void apply(final Consumer<State> change) {
+		lock.writeLock().lock();
+		try {
+			change.accept(state);
+			if (pending != null) {
+				pending.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that books have been created or changed, once the current
+	 * transaction (if any) commits.
+	 *
+	 * @param books the books, as saved
+	 */
+	void booksSaved(final Collection<Book> books) {
+		final Map<Integer, BookEntry> entries = new LinkedHashMap<>();
+		for (final Book book : books) {
+			entries.put(book.getId(), new BookEntry(book));
+		}
+		AfterCommit.run(() -> apply(index -> entries.forEach(index::putBook)));
+	}
+
+	/**
+	 * Record that a book has been deleted, once the current transaction (if any)
+	 * commits.
+	 *
+	 * @param bookId the ID of the book
+	 */
+	void bookRemoved(final int bookId) {
+		AfterCommit.run(() -> apply(index -> index.removeBook(bookId)));
+	}
+
+	/**
+	 * Record that authors have been created or renamed, once the current
+	 * transaction (if any) commits.
+	 *
+	 * @param authors the authors, as saved
+	 */
+	void authorsSaved(final Collection<Author> authors) {
+		final Map<Integer, String> names = new LinkedHashMap<>();
+		for (final Author author : authors) {
+			names.put(author.getId(), author.getName());
+		}
+		AfterCommit.run(() -> apply(index -> names.forEach(index::putAuthor)));
+	}
+
+	/**
+	 * Record that an author, and so their books, have been deleted, once the
+	 * current transaction (if any) commits.
+	 *
+	 * @param authorId the ID of the author
+	 */
+	void authorRemoved(final int authorId) {
+		AfterCommit.run(() -> apply(index -> index.removeAuthor(authorId)));
+	}
+
+	/**
+	 * Record that a publisher, and so their books, have been deleted, once the
+	 * current transaction (if any) commits.
+	 *
+	 * @param publisherId the ID of the publisher
+	 */
+	void publisherRemoved(final int publisherId) {
+		AfterCommit.run(() -> apply(index -> index.removeBooksOf(false, publisherId)));
+	}
+}
@@ -0,0 +1,76 @@
+package com.st.novatech.springlms.service;
+
+/**
+ * A suggested completion of what a user has typed into a catalog search box.
+ *
+ * @author Jonathan Lovelace
+ */
+public final class Suggestion {
+	/**
+	 * What kind of thing is suggested.
+	 */
+	public enum Kind {
+		/**
+		 * A book title.
+		 */
+		TITLE,
+		/**
+		 * An author's name.
+		 */
+		AUTHOR
+	}
+
+	/**
+	 * The suggested text.
+	 */
+	private final String text;
+	/**
+	 * What kind of thing it is.
+	 */
+	private final Kind kind;
+	/**
+	 * How many books have that title, or authors that name.
+	 */
+	private final int count;
+
+	/**
+	 * To construct a suggestion, the caller must supply the text, its kind, and
+	 * how many records it stands for.
+	 *
+	 * @param text  the suggested text
+	 * @param kind  what kind of thing it is
+	 * @param count how many books have that title, or authors that name
+	 */
+	public Suggestion(final String text, final Kind kind, final int count) {
+		this.text = text;
+		this.kind = kind;
+		this.count = count;
+	}
+
+	/**
+	 * Get the suggested text.
+	 *
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Get what kind of thing is suggested.
+	 *
+	 * @return whether it is a title or an author's name
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Get how many records the suggestion stands for.
+	 *
+	 * @return how many books have that title, or authors that name
+	 */
+	public int getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,68 @@
+package com.st.novatech.springlms.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * How the in-memory catalog indexes break text into terms. Matching ignores
+ * case and accents, and treats anything other than letters and digits as a
+ * separator.
+ *
+ * @author Jonathan Lovelace
+ */
+final class Terms {
+	/**
+	 * The combining marks left behind when accented letters are decomposed.
+	 */
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	/**
+	 * Do not instantiate.
+	 */
+	private Terms() {
+	}
+
+	/**
+	 * Put text into the form in which it is indexed: lower case, with accents
+	 * removed.
+	 *
+	 * @param text the text, which may be null
+	 * @return it normalized, or the empty string if null
+	 */
+	static String normalize(final String text) {
+		if (text == null || text.isEmpty()) {
+			return "";
+		}
+		return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+				.replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Break text into terms.
+	 *
+	 * @param text the text, which may be null
+	 * @return its terms, normalized, in order, including any repeats
+	 */
+	static List<String> tokenize(final String text) {
+		final String normalized = normalize(text);
+		final List<String> retval = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i < normalized.length(); i++) {
+			if (Character.isLetterOrDigit(normalized.charAt(i))) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				retval.add(normalized.substring(start, i));
+				start = -1;
+			}
+		}
+		if (start >= 0) {
+			retval.add(normalized.substring(start));
+		}
+		return retval;
+	}
+}
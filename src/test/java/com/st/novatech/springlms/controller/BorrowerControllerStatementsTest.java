@@ -0,0 +1,187 @@
+package com.st.novatech.springlms.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.service.AdministratorService;
+import com.st.novatech.springlms.service.LibrarianService;
+
+/**
+ * Tests that checking a book out and returning it through the borrower
+ * controller issue a small, fixed number of SQL statements.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN" })
+public class BorrowerControllerStatementsTest {
+	/**
+	 * The most statements a checkout may issue: loading the borrower, book, and
+	 * branch; checking for an existing loan; decrementing the copy count and
+	 * removing an emptied row; and inserting the loan (with the lookup that
+	 * saving an entity with an assigned ID entails).
+	 */
+	private static final int MAX_CHECKOUT_STATEMENTS = 8;
+	/**
+	 * The most statements a return may issue: loading the borrower, book, and
+	 * branch; loading the loan; deleting it; and incrementing the copy count.
+	 */
+	private static final int MAX_RETURN_STATEMENTS = 6;
+	/**
+	 * How many of those statements load the book and the branch, which once
+	 * they are cached (by the services or by Hibernate) should not be loaded from
+	 * the database.
+	 */
+	private static final int CACHED_LOOKUPS = 2;
+
+	/**
+	 * Application context in which the test runs.
+	 */
+	@Autowired
+	private WebApplicationContext wac;
+	/**
+	 * Entity-manager factory, from which we get Hibernate's statistics.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	/**
+	 * Administrator service used to set up test data.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * Librarian service used to set up test data.
+	 */
+	@Autowired
+	private LibrarianService libService;
+	/**
+	 * UI mock-input provider.
+	 */
+	private MockMvc mockMvc;
+	/**
+	 * Hibernate's statement statistics.
+	 */
+	private Statistics statistics;
+
+	/**
+	 * Book used in tests.
+	 */
+	private Book book;
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+	/**
+	 * Borrower used in tests.
+	 */
+	private Borrower borrower;
+
+	/**
+	 * Set up the mock and test data before each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@BeforeEach
+	public void setUp() throws TransactionException {
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class)
+				.getStatistics();
+		book = adminService.createBook("counted book", null, null);
+		branch = adminService.createBranch("counted branch", "");
+		borrower = adminService.createBorrower("counted patron", "", "");
+		libService.setBranchCopies(branch, book, 2);
+	}
+
+	/**
+	 * Remove test data after each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@AfterEach
+	public void tearDown() throws TransactionException {
+		adminService.deleteBorrower(borrower);
+		adminService.deleteBook(book);
+		adminService.deleteBranch(branch);
+	}
+
+	/**
+	 * Get the path for a loan of the test book to the test borrower.
+	 *
+	 * @return the path to check out or return the test book
+	 */
+	private String loanPath() {
+		return String.format("/borrower/%d/branch/%d/book/%d", borrower.getCardNo(),
+				branch.getId(), book.getId());
+	}
+
+	/**
+	 * Test that a checkout and a return each issue a bounded number of
+	 * statements.
+	 *
+	 * @throws Exception if something goes wrong
+	 */
+	@DisplayName("Checkout and return issue a bounded number of statements")
+	@Test
+	public void testStatementCounts() throws Exception {
+		statistics.clear();
+		mockMvc.perform(post(loanPath())).andExpect(status().isCreated());
+		final long checkout = statistics.getPrepareStatementCount();
+		assertTrue(checkout <= MAX_CHECKOUT_STATEMENTS,
+				"Checkout issued " + checkout + " statements");
+		statistics.clear();
+		mockMvc.perform(delete(loanPath())).andExpect(status().isNoContent());
+		final long checkin = statistics.getPrepareStatementCount();
+		assertTrue(checkin <= MAX_RETURN_STATEMENTS,
+				"Return issued " + checkin + " statements");
+		assertEquals(2, libService.getCopies(book, branch),
+				"Copy count restored after return");
+	}
+
+	/**
+	 * Test that once the book and branch are cached, a checkout and a return get
+	 * them from the cache rather than from the database.
+	 *
+	 * @throws Exception if something goes wrong
+	 */
+	@DisplayName("Checkout and return take the book and branch from a cache")
+	@Test
+	public void testCachedStatementCounts() throws Exception {
+		mockMvc.perform(post(loanPath())).andExpect(status().isCreated());
+		mockMvc.perform(delete(loanPath())).andExpect(status().isNoContent());
+		statistics.clear();
+		mockMvc.perform(post(loanPath())).andExpect(status().isCreated());
+		final long checkout = statistics.getPrepareStatementCount();
+		assertTrue(checkout <= MAX_CHECKOUT_STATEMENTS - CACHED_LOOKUPS,
+				"Checkout issued " + checkout + " statements");
+		statistics.clear();
+		mockMvc.perform(delete(loanPath())).andExpect(status().isNoContent());
+		final long checkin = statistics.getPrepareStatementCount();
+		assertTrue(checkin <= MAX_RETURN_STATEMENTS - CACHED_LOOKUPS,
+				"Return issued " + checkin + " statements");
+	}
+}
@@ -0,0 +1,186 @@
+package com.st.novatech.springlms.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.service.AdministratorService;
+import com.st.novatech.springlms.service.BorrowerService;
+import com.st.novatech.springlms.service.LibrarianService;
+
+/**
+ * Tests of the endpoints that export whole tables as newline-delimited JSON.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class ExportTest {
+	/**
+	 * How many books to stock, enough that the export has to clear the
+	 * persistence context more than once.
+	 */
+	private static final int BOOK_COUNT = 1201;
+	/**
+	 * How many of those books to lend.
+	 */
+	private static final int LOAN_COUNT = 3;
+
+	/**
+	 * Application context in which the test runs.
+	 */
+	@Autowired
+	private WebApplicationContext wac;
+	/**
+	 * Object mapper used to check the exported lines.
+	 */
+	@Autowired
+	private ObjectMapper mapper;
+	/**
+	 * Administrator service used to set up test data.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * Librarian service used to set up test data.
+	 */
+	@Autowired
+	private LibrarianService libService;
+	/**
+	 * Borrower service used to set up test data.
+	 */
+	@Autowired
+	private BorrowerService borrowerService;
+	/**
+	 * Book DAO used to clean up test data.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * UI mock-input provider.
+	 */
+	private MockMvc mockMvc;
+
+	/**
+	 * Books used in tests.
+	 */
+	private final List<Book> books = new ArrayList<>();
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+	/**
+	 * Borrower used in tests.
+	 */
+	private Borrower borrower;
+
+	/**
+	 * Set up the mock and test data before each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@BeforeEach
+	public void setUp() throws TransactionException {
+		mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+		branch = adminService.createBranch("export branch", "");
+		borrower = adminService.createBorrower("export patron", "", "");
+		for (int i = 0; i < BOOK_COUNT; i++) {
+			final Book book = adminService.createBook("export book " + i, null, null);
+			books.add(book);
+			libService.setBranchCopies(branch, book, 1);
+		}
+		for (int i = 0; i < LOAN_COUNT; i++) {
+			borrowerService.borrowBook(borrower, books.get(i), branch, null, null);
+		}
+	}
+
+	/**
+	 * Remove test data after each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@AfterEach
+	public void tearDown() throws TransactionException {
+		adminService.deleteBorrower(borrower);
+		adminService.deleteBranch(branch);
+		bookDao.deleteInBatch(books);
+		books.clear();
+	}
+
+	/**
+	 * Get an export endpoint and split the response into lines.
+	 *
+	 * @param path the path of the endpoint
+	 * @return the lines of the response
+	 * @throws Exception if something goes wrong
+	 */
+	private String[] export(final String path) throws Exception {
+		final MvcResult started = mockMvc.perform(get(path))
+				.andExpect(request().asyncStarted()).andReturn();
+		final String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(Ndjson.MEDIA_TYPE))
+				.andReturn().getResponse().getContentAsString();
+		assertTrue(body.endsWith("\n"), "Every line is terminated");
+		return body.split("\n");
+	}
+
+	/**
+	 * Test that the copies export writes one JSON object per copies record.
+	 *
+	 * @throws Exception if something goes wrong
+	 */
+	@Test
+	public void testExportCopies() throws Exception {
+		final String[] lines = export("/branches/books/copies/export");
+		assertEquals(BOOK_COUNT - LOAN_COUNT, lines.length,
+				"One line per copies record");
+		for (final String line : lines) {
+			final JsonNode node = mapper.readTree(line);
+			assertTrue(node.isObject(), "Each line is a JSON object");
+			assertEquals(1, node.get("copies").asInt(), "Each line has the copy count");
+		}
+	}
+
+	/**
+	 * Test that the loans export writes one JSON object per loan.
+	 *
+	 * @throws Exception if something goes wrong
+	 */
+	@Test
+	public void testExportLoans() throws Exception {
+		final String[] lines = export("/loans/export");
+		assertEquals(LOAN_COUNT, lines.length, "One line per loan");
+		for (final String line : lines) {
+			assertEquals(borrower.getCardNo(),
+					mapper.readTree(line).path("borrower").path("cardNo").asInt(),
+					"Each line has the loan's borrower");
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.st.novatech.springlms.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.service.AdministratorService;
+
+/**
+ * Tests of the connection-pool actuator endpoint.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class PoolEndpointTest {
+	/**
+	 * The endpoint under test.
+	 */
+	@Autowired
+	private PoolEndpoint testee;
+	/**
+	 * Administrator service, used to make the application use the pool.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+
+	/**
+	 * Test that the configured pool is reported, with its metrics, once it has
+	 * been used.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testPools() throws TransactionException {
+		adminService.getAllBorrowers();
+		final Map<String, Number> pool = testee.pools().get("library");
+		assertNotNull(pool, "configured pool reported by name");
+		assertEquals(10, pool.get("maximumPoolSize"), "configured size reported");
+		assertEquals(0, pool.get("active"), "no connection held between requests");
+		assertEquals(0, pool.get("pending"), "nobody waiting for a connection");
+		assertTrue(pool.get("acquired").longValue() > 0,
+				"connections acquired are counted");
+		assertEquals(0.0, pool.get("timeouts").doubleValue(), "no acquisition timed out");
+	}
+}
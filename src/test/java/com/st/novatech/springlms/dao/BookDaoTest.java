@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -223,4 +224,31 @@ public final class BookDaoTest {
 				"third book has expected title");
 		assertEquals(3, testee.findAll().size(), "table has expected number of rows");
 	}
+
+	/**
+	 * Test that getting books a page at a time, by cursor or offset, works as
+	 * expected.
+	 *
+	 * @throws SQLException if something goes very wrong
+	 */
+	@Test
+	public void testPaging() throws SQLException {
+		final Book first = testee.create("first book", null, null);
+		final Book second = testee.create("second book", null, null);
+		final Book third = testee.create("third book", null, null);
+		assertEquals(Arrays.asList(first, second),
+				testee.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 2)),
+				"first page starts from the beginning, in order");
+		assertEquals(Collections.singletonList(third),
+				testee.findByIdGreaterThanOrderByIdAsc(second.getId(),
+						PageRequest.of(0, 2)),
+				"cursor skips books already seen");
+		assertEquals(Collections.singletonList(third),
+				testee.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(1, 2)),
+				"offset paging also works");
+		assertTrue(
+				testee.findByIdGreaterThanOrderByIdAsc(third.getId(),
+						PageRequest.of(0, 2)).isEmpty(),
+				"nothing after the last book");
+	}
 }
@@ -8,6 +8,7 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -129,6 +130,26 @@ class BookLoansDaoTest {
 				"Result of retrieval is as expected");
 	}
 
+	/**
+	 * Test of individual-row retrieval by ID numbers.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testGetByIds() throws SQLException {
+		final Book book = bookDao.create("book title", null, null);
+		final Branch branch = branchDao.create("branch name", "");
+		final Borrower borrower = borrowerDao.create("patron name", "", "");
+		final LocalDateTime timeOut = LocalDate.now().atStartOfDay();
+		final LocalDate due = LocalDate.now();
+		assertNull(testee.get(borrower.getCardNo(), branch.getId(), book.getId()),
+				"Null result for loan not in table yet");
+		final Loan expected = new Loan(book, borrower, branch, timeOut, due);
+		testee.create(book, borrower, branch, timeOut, due);
+		assertEquals(expected,
+				testee.get(borrower.getCardNo(), branch.getId(), book.getId()),
+				"Result of retrieval by IDs is as expected");
+	}
+
 	/**
 	 * Test of full-table retrieval.
 	 * @throws SQLException if something goes wrong
@@ -149,4 +170,50 @@ class BookLoansDaoTest {
 		assertEquals(expected, new HashSet<>(testee.findAll()),
 				"All loans are returned by getAll");
 	}
+
+	/**
+	 * Test of retrieving a single borrower's loans.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testFindByBorrower() throws SQLException {
+		final Book bookOne = bookDao.create("book title", null, null);
+		final Book bookTwo = bookDao.create("book two", null, null);
+		final Branch branch = branchDao.create("branch name", "");
+		final Borrower borrower = borrowerDao.create("patron name", "", "");
+		final Borrower otherBorrower = borrowerDao.create("other patron", "", "");
+		final LocalDateTime timeOut = LocalDate.now().atStartOfDay();
+		final LocalDate due = LocalDate.now();
+		testee.create(bookOne, borrower, branch, timeOut, due);
+		testee.create(bookTwo, borrower, branch, timeOut, due);
+		testee.create(bookOne, otherBorrower, branch, timeOut, due);
+		assertEquals(
+				new HashSet<>(Arrays.asList(
+						new Loan(bookOne, borrower, branch, timeOut, due),
+						new Loan(bookTwo, borrower, branch, timeOut, due))),
+				new HashSet<>(testee.findByIdBorrower(borrower)),
+				"Only the borrower's own loans are returned");
+	}
+
+	/**
+	 * Test of retrieving the branches from which a borrower has loans.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testFindBranchesByBorrower() throws SQLException {
+		final Book bookOne = bookDao.create("book title", null, null);
+		final Book bookTwo = bookDao.create("book two", null, null);
+		final Branch branch = branchDao.create("branch name", "");
+		final Branch otherBranch = branchDao.create("other branch", "");
+		final Borrower borrower = borrowerDao.create("patron name", "", "");
+		final Borrower otherBorrower = borrowerDao.create("other patron", "", "");
+		final LocalDateTime timeOut = LocalDate.now().atStartOfDay();
+		final LocalDate due = LocalDate.now();
+		testee.create(bookOne, borrower, branch, timeOut, due);
+		testee.create(bookTwo, borrower, branch, timeOut, due);
+		testee.create(bookOne, otherBorrower, otherBranch, timeOut, due);
+		assertEquals(Collections.singletonList(branch),
+				testee.findBranchesByBorrower(borrower),
+				"Each branch with a loan to the borrower is returned once");
+	}
 }
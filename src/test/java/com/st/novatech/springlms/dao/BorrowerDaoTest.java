@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -49,6 +50,11 @@ class BorrowerDaoTest {
 	 */
 	@Autowired
 	private BookLoansDao loansDao;
+	/**
+	 * JDBC template, to read and write rows without going through Hibernate.
+	 */
+	@Autowired
+	private JdbcTemplate jdbc;
 	/**
 	 * Test creation.
 	 * @throws SQLException if something goes wrong.
@@ -171,4 +177,23 @@ class BorrowerDaoTest {
 		assertEquals(1, loansDao.findAll().size(),
 				"Loan of book to deleted borrower was also removed");
 	}
+
+	/**
+	 * Test that SQL nulls in string columns are read as empty strings, and that
+	 * null string properties are written as empty strings.
+	 *
+	 * @throws SQLException if something goes very wrong
+	 */
+	@Test
+	public final void testNullStrings() throws SQLException {
+		jdbc.update("INSERT INTO tbl_borrower (cardNo, name, address, phone) "
+				+ "VALUES (7, 'borrower name', NULL, NULL)");
+		assertEquals(new Borrower(7, "borrower name", "", ""),
+				testee.findById(7).orElse(null), "Nulls read as empty strings");
+		final Borrower created = testee.create("second borrower", null, null);
+		testee.flush();
+		assertEquals("", jdbc.queryForObject(
+				"SELECT phone FROM tbl_borrower WHERE cardNo = ?", String.class,
+				created.getCardNo()), "Nulls written as empty strings");
+	}
 }
@@ -0,0 +1,178 @@
+package com.st.novatech.springlms.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Tests that checking out and returning copies from many threads at once
+ * neither loses updates nor over-lends a title.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class CopiesDaoContentionTest {
+	/**
+	 * How many threads contend for the same copies row.
+	 */
+	private static final int THREADS = 8;
+	/**
+	 * How many checkouts each thread attempts.
+	 */
+	private static final int ATTEMPTS_PER_THREAD = 25;
+	/**
+	 * How many copies the branch starts with; fewer than the total attempts, so
+	 * some checkouts must be refused.
+	 */
+	private static final int INITIAL_COPIES = 150;
+	/**
+	 * Logger for reporting measured throughput.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(CopiesDaoContentionTest.class.getName());
+
+	/**
+	 * The DAO under test.
+	 */
+	@Autowired
+	private CopiesDao testee;
+	/**
+	 * Book DAO used in tests.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * Branch DAO used in tests.
+	 */
+	@Autowired
+	private LibraryBranchDao branchDao;
+	/**
+	 * Transaction manager, to give each operation its own transaction.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Book used in tests.
+	 */
+	private Book book;
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+
+	/**
+	 * Create the test book and branch and stock the branch.
+	 */
+	@BeforeEach
+	public void init() {
+		book = bookDao.create("contended book", null, null);
+		branch = branchDao.create("contended branch", "");
+		testee.setCopies(branch, book, INITIAL_COPIES);
+	}
+
+	/**
+	 * Remove the test data.
+	 */
+	@AfterEach
+	public void tearDown() {
+		branchDao.delete(branch);
+		bookDao.delete(book);
+	}
+
+	/**
+	 * Run the given task from {@link #THREADS} threads at once,
+	 * {@link #ATTEMPTS_PER_THREAD} times each, each time in its own transaction,
+	 * and return the sum of the task's results.
+	 *
+	 * @param description what the task does, for the throughput report
+	 * @param task        the operation to run
+	 * @return the sum of all results of the task
+	 * @throws Exception if any execution of the task fails
+	 */
+	private int runConcurrently(final String description, final Callable<Integer> task)
+			throws Exception {
+		final TransactionTemplate template = new TransactionTemplate(transactionManager);
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final List<Future<Integer>> futures = new ArrayList<>();
+		final long start = System.nanoTime();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				int total = 0;
+				for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+					total += template.execute(status -> {
+						try {
+							return task.call();
+						} catch (final Exception except) {
+							throw new IllegalStateException(except);
+						}
+					});
+				}
+				return total;
+			}));
+		}
+		int sum = 0;
+		for (final Future<Integer> future : futures) {
+			sum += future.get();
+		}
+		final long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		LOGGER.info(String.format("%d %s from %d threads in %d ms (%.0f/s)",
+				THREADS * ATTEMPTS_PER_THREAD, description, THREADS,
+				TimeUnit.NANOSECONDS.toMillis(elapsed),
+				THREADS * ATTEMPTS_PER_THREAD / (elapsed / 1e9)));
+		return sum;
+	}
+
+	/**
+	 * Test that concurrent checkouts lend out exactly as many copies as there
+	 * were, and no more.
+	 *
+	 * @throws Exception on error in any thread
+	 */
+	@DisplayName("Concurrent checkouts neither lose updates nor over-lend")
+	@Test
+	public void testConcurrentCheckOut() throws Exception {
+		final int lent = runConcurrently("checkouts",
+				() -> testee.checkOutCopy(branch, book));
+		assertEquals(INITIAL_COPIES, lent,
+				"Every copy, and no more, was lent out");
+		assertEquals(0, testee.getCopies(branch, book), "No copies remain");
+	}
+
+	/**
+	 * Test that concurrent returns are all counted.
+	 *
+	 * @throws Exception on error in any thread
+	 */
+	@DisplayName("Concurrent returns do not lose updates")
+	@Test
+	public void testConcurrentReturn() throws Exception {
+		runConcurrently("returns", () -> testee.returnCopy(branch, book));
+		assertEquals(INITIAL_COPIES + THREADS * ATTEMPTS_PER_THREAD,
+				testee.getCopies(branch, book), "Every returned copy was counted");
+	}
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -157,4 +158,70 @@ class CopiesDaoTest {
 								new BranchCopies(firstBook, secondBranch, 5))),
 				new HashSet<>(testee.getAllCopies()), "Expected values returned");
 	}
+
+	/**
+	 * Test taking a single copy out of a branch's stock.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testCheckOutCopy() throws SQLException {
+		final Book book = bookDao.create("first book", null, null);
+		final Branch branch = branchDao.create("first branch", "first address");
+		assertEquals(0, testee.checkOutCopy(branch, book),
+				"Nothing to check out when the branch has no copies");
+		testee.setCopies(branch, book, 2);
+		assertEquals(1, testee.checkOutCopy(branch, book),
+				"Checking out a copy updates one row");
+		assertEquals(1, testee.getCopies(branch, book),
+				"Checking out a copy decrements the count");
+		assertEquals(1, testee.checkOutCopy(branch, book),
+				"Checking out the last copy updates one row");
+		assertEquals(0, testee.findAll().size(),
+				"Checking out the last copy removes the row");
+		assertEquals(0, testee.checkOutCopy(branch, book),
+				"Count does not go negative");
+	}
+
+	/**
+	 * Test putting a single copy back into a branch's stock.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testReturnCopy() throws SQLException {
+		final Book book = bookDao.create("first book", null, null);
+		final Branch branch = branchDao.create("first branch", "first address");
+		testee.returnCopy(branch, book);
+		assertEquals(1, testee.getCopies(branch, book),
+				"Returning a copy to an empty branch creates the row");
+		testee.returnCopy(branch, book);
+		assertEquals(2, testee.getCopies(branch, book),
+				"Returning another copy increments the count");
+	}
+
+	/**
+	 * Test getting copies records a page at a time, in order of branch and then
+	 * book.
+	 * @throws SQLException if something goes wrong
+	 */
+	@Test
+	public final void testFindPageAfter() throws SQLException {
+		final Book firstBook = bookDao.create("first book", null, null);
+		final Book secondBook = bookDao.create("second book", null, null);
+		final Branch firstBranch = branchDao.create("first branch", "first address");
+		final Branch secondBranch = branchDao.create("second branch", "");
+		testee.setCopies(secondBranch, firstBook, 5);
+		testee.setCopies(firstBranch, secondBook, 3);
+		testee.setCopies(firstBranch, firstBook, 2);
+		assertEquals(
+				Arrays.asList(new BranchCopies(firstBook, firstBranch, 2),
+						new BranchCopies(secondBook, firstBranch, 3)),
+				testee.findPageAfter(0, 0, PageRequest.of(0, 2)),
+				"First page is in branch and book order");
+		assertEquals(
+				Collections.singletonList(
+						new BranchCopies(firstBook, secondBranch, 5)),
+				testee.findPageAfter(firstBranch.getId(), secondBook.getId(),
+						PageRequest.of(0, 2)),
+				"Cursor moves on to the next branch");
+	}
 }
@@ -0,0 +1,251 @@
+package com.st.novatech.springlms.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.model.CopiesView;
+import com.st.novatech.springlms.model.LoanView;
+
+/**
+ * Tests that each DAO method returning a list of loans, copies records, or
+ * books loads them, and everything they refer to, in a single SQL statement,
+ * rather than one more for each distinct book, author, publisher, branch, or
+ * borrower.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class FetchJoinStatementsTest {
+	/**
+	 * How many books (each with its own author and publisher), branches, and
+	 * borrowers to create.
+	 */
+	private static final int COUNT = 3;
+
+	/**
+	 * Book DAO used in tests.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * Author DAO used in tests.
+	 */
+	@Autowired
+	private AuthorDao authorDao;
+	/**
+	 * Publisher DAO used in tests.
+	 */
+	@Autowired
+	private PublisherDao publisherDao;
+	/**
+	 * Branch DAO used in tests.
+	 */
+	@Autowired
+	private LibraryBranchDao branchDao;
+	/**
+	 * Borrower DAO used in tests.
+	 */
+	@Autowired
+	private BorrowerDao borrowerDao;
+	/**
+	 * Copies DAO used in tests.
+	 */
+	@Autowired
+	private CopiesDao copiesDao;
+	/**
+	 * Loans DAO used in tests.
+	 */
+	@Autowired
+	private BookLoansDao loansDao;
+	/**
+	 * Entity-manager factory, from which we get Hibernate's statistics and
+	 * second-level cache.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * The books created.
+	 */
+	private final List<Book> books = new ArrayList<>();
+	/**
+	 * The branches created.
+	 */
+	private final List<Branch> branches = new ArrayList<>();
+	/**
+	 * The borrowers created.
+	 */
+	private final List<Borrower> borrowers = new ArrayList<>();
+
+	/**
+	 * Give every branch copies of every book, and every borrower a loan of every
+	 * book, from a branch that differs from book to book.
+	 */
+	@BeforeEach
+	public void setUp() {
+		for (int i = 0; i < COUNT; i++) {
+			books.add(bookDao.create("book " + i, authorDao.create("author " + i),
+					publisherDao.create("publisher " + i, "", "")));
+			branches.add(branchDao.create("branch " + i, ""));
+			borrowers.add(borrowerDao.create("borrower " + i, "", ""));
+		}
+		for (final Branch branch : branches) {
+			for (final Book book : books) {
+				copiesDao.setCopies(branch, book, 2);
+			}
+		}
+		for (final Borrower borrower : borrowers) {
+			for (int i = 0; i < COUNT; i++) {
+				loansDao.create(books.get(i), borrower, branches.get(i),
+						LocalDateTime.now(), LocalDate.now().plusWeeks(1));
+			}
+		}
+	}
+
+	/**
+	 * Assert that a query returns the expected number of results, in a single
+	 * statement, even with nothing it refers to in the second-level cache.
+	 *
+	 * @param expected how many results are expected
+	 * @param query    the query
+	 */
+	private void assertSingleStatement(final int expected,
+			final Supplier<List<?>> query) {
+		entityManagerFactory.getCache().evictAll();
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		assertEquals(expected, query.get().size(), "query returns every result");
+		assertEquals(1, statistics.getPrepareStatementCount(),
+				"query and everything it refers to loaded in a single statement");
+	}
+
+	/**
+	 * Test that listing all loans is a single statement.
+	 */
+	@Test
+	public void testAllLoans() {
+		assertSingleStatement(COUNT * COUNT, loansDao::findAll);
+	}
+
+	/**
+	 * Test that listing a borrower's loans is a single statement.
+	 */
+	@Test
+	public void testBorrowerLoans() {
+		assertSingleStatement(COUNT, () -> loansDao.findByIdBorrower(borrowers.get(0)));
+	}
+
+	/**
+	 * Test that listing all copies records is a single statement.
+	 */
+	@Test
+	public void testAllCopies() {
+		assertSingleStatement(COUNT * COUNT, copiesDao::findAll);
+	}
+
+	/**
+	 * Test that listing a branch's copies records is a single statement.
+	 */
+	@Test
+	public void testBranchCopies() {
+		assertSingleStatement(COUNT, () -> copiesDao.findByIdBranch(branches.get(0)));
+	}
+
+	/**
+	 * Test that listing a book's copies records is a single statement.
+	 */
+	@Test
+	public void testBookCopies() {
+		assertSingleStatement(COUNT, () -> copiesDao.findByIdBook(books.get(0)));
+	}
+
+	/**
+	 * Test that getting a page of copies records is a single statement.
+	 */
+	@Test
+	public void testCopiesPage() {
+		assertSingleStatement(COUNT * COUNT,
+				() -> copiesDao.findPageAfter(0, 0, PageRequest.of(0, 100)));
+	}
+
+	/**
+	 * Test that listing all books is a single statement.
+	 */
+	@Test
+	public void testAllBooks() {
+		assertSingleStatement(COUNT, bookDao::findAll);
+	}
+
+	/**
+	 * Test that getting a page of books is a single statement.
+	 */
+	@Test
+	public void testBooksPage() {
+		assertSingleStatement(COUNT,
+				() -> bookDao.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 100)));
+	}
+
+	/**
+	 * Test that the views of a branch's copies records are built in a single
+	 * statement, and carry the names of the branch, author, and publisher.
+	 */
+	@Test
+	public void testBranchCopiesViews() {
+		assertSingleStatement(COUNT,
+				() -> copiesDao.findViewsByBranch(branches.get(0).getId()));
+		final CopiesView view = copiesDao.findViewsByBranch(branches.get(0).getId())
+				.get(0);
+		assertEquals(new CopiesView(branches.get(0).getId(), "branch 0",
+				books.get(0).getId(), "book 0", "author 0", "publisher 0", 2), view,
+				"view carries the flattened fields");
+	}
+
+	/**
+	 * Test that a page of views of copies records is a single statement.
+	 */
+	@Test
+	public void testCopiesViewPage() {
+		assertSingleStatement(COUNT * COUNT,
+				() -> copiesDao.findViewPageAfter(0, 0, PageRequest.of(0, 100)));
+	}
+
+	/**
+	 * Test that the views of a borrower's loans are built in a single statement.
+	 */
+	@Test
+	public void testBorrowerLoanViews() {
+		assertSingleStatement(COUNT,
+				() -> loansDao.findViewsByBorrower(borrowers.get(0).getCardNo()));
+		final LoanView view = loansDao.findViewsByBorrower(borrowers.get(0).getCardNo())
+				.get(0);
+		assertEquals(borrowers.get(0).getCardNo(), view.getCardNo(),
+				"view carries the card number");
+		assertEquals("branch 0", view.getBranchName(), "view carries the branch name");
+		assertEquals("book 0", view.getTitle(), "view carries the title");
+	}
+}
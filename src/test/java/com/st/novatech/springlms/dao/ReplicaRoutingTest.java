@@ -0,0 +1,234 @@
+package com.st.novatech.springlms.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.controller.PoolEndpoint;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.service.AdministratorService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Tests of routing read-only transactions to a read replica, with a second
+ * in-memory database standing in for the replica. Nothing is replicated
+ * between the two, so each test puts into the replica what it expects to read
+ * from it, including the heartbeat row.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+		"library.replica.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=0;MODE=MYSQL;"
+				+ "DATABASE_TO_UPPER=false;"
+				+ "INIT=CREATE SCHEMA IF NOT EXISTS `library`\\\\;SET SCHEMA `library`",
+		// Only beat when the tests say to.
+		"library.replica.heartbeat=3600000" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReplicaRoutingTest {
+	/**
+	 * The routing data source.
+	 */
+	@Autowired
+	private ReplicaRoutingDataSource routing;
+	/**
+	 * The primary's connection pool.
+	 */
+	@Autowired
+	private HikariDataSource primaryDataSource;
+	/**
+	 * The heartbeat that measures the replica's lag.
+	 */
+	@Autowired
+	private ReplicaHeartbeat heartbeat;
+	/**
+	 * The clock the heartbeat uses.
+	 */
+	@Autowired
+	private Clock clock;
+	/**
+	 * Administrator service used in tests.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * The connection-pool actuator endpoint.
+	 */
+	@Autowired
+	private PoolEndpoint poolEndpoint;
+	/**
+	 * Entity-manager factory, from which we get the second-level cache.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	/**
+	 * JDBC template for the replica.
+	 */
+	private JdbcTemplate replica;
+
+	/**
+	 * Create the schema in the replica, empty it, and add a branch that exists
+	 * only there, and a branch that exists only in the primary.
+	 *
+	 * @throws TransactionException never
+	 */
+	@BeforeEach
+	public void setUp() throws TransactionException {
+		final HikariDataSource replicaDataSource = routing.getReplicas().get(0);
+		new ResourceDatabasePopulator(new ClassPathResource("schema.sql"))
+				.execute(replicaDataSource);
+		replica = new JdbcTemplate(replicaDataSource);
+		// The database is dropped when the previous test's context closes its
+		// pool, but make sure nothing is left over from it regardless.
+		replica.update("DELETE FROM tbl_replica_heartbeat");
+		replica.update("DELETE FROM tbl_library_branch");
+		replica.update("DELETE FROM tbl_borrower");
+		replica.update("INSERT INTO tbl_library_branch (branchId, branchName, "
+				+ "branchAddress) VALUES (100, 'replica branch', '')");
+		adminService.createBranch("primary branch", "");
+	}
+
+	/**
+	 * Put a heartbeat row of the given age into the replica.
+	 *
+	 * @param age how old the heartbeat should be, in milliseconds
+	 */
+	private void replicaBeat(final long age) {
+		replica.update("INSERT INTO tbl_replica_heartbeat (id, beat) VALUES (1, ?)",
+				clock.millis() - age);
+	}
+
+	/**
+	 * Assert that a read-only service method reads from the replica, or from the
+	 * primary: that the branches it lists include the one that exists only in
+	 * that database, and not the one that exists only in the other.
+	 *
+	 * @param fromReplica whether the read should be from the replica
+	 * @param message     the message to report if it is not
+	 * @throws TransactionException never
+	 */
+	private void assertReadFrom(final boolean fromReplica, final String message)
+			throws TransactionException {
+		final List<String> names = adminService.getAllBranches().stream()
+				.map(Branch::getName).collect(Collectors.toList());
+		assertEquals(fromReplica, names.contains("replica branch"), message);
+		assertEquals(!fromReplica, names.contains("primary branch"), message);
+	}
+
+	/**
+	 * Test that once the replica is known to be up to date, reads go to it and
+	 * writes still go to the primary.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testReadsGoToReplica() throws TransactionException {
+		assertReadFrom(false, "replica not used before its lag is known");
+		replicaBeat(0);
+		heartbeat.beat();
+		assertTrue(routing.isAvailable(0), "replica is close enough behind");
+		assertNotNull(new JdbcTemplate(primaryDataSource).queryForObject(
+				"SELECT beat FROM tbl_replica_heartbeat WHERE id = 1", Long.class),
+				"heartbeat written to the primary");
+		assertReadFrom(true, "read-only transaction reads from the replica");
+		adminService.createBranch("new branch", "");
+		assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM tbl_library_branch "
+				+ "WHERE branchName = 'new branch'", Integer.class).intValue(),
+				"write did not go to the replica");
+		assertEquals(1, new JdbcTemplate(primaryDataSource).queryForObject(
+				"SELECT COUNT(*) FROM tbl_library_branch WHERE branchName = 'new branch'",
+				Integer.class).intValue(), "write went to the primary");
+		assertTrue(poolEndpoint.pools().get("library-replica-1").get("lagMillis")
+				.longValue() >= 0, "replica's lag reported");
+	}
+
+	/**
+	 * Test that a replica too far behind the primary is not used.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testLaggingReplicaNotUsed() throws TransactionException {
+		replicaBeat(60_000);
+		heartbeat.beat();
+		assertFalse(routing.isAvailable(0), "replica is too far behind");
+		assertReadFrom(false, "reads fall back to the primary");
+	}
+
+	/**
+	 * Test that a replica whose lag cannot be measured is not used.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testReplicaWithoutHeartbeatNotUsed() throws TransactionException {
+		heartbeat.beat();
+		assertFalse(routing.isAvailable(0), "replica's lag is not known");
+		assertEquals(-1, routing.getLag(0), "lag reported as unknown");
+		assertReadFrom(false, "reads fall back to the primary");
+	}
+
+	/**
+	 * Test that a borrower looked up straight after it is updated is the updated
+	 * one, though the replica still has the old one: the lookup, whose result is
+	 * cached, reads the primary.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testLookupAfterUpdateNotStale() throws TransactionException {
+		final Borrower borrower = adminService.createBorrower("old name", "", "");
+		replica.update("INSERT INTO tbl_borrower (cardNo, name, address, phone) "
+				+ "VALUES (?, 'old name', '', '')", borrower.getCardNo());
+		replicaBeat(0);
+		heartbeat.beat();
+		assertReadFrom(true, "replica in use");
+		borrower.setName("new name");
+		adminService.updateBorrower(borrower);
+		assertEquals("new name", adminService.getBorrower(borrower.getCardNo()).getName(),
+				"lookup after update reads the primary");
+		assertEquals("new name", adminService.getBorrower(borrower.getCardNo()).getName(),
+				"updated borrower is what was cached");
+	}
+
+	/**
+	 * Test that entities read from the replica are not put into Hibernate's
+	 * second-level cache, while those read from the primary are.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testReplicaReadsNotCached() throws TransactionException {
+		final Branch branch = adminService.createBranch("another branch", "");
+		replicaBeat(0);
+		heartbeat.beat();
+		entityManagerFactory.getCache().evictAll();
+		assertReadFrom(true, "read-only transaction reads from the replica");
+		assertFalse(entityManagerFactory.getCache().contains(Branch.class, 100),
+				"branch read from the replica not cached");
+		assertNotNull(adminService.getBranch(branch.getId()), "branch found");
+		assertTrue(entityManagerFactory.getCache().contains(Branch.class, branch.getId()),
+				"branch read from the primary cached");
+	}
+}
@@ -2,13 +2,16 @@ package com.st.novatech.springlms.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -99,6 +102,110 @@ public final class AdministratorServiceTest {
 				"After creating two books, two are stored");
 	}
 
+	/**
+	 * Test bulk book creation: existing authors and publishers are reused, and
+	 * each distinct new one is created once.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testCreateBooks() throws TransactionException {
+		final Author existing = authorDao.create("existing author");
+		final Author newAuthor = new Author(0, "new author");
+		final Publisher newPublisher = new Publisher(0, "new publisher", "", "");
+		final List<Book> created = testee.createBooks(Arrays.asList(
+				new Book(0, "first title", existing, null),
+				new Book(0, "second title", newAuthor, newPublisher),
+				new Book(0, "third title", newAuthor, null)));
+		assertEquals(3, created.size(), "one book created per book given");
+		assertEquals(new HashSet<>(created), new HashSet<>(bookDao.findAll()),
+				"created books are stored with the IDs returned");
+		assertEquals(existing, created.get(0).getAuthor(), "existing author reused");
+		assertEquals(created.get(1).getAuthor(), created.get(2).getAuthor(),
+				"new author shared between books");
+		assertEquals(2, authorDao.count(), "new author created only once");
+		assertEquals("new publisher",
+				publisherDao.findById(created.get(1).getPublisher().getId()).get().getName(),
+				"new publisher stored");
+	}
+
+	/**
+	 * Test that book search ranks title matches first, matches prefixes, and
+	 * follows changes to books and authors.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testSearchBooks() throws TransactionException {
+		final Author author = testee.createAuthor("Ursula Le Guin");
+		final Book byName = testee.createBook("The Dispossessed", author, null);
+		final Book byTitle = testee.createBook("Remembering Guin", null, null);
+		final Book other = testee.createBook("Dune", null, null);
+		assertEquals(Arrays.asList(byTitle, byName), testee.searchBooks("guin", 10),
+				"title match ranked above author match");
+		assertEquals(Arrays.asList(byName), testee.searchBooks("ursula dispos*", 10),
+				"every word must match, and prefixes match");
+		assertEquals(Arrays.asList(other), testee.searchBooks("DÛNE", 10),
+				"case and accents ignored");
+		author.setName("U. K. Le Guin");
+		testee.updateAuthor(author);
+		assertEquals(Collections.emptyList(), testee.searchBooks("ursula", 10),
+				"old author name forgotten");
+		testee.deleteBook(byTitle);
+		assertEquals(Arrays.asList(byName), testee.searchBooks("guin", 10),
+				"deleted book forgotten");
+	}
+
+	/**
+	 * Test that typeahead suggestions rank the most common completions first,
+	 * ignore case and accents, and follow changes to books and authors.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testSuggest() throws TransactionException {
+		final Author first = testee.createAuthor("Ursula Le Guin");
+		testee.createAuthor("Ursula Le Guin");
+		final Book copy = testee.createBook("The Dispossessed", null, null);
+		testee.createBook("The Dispossessed", null, null);
+		testee.createBook("The Left Hand of Darkness", first, null);
+		testee.createBook("Thésée", null, null);
+		assertEquals(Arrays.asList("The Dispossessed", "The Left Hand of Darkness", "Thésée"),
+				texts(testee.suggest("THE", 10)),
+				"most common first, then alphabetical ignoring accents");
+		assertEquals(Arrays.asList("Thésée"), texts(testee.suggest("thes", 10)),
+				"prefix matches ignore accents");
+		assertEquals(1, testee.suggest("the", 1).size(), "limit respected");
+		final List<Suggestion> authors = testee.suggest("urs", 10);
+		assertEquals(1, authors.size(), "author names sharing a name are merged");
+		assertEquals(Suggestion.Kind.AUTHOR, authors.get(0).getKind(), "author suggested");
+		assertEquals(2, authors.get(0).getCount(), "author name counted twice");
+		testee.deleteBook(copy);
+		testee.deleteAuthor(first);
+		assertEquals(Arrays.asList("The Dispossessed", "Thésée"),
+				texts(testee.suggest("the", 10)),
+				"deleted books, and books of deleted authors, forgotten");
+		assertEquals(1, testee.suggest("ursula", 10).get(0).getCount(),
+				"deleted author forgotten");
+		assertEquals(Collections.emptyList(), testee.suggest("  ", 10),
+				"blank prefix suggests nothing");
+		testee.createBook("Tax", null, null);
+		testee.createBook("Taaa", null, null);
+		testee.createBook("Taab", null, null);
+		assertEquals(Arrays.asList("Taaa", "Taab", "Tax"), texts(testee.suggest("ta", 10)),
+				"equally common keys alphabetical however deep in the trie");
+	}
+
+	/**
+	 * Get the text of each of a list of suggestions.
+	 *
+	 * @param suggestions the suggestions
+	 * @return their text, in order
+	 */
+	private static List<String> texts(final List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::getText).collect(Collectors.toList());
+	}
+
 	/**
 	 * Test book updating.
 	 *
@@ -204,6 +311,21 @@ public final class AdministratorServiceTest {
 				"data store row count is as expected");
 	}
 
+	/**
+	 * Test that deleting an author also removes the author's books from the
+	 * cache, not just from the database.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testDeleteAuthorEvictsBooks() throws TransactionException {
+		final Author author = testee.createAuthor("doomed author");
+		final Book book = testee.createBook("doomed book", author, null);
+		assertEquals(book, testee.getBook(book.getId()), "book is there to begin with");
+		testee.deleteAuthor(author);
+		assertNull(testee.getBook(book.getId()), "book is gone with its author");
+	}
+
 	/**
 	 * Test getting all authors.
 	 *
@@ -273,7 +395,6 @@ public final class AdministratorServiceTest {
 		final Publisher replacement = new Publisher(1, "new name", "new address",
 				"new phone");
 		testee.updatePublisher(replacement);
-		testee.commit();
 		assertEquals(replacement, publisherDao.findById(1).get(),
 				"replacement now in data store");
 		assertFalse(publisherDao.findAll().contains(original),
@@ -298,6 +419,58 @@ public final class AdministratorServiceTest {
 				"data store row count as expected");
 	}
 
+	/**
+	 * Test that looking a book up again gives an unmodified copy, even if the
+	 * caller modified the first one, until a change is saved.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testGetBookGivesCopies() throws TransactionException {
+		final Book book = testee.createBook("original title", null, null);
+		final Book first = testee.getBook(book.getId());
+		first.setTitle("unsaved title");
+		assertEquals("original title", testee.getBook(book.getId()).getTitle(),
+				"unsaved change not seen by the next caller");
+		first.setTitle("saved title");
+		testee.updateBook(first);
+		assertEquals("saved title", testee.getBook(book.getId()).getTitle(),
+				"saved change seen by the next caller");
+	}
+
+	/**
+	 * Test that updating an author is reflected in books looked up afterwards.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testUpdateAuthorSeenInBooks() throws TransactionException {
+		final Author author = testee.createAuthor("old name");
+		final Book book = testee.createBook("some book", author, null);
+		assertEquals("old name", testee.getBook(book.getId()).getAuthor().getName(),
+				"book has its author");
+		final Author changed = testee.getAuthor(author.getId());
+		changed.setName("new name");
+		testee.updateAuthor(changed);
+		assertEquals("new name", testee.getBook(book.getId()).getAuthor().getName(),
+				"book has its author's new name");
+	}
+
+	/**
+	 * Test that deleting a publisher also removes the publisher's books from the
+	 * cache, not just from the database.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testDeletePublisherEvictsBooks() throws TransactionException {
+		final Publisher publisher = testee.createPublisher("doomed publisher");
+		final Book book = testee.createBook("doomed book", null, publisher);
+		assertEquals(book, testee.getBook(book.getId()), "book is there to begin with");
+		testee.deletePublisher(publisher);
+		assertNull(testee.getBook(book.getId()), "book is gone with its publisher");
+	}
+
 	/**
 	 * Test getting all publishers.
 	 *
@@ -366,7 +539,6 @@ public final class AdministratorServiceTest {
 		final Branch original = branchDao.create("orignal name", "original address");
 		final Branch replacement = new Branch(1, "new name", "new address");
 		testee.updateBranch(replacement);
-		testee.commit();
 		assertEquals(replacement, branchDao.findById(1).get(), "replacement now in data store");
 		assertFalse(branchDao.findAll().contains(original),
 				"original gone from data store");
@@ -0,0 +1,185 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.dao.BorrowerDao;
+import com.st.novatech.springlms.dao.CopiesDao;
+import com.st.novatech.springlms.dao.LibraryBranchDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Tests of the in-memory availability index.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public final class AvailabilityIndexTest {
+	/**
+	 * Book DAO used in tests.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * Branch DAO used in tests.
+	 */
+	@Autowired
+	private LibraryBranchDao branchDao;
+	/**
+	 * Copies DAO used in tests.
+	 */
+	@Autowired
+	private CopiesDao copiesDao;
+	/**
+	 * Borrower DAO used in tests.
+	 */
+	@Autowired
+	private BorrowerDao borrowerDao;
+	/**
+	 * Borrower service used in tests.
+	 */
+	@Autowired
+	private BorrowerService borrowerService;
+	/**
+	 * Librarian service used in tests.
+	 */
+	@Autowired
+	private LibrarianService libService;
+	/**
+	 * Transaction manager, to test rollbacks.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	/**
+	 * The index under test.
+	 */
+	@Autowired
+	private AvailabilityIndex testee;
+	/**
+	 * Book used in tests.
+	 */
+	private Book book;
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+
+	/**
+	 * Set up the book and branch used in tests.
+	 */
+	@BeforeEach
+	public void setUp() {
+		book = bookDao.create("book title", null, null);
+		branch = branchDao.create("branch name", "branch address");
+	}
+
+	/**
+	 * Test that setting copies through the service is reflected in the index
+	 * once committed, and not if rolled back.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testWriteThrough() throws TransactionException {
+		libService.setBranchCopies(branch, book, 3);
+		assertEquals(3, testee.getCopies(branch, book), "committed change seen");
+		final TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.execute(status -> {
+			try {
+				libService.setBranchCopies(branch, book, 7);
+			} catch (final TransactionException except) {
+				throw new IllegalStateException(except);
+			}
+			status.setRollbackOnly();
+			return null;
+		});
+		assertEquals(3, testee.getCopies(branch, book), "rolled-back change not seen");
+		libService.setBranchCopies(branch, book, 0);
+		assertEquals(0, testee.getCopies(branch, book), "removal seen");
+	}
+
+	/**
+	 * Test that reconciling picks up changes made behind the services' backs.
+	 */
+	@Test
+	public void testReconcile() {
+		copiesDao.setCopies(branch, book, 5);
+		assertEquals(0, testee.getCopies(branch, book), "direct change not yet seen");
+		testee.reconcile();
+		assertEquals(5, testee.getCopies(branch, book), "direct change seen after reconciling");
+	}
+
+	/**
+	 * Test that a checkout is not refused because the index has not yet seen
+	 * copies added behind the services' backs.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testBorrowUnseenCopies() throws TransactionException {
+		copiesDao.setCopies(branch, book, 1);
+		assertEquals(0, testee.getCopies(branch, book), "direct change not yet seen");
+		final Borrower borrower = borrowerDao.create("borrower", "address", "phone");
+		assertNotNull(borrowerService.borrowBook(borrower, book, branch,
+				LocalDateTime.now(), LocalDate.now().plusWeeks(1)),
+				"copy in the database can be borrowed");
+		assertEquals(0, copiesDao.getCopies(branch, book), "copy was taken");
+	}
+
+	/**
+	 * Test the primitive map against a {@link HashMap} through many random
+	 * changes, including enough removals to exercise moving entries back into
+	 * the holes they leave.
+	 */
+	@Test
+	public void testCountMap() {
+		final CopiesCountMap map = new CopiesCountMap(0);
+		final Map<Long, Integer> expected = new HashMap<>();
+		final Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			final int branchId = random.nextInt(20) + 1;
+			final int bookId = random.nextInt(500) + 1;
+			final int count = random.nextInt(4);
+			map.put(branchId, bookId, count);
+			if (count > 0) {
+				expected.put(CopiesCountMap.key(branchId, bookId), count);
+			} else {
+				expected.remove(CopiesCountMap.key(branchId, bookId));
+			}
+		}
+		map.removeBranch(3);
+		expected.keySet().removeIf(key -> (int) (key >>> 32) == 3);
+		assertEquals(expected.size(), map.size(), "same number of entries");
+		for (int branchId = 1; branchId <= 20; branchId++) {
+			for (int bookId = 1; bookId <= 500; bookId++) {
+				assertEquals(
+						expected.getOrDefault(CopiesCountMap.key(branchId, bookId), 0)
+								.intValue(),
+						map.get(branchId, bookId), "same count");
+			}
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Load test of the borrower service: many threads checking books out and
+ * returning them at once, each in its own transaction.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class BorrowerServiceLoadTest {
+	/**
+	 * The largest number of request threads to test with.
+	 */
+	private static final int MAX_THREADS = 8;
+	/**
+	 * How many borrow-and-return cycles each thread performs.
+	 */
+	private static final int CYCLES_PER_THREAD = 20;
+	/**
+	 * How many copies the branch starts with; enough that every thread can
+	 * always borrow one.
+	 */
+	private static final int INITIAL_COPIES = MAX_THREADS * 2;
+	/**
+	 * Logger for reporting measured throughput.
+	 */
+	private static final Logger LOGGER = Logger
+			.getLogger(BorrowerServiceLoadTest.class.getName());
+
+	/**
+	 * Borrower service under test.
+	 */
+	@Autowired
+	private BorrowerService borrowerService;
+	/**
+	 * Administrator service used to set up test data.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * Librarian service used to set up test data.
+	 */
+	@Autowired
+	private LibrarianService libService;
+
+	/**
+	 * Book used in tests.
+	 */
+	private Book book;
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+	/**
+	 * One borrower per thread, so each thread's loans are independent.
+	 */
+	private final List<Borrower> borrowers = new ArrayList<>();
+
+	/**
+	 * Create test data before each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@BeforeEach
+	public void init() throws TransactionException {
+		book = adminService.createBook("load-test book", null, null);
+		branch = adminService.createBranch("load-test branch", "");
+		libService.setBranchCopies(branch, book, INITIAL_COPIES);
+		for (int i = 0; i < MAX_THREADS; i++) {
+			borrowers.add(adminService.createBorrower("patron " + i, "", ""));
+		}
+	}
+
+	/**
+	 * Remove test data after each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@AfterEach
+	public void tearDown() throws TransactionException {
+		for (final Borrower borrower : borrowers) {
+			adminService.deleteBorrower(borrower);
+		}
+		borrowers.clear();
+		adminService.deleteBook(book);
+		adminService.deleteBranch(branch);
+	}
+
+	/**
+	 * Have the given number of threads each borrow and return the test book
+	 * {@link #CYCLES_PER_THREAD} times, and return the throughput achieved.
+	 *
+	 * @param threads how many threads to use
+	 * @return the number of borrow-and-return cycles completed per second
+	 * @throws Exception on error in any thread
+	 */
+	private double measure(final int threads) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<Integer>> futures = new ArrayList<>();
+		final long start = System.nanoTime();
+		for (int i = 0; i < threads; i++) {
+			final Borrower borrower = borrowers.get(i);
+			futures.add(executor.submit(() -> {
+				int completed = 0;
+				for (int j = 0; j < CYCLES_PER_THREAD; j++) {
+					assertNotNull(borrowerService.borrowBook(borrower, book, branch,
+							LocalDateTime.now(), LocalDate.now().plusWeeks(1)),
+							"Borrowing succeeds");
+					if (Boolean.TRUE.equals(borrowerService.returnBook(borrower,
+							book, branch, LocalDate.now()))) {
+						completed++;
+					}
+				}
+				return completed;
+			}));
+		}
+		int completed = 0;
+		for (final Future<Integer> future : futures) {
+			completed += future.get();
+		}
+		final long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		assertEquals(threads * CYCLES_PER_THREAD, completed,
+				"Every cycle completed with " + threads + " threads");
+		final double throughput = completed / (elapsed / 1e9);
+		LOGGER.info(String.format("%d threads: %d borrow/return cycles in %d ms (%.0f/s)",
+				threads, completed, TimeUnit.NANOSECONDS.toMillis(elapsed),
+				throughput));
+		return throughput;
+	}
+
+	/**
+	 * Test that concurrent requests each get their own transaction: every
+	 * borrow-and-return cycle succeeds, the copy count is unchanged at the end,
+	 * and throughput is reported for each thread count so scaling can be
+	 * compared.
+	 *
+	 * @throws Exception on error in any thread
+	 */
+	@DisplayName("Concurrent borrowers do not share a transaction")
+	@Test
+	public void testConcurrentBorrowAndReturn() throws Exception {
+		measure(1); // warm-up
+		for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+			assertTrue(measure(threads) > 0, "Some progress was made");
+		}
+		assertEquals(INITIAL_COPIES, libService.getCopies(book, branch),
+				"Every borrowed copy was returned");
+		assertTrue(borrowerService.getAllBranchesWithLoan(borrowers.get(0)).isEmpty(),
+				"No loans remain outstanding");
+	}
+}
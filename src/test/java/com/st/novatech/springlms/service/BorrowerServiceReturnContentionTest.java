@@ -0,0 +1,155 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.dao.CopiesDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Tests that returning the same loan from many threads at once, as when a
+ * client retries a batch return, puts the book back into stock only once.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class BorrowerServiceReturnContentionTest {
+	/**
+	 * How many threads return the same loan at once.
+	 */
+	private static final int THREADS = 8;
+	/**
+	 * How many times a loan is made and then returned from every thread.
+	 */
+	private static final int ROUNDS = 20;
+	/**
+	 * How many copies the branch starts with.
+	 */
+	private static final int INITIAL_COPIES = 5;
+
+	/**
+	 * Borrower service under test.
+	 */
+	@Autowired
+	private BorrowerService borrowerService;
+	/**
+	 * Administrator service used to set up test data.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * Librarian service used to set up test data, and to read the in-memory
+	 * availability index.
+	 */
+	@Autowired
+	private LibrarianService libService;
+	/**
+	 * Copies DAO, to read the copies count from the database.
+	 */
+	@Autowired
+	private CopiesDao copiesDao;
+
+	/**
+	 * Book used in tests.
+	 */
+	private Book book;
+	/**
+	 * Branch used in tests.
+	 */
+	private Branch branch;
+	/**
+	 * Borrower used in tests.
+	 */
+	private Borrower borrower;
+
+	/**
+	 * Create test data before each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@BeforeEach
+	public void init() throws TransactionException {
+		book = adminService.createBook("contended return", null, null);
+		branch = adminService.createBranch("contended return branch", "");
+		borrower = adminService.createBorrower("contended patron", "", "");
+		libService.setBranchCopies(branch, book, INITIAL_COPIES);
+	}
+
+	/**
+	 * Remove test data after each test.
+	 *
+	 * @throws TransactionException on error caught by a service
+	 */
+	@AfterEach
+	public void tearDown() throws TransactionException {
+		adminService.deleteBorrower(borrower);
+		adminService.deleteBook(book);
+		adminService.deleteBranch(branch);
+	}
+
+	/**
+	 * Test that when every thread returns the same loan at once, exactly one of
+	 * them returns it, and the copy is put back once.
+	 *
+	 * @throws Exception on error in any thread
+	 */
+	@DisplayName("Concurrent batch returns of one loan restock it once")
+	@Test
+	public void testConcurrentReturn() throws Exception {
+		final List<LoanKey> loan = Collections.singletonList(
+				new LoanKey(borrower.getCardNo(), branch.getId(), book.getId()));
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				assertNotNull(borrowerService.borrowBook(borrower, book, branch,
+						LocalDateTime.now(), LocalDate.now().plusWeeks(1)),
+						"Borrowing succeeds");
+				final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+				final List<Future<Integer>> futures = new ArrayList<>();
+				for (int i = 0; i < THREADS; i++) {
+					futures.add(executor.submit(() -> {
+						barrier.await();
+						return borrowerService.returnBooks(loan).get(0)
+								.getStatus() == ReturnResult.Status.RETURNED ? 1 : 0;
+					}));
+				}
+				int returned = 0;
+				for (final Future<Integer> future : futures) {
+					returned += future.get();
+				}
+				assertEquals(1, returned, "Exactly one request returned the loan");
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		assertEquals(INITIAL_COPIES, copiesDao.getCopies(branch, book),
+				"Each return restocked the database once");
+		assertEquals(INITIAL_COPIES, libService.getCopies(book, branch),
+				"Each return restocked the availability index once");
+	}
+}
@@ -0,0 +1,183 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.dao.AuthorDao;
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.dao.ImportProgressDao;
+import com.st.novatech.springlms.dao.PublisherDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Author;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.ImportProgress;
+
+/**
+ * Tests of the catalog import service.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public final class CatalogImportServiceTest {
+	/**
+	 * Book DAO used in tests.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * Author DAO used in tests.
+	 */
+	@Autowired
+	private AuthorDao authorDao;
+	/**
+	 * Publisher DAO used in tests.
+	 */
+	@Autowired
+	private PublisherDao publisherDao;
+	/**
+	 * Import-progress DAO used in tests.
+	 */
+	@Autowired
+	private ImportProgressDao progressDao;
+	/**
+	 * The service object under test.
+	 */
+	@Autowired
+	private CatalogImportService testee;
+	/**
+	 * The file to import.
+	 */
+	private Path source;
+
+	/**
+	 * Create the file to import.
+	 *
+	 * @throws IOException on I/O error creating it
+	 */
+	@BeforeEach
+	public void setUp() throws IOException {
+		source = Files.createTempFile("catalog", ".csv");
+	}
+
+	/**
+	 * Delete the file to import.
+	 *
+	 * @throws IOException on I/O error deleting it
+	 */
+	@AfterEach
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(source);
+	}
+
+	/**
+	 * Test importing books from CSV, creating each author and publisher only
+	 * once.
+	 *
+	 * @throws IOException          never
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testImportBooks() throws IOException, TransactionException {
+		final Author existing = authorDao.create("existing author");
+		Files.write(source, Arrays.asList("# title,author,publisher",
+				"first title,existing author,", "\"second, title\",new author,new publisher",
+				"", "\"third \"\"title\"\"\",new author,new publisher"),
+				StandardCharsets.UTF_8);
+		final ImportSummary summary = testee.importFile(source, ImportKind.BOOKS,
+				ImportFormat.CSV);
+		assertEquals(5, summary.getLinesRead(), "every line read");
+		assertEquals(3, summary.getRecordsImported(), "comments and blanks skipped");
+		final List<Book> books = bookDao.findAll();
+		assertEquals(
+				new HashSet<>(Arrays.asList("first title", "second, title",
+						"third \"title\"")),
+				books.stream().map(Book::getTitle).collect(Collectors.toSet()),
+				"titles unquoted");
+		assertEquals(2, authorDao.count(), "new author created only once");
+		assertEquals(1, publisherDao.count(), "new publisher created only once");
+		assertEquals(existing, books.stream()
+				.filter(book -> "first title".equals(book.getTitle())).findAny().get()
+				.getAuthor(), "existing author reused");
+		assertEquals(0, progressDao.count(), "progress removed when done");
+	}
+
+	/**
+	 * Test that an import resumes after the lines an earlier run committed.
+	 *
+	 * @throws IOException          never
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testResume() throws IOException, TransactionException {
+		Files.write(source, Arrays.asList("already imported", "not yet imported"),
+				StandardCharsets.UTF_8);
+		progressDao.save(new ImportProgress(source.toAbsolutePath().normalize().toString(), 1));
+		final ImportSummary summary = testee.importFile(source, ImportKind.AUTHORS,
+				ImportFormat.CSV);
+		assertEquals(1, summary.getLinesSkipped(), "committed line skipped");
+		assertEquals("not yet imported", authorDao.findAll().get(0).getName(),
+				"only the rest imported");
+		assertEquals(1, authorDao.count(), "only the rest imported");
+	}
+
+	/**
+	 * Test that when a later chunk fails, the progress recorded is exactly the
+	 * chunks that were committed.
+	 *
+	 * @throws IOException never
+	 */
+	@Test
+	public void testProgressMatchesCommittedChunks() throws IOException {
+		final List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			lines.add("author " + i);
+		}
+		lines.add(String.join("", Collections.nCopies(50, "x")));
+		Files.write(source, lines, StandardCharsets.UTF_8);
+		assertThrows(IllegalArgumentException.class,
+				() -> testee.importFile(source, ImportKind.AUTHORS, ImportFormat.CSV),
+				"overlong name rejected");
+		assertEquals(5000, authorDao.count(), "first chunk committed");
+		final ImportProgress progress = progressDao
+				.findById(source.toAbsolutePath().normalize().toString()).orElse(null);
+		assertNotNull(progress, "progress recorded");
+		assertEquals(5000, progress.getLastLine(), "progress covers the first chunk");
+	}
+
+	/**
+	 * Test that a malformed line is rejected.
+	 *
+	 * @throws IOException never
+	 */
+	@Test
+	public void testBadLine() throws IOException {
+		Files.write(source, Arrays.asList("1,1,1", "1,two,1"), StandardCharsets.UTF_8);
+		assertThrows(IllegalArgumentException.class,
+				() -> testee.importFile(source, ImportKind.COPIES, ImportFormat.CSV),
+				"non-numeric copy count rejected");
+	}
+}
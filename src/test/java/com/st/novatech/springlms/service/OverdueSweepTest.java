@@ -0,0 +1,179 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.st.novatech.springlms.dao.BookDao;
+import com.st.novatech.springlms.dao.BookLoansDao;
+import com.st.novatech.springlms.dao.BorrowerDao;
+import com.st.novatech.springlms.dao.LibraryBranchDao;
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.model.Loan;
+
+/**
+ * Tests of the overdue-loan query and the background sweep built on it.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public final class OverdueSweepTest {
+	/**
+	 * The date the tests run on, as far as the application knows.
+	 */
+	private static final LocalDate TODAY = LocalDate.of(2019, 9, 15);
+
+	/**
+	 * Supplies a clock fixed at {@link #TODAY} in place of the system clock.
+	 */
+	@TestConfiguration
+	static class FixedClock {
+		/**
+		 * The fixed clock.
+		 *
+		 * @return a clock that is always at the start of {@link #TODAY}
+		 */
+		@Bean
+		@Primary
+		public Clock fixedClock() {
+			return Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC),
+					ZoneOffset.UTC);
+		}
+	}
+
+	/**
+	 * Book DAO used in tests.
+	 */
+	@Autowired
+	private BookDao bookDao;
+	/**
+	 * Branch DAO used in tests.
+	 */
+	@Autowired
+	private LibraryBranchDao branchDao;
+	/**
+	 * Borrower DAO used in tests.
+	 */
+	@Autowired
+	private BorrowerDao borrowerDao;
+	/**
+	 * Loans DAO used in tests.
+	 */
+	@Autowired
+	private BookLoansDao loansDao;
+	/**
+	 * Administrator service used in tests.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * The sweep under test.
+	 */
+	@Autowired
+	private OverdueSweep testee;
+
+	/**
+	 * Create a loan of a new book, due on the given date.
+	 *
+	 * @param title    the title of the book
+	 * @param borrower the borrower
+	 * @param branch   the branch
+	 * @param dueDate  when the book is due
+	 * @return the loan
+	 */
+	private Loan lend(final String title, final Borrower borrower, final Branch branch,
+			final LocalDate dueDate) {
+		final Book book = bookDao.create(title, null, null);
+		return loansDao.create(book, borrower, branch, LocalDateTime.of(2019, 8, 1, 12, 0),
+				dueDate);
+	}
+
+	/**
+	 * Test that only loans due before today are found, earliest due first, a page
+	 * at a time.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testOverduePage() throws TransactionException {
+		final Borrower borrower = borrowerDao.create("borrower", "address", "phone");
+		final Branch branch = branchDao.create("branch", "address");
+		final Loan later = lend("later", borrower, branch, TODAY.minusDays(1));
+		final Loan earlier = lend("earlier", borrower, branch, TODAY.minusDays(10));
+		lend("due today", borrower, branch, TODAY);
+		lend("due later", borrower, branch, TODAY.plusDays(3));
+		assertEquals(Arrays.asList(earlier, later),
+				adminService.getOverdueLoansPage(TODAY, PageRequest.of(0, 10)),
+				"only loans due before today, earliest first");
+		assertEquals(Arrays.asList(later),
+				adminService.getOverdueLoansPage(TODAY, PageRequest.of(1, 1)),
+				"paging applies to the overdue loans");
+	}
+
+	/**
+	 * Test that the sweep uses the injected clock and produces a notice for each
+	 * overdue loan.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testSweep() throws TransactionException {
+		final Borrower borrower = borrowerDao.create("borrower", "address", "phone");
+		final Branch branch = branchDao.create("branch", "address");
+		lend("overdue", borrower, branch, TODAY.minusDays(4));
+		lend("not yet due", borrower, branch, TODAY.plusDays(1));
+		final List<OverdueNotice> notices = new ArrayList<>();
+		assertEquals(1, testee.sweep(notices::addAll), "one loan is overdue");
+		assertEquals(Arrays.asList("overdue"),
+				notices.stream().map(OverdueNotice::getTitle).collect(Collectors.toList()),
+				"notice is for the overdue loan");
+		assertEquals(4, notices.get(0).getDaysOverdue(), "days overdue by the fixed clock");
+		assertEquals(borrower.getCardNo(), notices.get(0).getCardNo(),
+				"notice is addressed to the borrower");
+	}
+
+	/**
+	 * Test that a sweep over more loans than fit in one chunk passes them all on,
+	 * in full chunks and then the remainder.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testSweepChunks() throws TransactionException {
+		final Borrower borrower = borrowerDao.create("borrower", "address", "phone");
+		final Branch branch = branchDao.create("branch", "address");
+		for (int i = 0; i < OverdueSweep.CHUNK_SIZE + 3; i++) {
+			lend("book " + i, borrower, branch, TODAY.minusDays(1 + i % 30));
+		}
+		final List<Integer> sizes = new ArrayList<>();
+		assertEquals(OverdueSweep.CHUNK_SIZE + 3,
+				testee.sweep(chunk -> sizes.add(chunk.size())),
+				"every overdue loan swept");
+		assertEquals(Arrays.asList(OverdueSweep.CHUNK_SIZE, 3), sizes,
+				"notices passed on in chunks");
+	}
+}
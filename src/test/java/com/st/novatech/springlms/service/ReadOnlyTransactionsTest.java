@@ -0,0 +1,146 @@
+package com.st.novatech.springlms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.model.Book;
+import com.st.novatech.springlms.model.Borrower;
+import com.st.novatech.springlms.model.Branch;
+
+/**
+ * Tests that the services' read methods run in read-only transactions, in
+ * which Hibernate does not flush the session.
+ *
+ * @author Jonathan Lovelace
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReadOnlyTransactionsTest {
+	/**
+	 * Read methods answered from the in-memory indexes, which should join a
+	 * transaction if there is one but not begin one, as that would take a
+	 * connection from the pool.
+	 */
+	private static final List<String> IN_MEMORY = Arrays.asList("getSuggestFootprint",
+			"getCopies", "suggest");
+
+	/**
+	 * Administrator service used in tests.
+	 */
+	@Autowired
+	private AdministratorService adminService;
+	/**
+	 * Librarian service used in tests.
+	 */
+	@Autowired
+	private LibrarianService librarianService;
+	/**
+	 * Borrower service used in tests.
+	 */
+	@Autowired
+	private BorrowerService borrowerService;
+	/**
+	 * Entity-manager factory, from which we get Hibernate's statistics.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Test that every public "get" or "search" method of each service
+	 * implementation is declared read-only, except those answered from memory,
+	 * which are declared not to begin a transaction, and the lookups whose
+	 * results are cached, which must read the primary and so must not be
+	 * read-only.
+	 */
+	@Test
+	public void testReadMethodsDeclaredReadOnly() {
+		final List<String> missing = new ArrayList<>();
+		for (final Class<?> cls : Arrays.asList(BorrowerServiceImpl.class,
+				LibrarianServiceImpl.class, AdministratorServiceImpl.class)) {
+			for (final Method method : cls.getDeclaredMethods()) {
+				final String name = method.getName();
+				if (!Modifier.isPublic(method.getModifiers()) || method.isSynthetic()) {
+					continue;
+				}
+				final Transactional annotation = method
+						.getAnnotation(Transactional.class);
+				if (IN_MEMORY.contains(name)) {
+					if (annotation == null
+							|| annotation.propagation() != Propagation.SUPPORTS) {
+						missing.add(cls.getSimpleName() + "." + name);
+					}
+				} else if (method.isAnnotationPresent(Cacheable.class)) {
+					if (annotation == null || annotation.readOnly()) {
+						missing.add(cls.getSimpleName() + "." + name);
+					}
+				} else if ((name.startsWith("get") || name.startsWith("search"))
+						&& (annotation == null || !annotation.readOnly())) {
+					missing.add(cls.getSimpleName() + "." + name);
+				}
+			}
+		}
+		assertEquals(Collections.emptyList(), missing,
+				"every read method is a read-only transaction, or none at all, "
+						+ "except cached lookups");
+	}
+
+	/**
+	 * Test that reading entities through the services never flushes the
+	 * session, while a write does.
+	 *
+	 * @throws TransactionException never
+	 */
+	@Test
+	public void testReadsDoNotFlush() throws TransactionException {
+		final Book book = adminService.createBook("title", null, null);
+		final Branch branch = adminService.createBranch("branch", "address");
+		final Borrower borrower = adminService.createBorrower("borrower", "address",
+				"phone");
+		librarianService.setBranchCopies(branch, book, 3);
+		borrowerService.borrowBook(borrower, book, branch, LocalDateTime.now(),
+				LocalDate.now().plusWeeks(1));
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		assertEquals(1, adminService.getAllBooks().size(), "book listed");
+		assertEquals(1, adminService.getAllLoans().size(), "loan listed");
+		assertEquals(1, librarianService.getCopiesPage(0, 0, PageRequest.of(0, 10))
+				.size(), "copies record listed");
+		assertEquals(1, borrowerService.getAllBorrowedBooks(borrower).size(),
+				"borrower's loan listed");
+		assertEquals(1, borrowerService.getAllBranchCopies(branch).size(),
+				"branch's copies listed");
+		assertTrue(statistics.getEntityLoadCount() > 0, "entities were loaded");
+		assertEquals(0, statistics.getFlushCount(), "reading never flushes");
+		book.setTitle("new title");
+		adminService.updateBook(book);
+		assertTrue(statistics.getFlushCount() > 0, "writing does flush");
+	}
+}
@@ -8,8 +8,13 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -24,6 +29,7 @@ import com.st.novatech.springlms.model.Author;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Borrower;
 import com.st.novatech.springlms.model.Branch;
+import com.st.novatech.springlms.model.BranchCopies;
 import com.st.novatech.springlms.model.Loan;
 import com.st.novatech.springlms.model.Publisher;
 
@@ -108,6 +114,11 @@ public class SalemBorrowerServiceTest {
 	 */
 	@Autowired
 	private LibrarianService libService;
+	/**
+	 * Entity-manager factory, from which we get Hibernate's statistics.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
 
 	/**
 	 * Set up database connection, service objects, and test data before each test.
@@ -127,7 +138,6 @@ public class SalemBorrowerServiceTest {
 		// due date is two weeks from now
 		testLoan = borrowerService.borrowBook(testBorrower, testBook, testBranch,
 				LocalDate.now().atStartOfDay(), LocalDate.now().plusWeeks(2));
-		borrowerService.commit();
 	}
 
 	/**
@@ -161,7 +171,6 @@ public class SalemBorrowerServiceTest {
 				borrowerService.returnBook(testBorrower, testBook, testBranch,
 						LocalDate.now().plusWeeks(1)),
 				"returning book one week before due date is accepted");
-		borrowerService.commit();
 		final int copiesAfterReturning = libService.getCopies(testBook, testBranch);
 
 		assertEquals(copiesBeforeReturning + 1, copiesAfterReturning,
@@ -213,17 +222,125 @@ public class SalemBorrowerServiceTest {
 		// returning 1 week before it is due
 		borrowerService.returnBook(testBorrower, testBook, testBranch,
 				LocalDate.now().plusWeeks(1));
-		borrowerService.commit();
 		final int copiesBeforeBorrowing = libService.getCopies(testBook, testBranch);
 
 		borrowerService.borrowBook(testBorrower, testBook, testBranch,
 				LocalDateTime.now(), LocalDate.now().plusWeeks(2));
-		borrowerService.commit();
 		assertEquals(copiesBeforeBorrowing - 1,
 				libService.getCopies(testBook, testBranch),
 				"borrowing decremented number of copies");
 	}
 
+	/**
+	 * Test that the branches holding a book are listed, most copies first.
+	 *
+	 * @throws TransactionException on error caught by the service
+	 */
+	@DisplayName("availability lists branches with copies, most first")
+	@Test
+	public void getAvailableCopiesTest() throws TransactionException {
+		final Branch bigger = adminService.createBranch(SAMPLE_BRANCH_NAME,
+				SAMPLE_BRANCH_ADDRESS);
+		final Branch empty = adminService.createBranch(SAMPLE_BRANCH_NAME,
+				SAMPLE_BRANCH_ADDRESS);
+		libService.setBranchCopies(bigger, testBook, noOfCopies * 2);
+		libService.setBranchCopies(empty, testBook, 1);
+		libService.setBranchCopies(empty, testBook, 0);
+		final List<BranchCopies> available = borrowerService
+				.getAvailableCopies(testBook);
+		assertEquals(2, available.size(), "only branches with copies listed");
+		assertEquals(bigger, available.get(0).getBranch(), "most copies first");
+		assertEquals(noOfCopies * 2, available.get(0).getCopies(),
+				"copies counted");
+		assertEquals(testBranch, available.get(1).getBranch(),
+				"other branch listed");
+		assertEquals(noOfCopies - 1, available.get(1).getCopies(),
+				"loan taken into account");
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+		assertEquals(available, borrowerService.getAvailableCopies(testBook),
+				"same answer the second time");
+		assertEquals(0, statistics.getPrepareStatementCount(),
+				"branches read from the second-level cache, not the database");
+		adminService.deleteBranch(bigger);
+		adminService.deleteBranch(empty);
+	}
+
+	/**
+	 * Test that a batch checkout borrows what it can and reports why it could
+	 * not borrow the rest.
+	 *
+	 * @throws TransactionException on error caught by the service
+	 */
+	@DisplayName("batch borrow reports an outcome for each distinct book")
+	@Test
+	public void borrowBooksTest() throws TransactionException {
+		final Book available = adminService.createBook(SAMPLE_TITLE, null, null);
+		final Book unavailable = adminService.createBook(SAMPLE_TITLE, null, null);
+		libService.setBranchCopies(testBranch, available, 1);
+		final List<CheckoutResult> results = borrowerService.borrowBooks(
+				testBorrower, testBranch,
+				Arrays.asList(testBook.getId(), available.getId(),
+						unavailable.getId(), available.getId()),
+				LocalDateTime.now(), LocalDate.now().plusWeeks(2));
+		assertEquals(3, results.size(), "one result per distinct book");
+		assertEquals(CheckoutResult.Status.ALREADY_BORROWED,
+				results.get(0).getStatus(), "book already out is not borrowed again");
+		assertEquals(CheckoutResult.Status.BORROWED, results.get(1).getStatus(),
+				"available book is borrowed");
+		assertEquals(available, results.get(1).getLoan().getBook(),
+				"loan is of the available book");
+		assertEquals(CheckoutResult.Status.UNAVAILABLE, results.get(2).getStatus(),
+				"book with no copies is not borrowed");
+		assertEquals(0, libService.getCopies(available, testBranch),
+				"borrowing decremented number of copies");
+		assertEquals(2, borrowerService.getAllBorrowedBooks(testBorrower).size(),
+				"borrower now has two loans");
+		assertTrue(borrowerService.returnBook(testBorrower, available, testBranch,
+				LocalDate.now()), "the new loan can be returned");
+		adminService.deleteBook(available);
+		adminService.deleteBook(unavailable);
+	}
+
+	/**
+	 * Test that a batch return returns every outstanding loan given, restocking
+	 * each copy, and reports loans it could not find.
+	 *
+	 * @throws TransactionException on error caught by the service
+	 */
+	@DisplayName("batch return reports an outcome for each distinct loan")
+	@Test
+	public void returnBooksTest() throws TransactionException {
+		final Borrower other = adminService.createBorrower(SAMPLE_PATRON_NAME,
+				SAMPLE_PATRON_ADDRESS, SAMPLE_PATRON_PHONE);
+		borrowerService.borrowBook(other, testBook, testBranch,
+				LocalDateTime.now(), LocalDate.now().plusWeeks(2));
+		final int copiesBeforeReturning = libService.getCopies(testBook, testBranch);
+		final LoanKey first = new LoanKey(testBorrower.getCardNo(),
+				testBranch.getId(), testBook.getId());
+		final List<ReturnResult> results = borrowerService.returnBooks(Arrays.asList(
+				first,
+				new LoanKey(other.getCardNo(), testBranch.getId(), testBook.getId()),
+				new LoanKey(other.getCardNo(), testBranch.getId(), Integer.MAX_VALUE),
+				first));
+		assertEquals(3, results.size(), "one result per distinct loan");
+		assertEquals(ReturnResult.Status.RETURNED, results.get(0).getStatus(),
+				"first loan returned");
+		assertEquals(ReturnResult.Status.RETURNED, results.get(1).getStatus(),
+				"second loan returned");
+		assertEquals(ReturnResult.Status.NOT_FOUND, results.get(2).getStatus(),
+				"nonexistent loan reported as not found");
+		assertEquals(copiesBeforeReturning + 2,
+				libService.getCopies(testBook, testBranch),
+				"both copies put back into stock");
+		assertTrue(borrowerService.getAllBorrowedBooks(testBorrower).isEmpty(),
+				"first loan removed");
+		assertTrue(borrowerService.getAllBorrowedBooks(other).isEmpty(),
+				"second loan removed");
+		adminService.deleteBorrower(other);
+	}
+
 	/**
 	 * Test that getting all branches with loans works.
 	 *
@@ -19,6 +19,7 @@ import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.st.novatech.springlms.exception.TransactionException;
+import com.st.novatech.springlms.exception.UpdateException;
 import com.st.novatech.springlms.model.Author;
 import com.st.novatech.springlms.model.Book;
 import com.st.novatech.springlms.model.Branch;
@@ -94,16 +95,14 @@ public class SalemLibrarianServiceTest {
 	}
 
 	/**
-	 * Test that updating a null branch will throw a NPE.
-	 *
-	 * <p>FIXME: service should catch this and turn it into a TransactionException
+	 * Test that updating a null branch will throw an UpdateException.
 	 * @throws TransactionException on error caught by the service
 	 */
-	@DisplayName("throws null pointer exception if null is passed as a parameter for update branch")
+	@DisplayName("throws update exception if null is passed as a parameter for update branch")
 	@Test
 	public void updateBranchTest() throws TransactionException {
-		assertThrows(NullPointerException.class, () -> libService.updateBranch(null),
-				"Expecting to throw null pointer exception");
+		assertThrows(UpdateException.class, () -> libService.updateBranch(null),
+				"Expecting to throw update exception");
 	}
 
 	/**
@@ -7,4 +7,6 @@ CREATE TABLE IF NOT EXISTS `library`.`tbl_book` (`bookId` INT(11) AUTO_INCREMENT
 CREATE TABLE IF NOT EXISTS `library`.`tbl_library_branch` (`branchId` INT(11) AUTO_INCREMENT NOT NULL, `branchName` VARCHAR(45) NULL DEFAULT NULL, `branchAddress` VARCHAR(45) NULL DEFAULT NULL, PRIMARY KEY (`branchId`));
 CREATE TABLE IF NOT EXISTS `library`.`tbl_book_copies` (`bookId` INT(11) NOT NULL, `branchId` INT(11) NOT NULL, `noOfCopies` INT(11) NULL DEFAULT NULL, PRIMARY KEY (`bookId`, `branchId`), INDEX `fk_bc_book` (`bookId` ASC), INDEX `fk_bc_branch` (`branchId` ASC), CONSTRAINT `fk_bc_branch` FOREIGN KEY (`branchId`) REFERENCES `library`.`tbl_library_branch` (`branchId`) ON DELETE CASCADE ON UPDATE CASCADE, CONSTRAINT `fk_bc_book` FOREIGN KEY (`bookId`) REFERENCES `library`.`tbl_book` (`bookId`) ON DELETE CASCADE ON UPDATE CASCADE);
 CREATE TABLE IF NOT EXISTS `library`.`tbl_borrower` (`cardNo` INT(11) AUTO_INCREMENT NOT NULL, `name` VARCHAR(45) NULL DEFAULT NULL, `address` VARCHAR(45) NULL DEFAULT NULL, `phone` VARCHAR(45) NULL DEFAULT NULL, PRIMARY KEY (`cardNo`));
-CREATE TABLE IF NOT EXISTS `library`.`tbl_book_loans` (`bookId` INT(11) NOT NULL, `branchId` INT(11) NOT NULL, `cardNo` INT(11) NOT NULL, `dateOut` DATETIME NULL DEFAULT NULL, `dueDate` DATETIME NULL DEFAULT NULL, PRIMARY KEY (`bookId`, `branchId`, `cardNo`), INDEX `fk_bl_book` (`bookId` ASC), INDEX `fk_bl_branch` (`branchId` ASC), INDEX `fk_bl_borrower` (`cardNo` ASC), CONSTRAINT `fk_bl_branch` FOREIGN KEY (`branchId`) REFERENCES `library`.`tbl_library_branch` (`branchId`) ON DELETE CASCADE ON UPDATE CASCADE, CONSTRAINT `fk_bl_book` FOREIGN KEY (`bookId`) REFERENCES `library`.`tbl_book` (`bookId`) ON DELETE CASCADE ON UPDATE CASCADE, CONSTRAINT `fk_bl_borrower` FOREIGN KEY (`cardNo`) REFERENCES `library`.`tbl_borrower` (`cardNo`) ON DELETE CASCADE ON UPDATE CASCADE);
+CREATE TABLE IF NOT EXISTS `library`.`tbl_book_loans` (`bookId` INT(11) NOT NULL, `branchId` INT(11) NOT NULL, `cardNo` INT(11) NOT NULL, `dateOut` DATETIME NULL DEFAULT NULL, `dueDate` DATETIME NULL DEFAULT NULL, PRIMARY KEY (`bookId`, `branchId`, `cardNo`), INDEX `fk_bl_book` (`bookId` ASC), INDEX `fk_bl_branch` (`branchId` ASC), INDEX `fk_bl_borrower` (`cardNo` ASC), INDEX `idx_bl_due` (`dueDate` ASC, `cardNo` ASC, `branchId` ASC, `bookId` ASC), CONSTRAINT `fk_bl_branch` FOREIGN KEY (`branchId`) REFERENCES `library`.`tbl_library_branch` (`branchId`) ON DELETE CASCADE ON UPDATE CASCADE, CONSTRAINT `fk_bl_book` FOREIGN KEY (`bookId`) REFERENCES `library`.`tbl_book` (`bookId`) ON DELETE CASCADE ON UPDATE CASCADE, CONSTRAINT `fk_bl_borrower` FOREIGN KEY (`cardNo`) REFERENCES `library`.`tbl_borrower` (`cardNo`) ON DELETE CASCADE ON UPDATE CASCADE);
+CREATE TABLE IF NOT EXISTS `library`.`tbl_replica_heartbeat` (`id` INT(11) NOT NULL, `beat` BIGINT NOT NULL, PRIMARY KEY (`id`));
+CREATE TABLE IF NOT EXISTS `library`.`tbl_import_progress` (`source` VARCHAR(255) NOT NULL, `lastLine` BIGINT NOT NULL, PRIMARY KEY (`source`));